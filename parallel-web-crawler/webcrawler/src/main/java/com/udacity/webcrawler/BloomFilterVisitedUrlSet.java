@@ -0,0 +1,169 @@
+package com.udacity.webcrawler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A {@link VisitedUrlSet} backed by a Bloom filter stored outside of the Java heap.
+ *
+ * <p>Each URL only sets a few bits in a fixed size bit array, so the memory used does not grow with
+ * the crawl: about 1.2 bytes per expected URL at a 1% false positive rate. The price is that a URL
+ * that was never visited is sometimes reported as visited, and then skipped. The filter keeps a
+ * running estimate of how many URLs were skipped that way, see
+ * {@link #estimateFalsePositiveSkips()}.
+ *
+ * <p>Bits are set with atomic bitwise ORs on the underlying direct buffer, so no locks are needed.
+ * Two threads adding the same URL at the same moment may both be told it is new.
+ */
+final class BloomFilterVisitedUrlSet implements VisitedUrlSet {
+
+  private static final VarHandle WORDS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  /**
+   * The largest bit array a single direct {@link ByteBuffer} can hold, rounded down to whole
+   * {@code long}s.
+   */
+  private static final long MAX_BITS = (long) (Integer.MAX_VALUE - 8) / Long.BYTES * Long.SIZE;
+
+  private final ByteBuffer bits;
+  private final long bitCount;
+  private final int hashCount;
+  private final AtomicInteger size = new AtomicInteger();
+  private final DoubleAdder falsePositiveSkips = new DoubleAdder();
+
+  /**
+   * Creates a Bloom filter sized to hold the given number of URLs with the given false positive
+   * rate.
+   *
+   * @param expectedUrls      the number of distinct URLs the crawl is expected to visit.
+   * @param falsePositiveRate the desired chance that an unvisited URL is reported as visited, once
+   *                          {@code expectedUrls} URLs have been added.
+   * @throws IllegalArgumentException if the filter would not fit in a single direct buffer.
+   */
+  BloomFilterVisitedUrlSet(long expectedUrls, double falsePositiveRate) {
+    if (expectedUrls <= 0) {
+      throw new IllegalArgumentException("expectedUrls must be positive");
+    }
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+    }
+    double optimalBits = -expectedUrls * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    if (optimalBits > MAX_BITS) {
+      throw new IllegalArgumentException(
+          "A Bloom filter for " + expectedUrls + " URLs at a false positive rate of "
+              + falsePositiveRate + " needs more than " + MAX_BITS / 8 + " bytes");
+    }
+    // Round up to whole longs, since bits are set one long at a time.
+    long words = Math.max(1, ((long) Math.ceil(optimalBits) + Long.SIZE - 1) / Long.SIZE);
+    this.bitCount = words * Long.SIZE;
+    this.hashCount =
+        Math.max(1, (int) Math.round((double) bitCount / expectedUrls * Math.log(2)));
+    // Atomic access through the VarHandle requires the longs to be aligned.
+    this.bits = ByteBuffer.allocateDirect((int) (words * Long.BYTES) + Long.BYTES - 1)
+        .alignedSlice(Long.BYTES);
+  }
+
+  @Override
+  public boolean add(String url) {
+    long h1 = FingerprintVisitedUrlSet.fingerprint(UrlNormalizer.normalize(url));
+    long h2 = secondHash(h1);
+    boolean added = false;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      long mask = 1L << bit;
+      long old = (long) WORDS.getAndBitwiseOr(bits, (int) (bit >>> 6) * Long.BYTES, mask);
+      if ((old & mask) == 0) {
+        added = true;
+      }
+    }
+    if (added) {
+      int urls = size.incrementAndGet();
+      // Each new URL offered at this fill level was wrongly reported as visited with probability
+      // p, so for every URL that got through, p / (1 - p) others are expected to have been skipped.
+      double p = falsePositiveRate(urls);
+      falsePositiveSkips.add(p / (1 - p));
+    }
+    return added;
+  }
+
+  @Override
+  public boolean contains(String url) {
+    long h1 = FingerprintVisitedUrlSet.fingerprint(UrlNormalizer.normalize(url));
+    long h2 = secondHash(h1);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      long word = (long) WORDS.getVolatile(bits, (int) (bit >>> 6) * Long.BYTES);
+      if ((word & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return size.get();
+  }
+
+  @Override
+  public long estimateFalsePositiveSkips() {
+    return Math.round(falsePositiveSkips.sum());
+  }
+
+  @Override
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeLong(bitCount);
+    out.writeInt(hashCount);
+    out.writeInt(size.get());
+    out.writeDouble(falsePositiveSkips.sum());
+    for (long i = 0; i < bitCount / Long.SIZE; i++) {
+      out.writeLong((long) WORDS.getVolatile(bits, (int) i * Long.BYTES));
+    }
+  }
+
+  @Override
+  public void readFrom(DataInput in) throws IOException {
+    long savedBitCount = in.readLong();
+    int savedHashCount = in.readInt();
+    if (savedBitCount != bitCount || savedHashCount != hashCount) {
+      throw new IOException(
+          "The saved Bloom filter has " + savedBitCount + " bits and " + savedHashCount
+              + " hash functions, but this one has " + bitCount + " bits and " + hashCount
+              + ". Resume with the same bloomFilter settings the crawl was started with.");
+    }
+    size.addAndGet(in.readInt());
+    falsePositiveSkips.add(in.readDouble());
+    for (long i = 0; i < bitCount / Long.SIZE; i++) {
+      WORDS.getAndBitwiseOr(bits, (int) i * Long.BYTES, in.readLong());
+    }
+  }
+
+  /**
+   * Returns the chance that a URL that was never added is reported as visited, after the given
+   * number of URLs have been added.
+   */
+  private double falsePositiveRate(int urls) {
+    return Math.pow(-Math.expm1(-(double) hashCount * urls / bitCount), hashCount);
+  }
+
+  /**
+   * Derives the step of the bit index sequence from the first hash. The two hashes are combined as
+   * {@code h1 + i * h2} to get all the bit indexes from a single string hash.
+   */
+  private static long secondHash(long h1) {
+    long h = h1 * 0x9e3779b97f4a7c15L;
+    h ^= h >>> 32;
+    h *= 0xd6e8feb86659fd93L;
+    h ^= h >>> 32;
+    // An odd step never cycles back to the same bit early when the bit count is a power of two.
+    return h | 1;
+  }
+}
@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the file the state of a running crawl is periodically saved to. The
+ * bound value is empty if the crawl is not checkpointed.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "checkpointPath"} option from
+ * the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CheckpointPath {
+}
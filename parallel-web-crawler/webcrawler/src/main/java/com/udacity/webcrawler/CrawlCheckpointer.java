@@ -0,0 +1,327 @@
+package com.udacity.webcrawler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Periodically saves the state of a running crawl to disk, so that it can be resumed after the
+ * process is killed.
+ *
+ * <p>A checkpoint holds the visited URLs, the word counts collected so far and every frontier entry
+ * that has been queued but not yet crawled. To keep those three consistent with each other, crawl
+ * tasks hold a read lock while they change them (see {@link #pageStarted()}), and the checkpoint
+ * is taken under the write lock. Tasks hold the read lock twice per page, briefly: once to mark the
+ * URL as visited, and once to add the page's word counts and links after it was downloaded and
+ * parsed. A page in between has its entry still queued and its URL recorded as being fetched
+ * (see {@link #fetching(String)}), so a resumed crawl downloads it again even though it counts as
+ * visited.
+ *
+ * <p>The write lock is only held while the state is copied into memory. The copy is then written
+ * to a temporary file that is atomically moved over the previous checkpoint, so a crash while
+ * writing never leaves a corrupt checkpoint behind.
+ */
+final class CrawlCheckpointer {
+
+  private static final int MAGIC = 0x57434350;
+  private static final int VERSION = 2;
+
+  private static final CrawlCheckpointer DISABLED = new CrawlCheckpointer();
+
+  private final Path path;
+  private final Duration interval;
+  private final VisitedUrlSet visitedUrls;
+  private final WordCountAccumulator counts;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Set<CrawlFrontier.Entry> outstanding =
+      Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private final Set<String> fetching = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private final Set<String> resumedFetches = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private ScheduledExecutorService scheduler;
+
+  private CrawlCheckpointer() {
+    this.path = null;
+    this.interval = null;
+    this.visitedUrls = null;
+    this.counts = null;
+  }
+
+  /**
+   * Creates a checkpointer that saves the given crawl state to the given file.
+   */
+  CrawlCheckpointer(
+      Path path, Duration interval, VisitedUrlSet visitedUrls, WordCountAccumulator counts) {
+    this.path = Objects.requireNonNull(path);
+    this.interval = Objects.requireNonNull(interval);
+    this.visitedUrls = Objects.requireNonNull(visitedUrls);
+    this.counts = Objects.requireNonNull(counts);
+  }
+
+  /**
+   * Returns a checkpointer that never saves anything, for crawls that are not checkpointed.
+   */
+  static CrawlCheckpointer disabled() {
+    return DISABLED;
+  }
+
+  private boolean isEnabled() {
+    return path != null;
+  }
+
+  /**
+   * Returns whether there is a checkpoint to resume from.
+   */
+  boolean hasCheckpoint() {
+    return isEnabled() && Files.exists(path);
+  }
+
+  /**
+   * Loads the saved checkpoint into this crawl's visited URLs and word counts, and returns the
+   * frontier entries that still have to be crawled.
+   *
+   * @throws UncheckedIOException if the checkpoint could not be read.
+   */
+  List<CrawlFrontier.Entry> restore() {
+    try (DataInputStream in =
+             new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException(path + " is not a crawl checkpoint");
+      }
+      String kind = in.readUTF();
+      if (!kind.equals(visitedUrls.getClass().getName())) {
+        throw new IOException(
+            "The checkpoint was saved by a crawl using " + kind
+                + ". Resume it with the same visitedUrlMode.");
+      }
+      visitedUrls.readFrom(in);
+
+      int words = in.readInt();
+      Map<String, Integer> savedCounts = new HashMap<>(words * 2);
+      for (int i = 0; i < words; i++) {
+        savedCounts.put(readString(in), in.readInt());
+      }
+      counts.add(savedCounts);
+
+      int entries = in.readInt();
+      List<CrawlFrontier.Entry> remaining = new ArrayList<>(entries);
+      for (int i = 0; i < entries; i++) {
+        remaining.add(new CrawlFrontier.Entry(readString(in), in.readInt()));
+      }
+
+      int fetches = in.readInt();
+      for (int i = 0; i < fetches; i++) {
+        resumedFetches.add(readString(in));
+      }
+      return remaining;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not resume from " + path, e);
+    }
+  }
+
+  /**
+   * Starts writing a checkpoint at every interval, on a background thread.
+   */
+  void start() {
+    if (!isEnabled()) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "crawl-checkpointer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long millis = interval.toMillis();
+    scheduler.scheduleWithFixedDelay(this::checkpoint, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the periodic checkpoints and saves the final state of the crawl.
+   *
+   * <p>If every queued entry was crawled, there is nothing left to resume and the checkpoint file
+   * is deleted instead. Otherwise, for example because the crawl ran out of time, the remaining
+   * entries are saved so a later run can pick them up.
+   */
+  void finish() {
+    if (!isEnabled()) {
+      return;
+    }
+    if (scheduler != null) {
+      // Let a checkpoint that is already being written finish, so it cannot overwrite this one.
+      scheduler.shutdown();
+      try {
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (outstanding.isEmpty()) {
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    } else {
+      checkpoint();
+    }
+  }
+
+  /**
+   * Marks the start of a change to the crawl state. Must be followed by {@link #pageFinished()}.
+   */
+  void pageStarted() {
+    if (isEnabled()) {
+      lock.readLock().lock();
+    }
+  }
+
+  /**
+   * Marks the end of a change to the crawl state started with {@link #pageStarted()}.
+   */
+  void pageFinished() {
+    if (isEnabled()) {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Records that the page at the given URL was marked as visited, and is now being downloaded and
+   * parsed. Must be called under {@link #pageStarted()}, together with marking the URL as visited.
+   */
+  void fetching(String url) {
+    if (isEnabled()) {
+      fetching.add(url);
+    }
+  }
+
+  /**
+   * Records that the results of the page at the given URL are in the crawl state. Must be called
+   * under {@link #pageStarted()}, together with adding those results.
+   */
+  void fetched(String url) {
+    if (isEnabled()) {
+      fetching.remove(url);
+    }
+  }
+
+  /**
+   * Returns whether the given URL, although already visited, has to be crawled again because it
+   * was still being fetched when the resumed checkpoint was saved. Returns {@code true} at most
+   * once per URL.
+   */
+  boolean resumesFetch(String url) {
+    return isEnabled() && resumedFetches.remove(url);
+  }
+
+  /**
+   * Records that the given entry was queued and still has to be crawled.
+   */
+  void queued(CrawlFrontier.Entry entry) {
+    if (isEnabled()) {
+      outstanding.add(entry);
+    }
+  }
+
+  /**
+   * Records that the given entry has been crawled, and that its results are in the crawl state.
+   */
+  void crawled(CrawlFrontier.Entry entry) {
+    if (isEnabled()) {
+      outstanding.remove(entry);
+    }
+  }
+
+  private void checkpoint() {
+    ByteArrayOutputStream visited = new ByteArrayOutputStream();
+    Map<String, Integer> merged;
+    List<CrawlFrontier.Entry> remaining;
+    List<String> fetches;
+    lock.writeLock().lock();
+    try {
+      // Only copy the state here. Tasks wait for the write lock, but not for the disk.
+      visitedUrls.writeTo(new DataOutputStream(visited));
+      merged = counts.merge();
+      remaining = new ArrayList<>(outstanding);
+      fetches = new ArrayList<>(fetching);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Writing to memory cannot fail", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream out =
+               new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(visitedUrls.getClass().getName());
+        visited.writeTo(out);
+
+        out.writeInt(merged.size());
+        for (Map.Entry<String, Integer> e : merged.entrySet()) {
+          writeString(out, e.getKey());
+          out.writeInt(e.getValue());
+        }
+
+        out.writeInt(remaining.size());
+        for (CrawlFrontier.Entry entry : remaining) {
+          writeString(out, entry.getUrl());
+          out.writeInt(entry.getDepth());
+        }
+
+        out.writeInt(fetches.size());
+        for (String url : fetches) {
+          writeString(out, url);
+        }
+      }
+      Files.move(
+          temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // A failed checkpoint should not stop the crawl. The previous checkpoint is still intact.
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes a string of any length as UTF-8. {@link DataOutput#writeUTF(String)} is limited to
+   * 65535 bytes, which long URLs can exceed.
+   */
+  static void writeString(DataOutput out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutput, String)}.
+   */
+  static String readString(DataInput in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,54 @@
+package com.udacity.webcrawler;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * The deadline of a crawl, shared by all of its tasks so that they stop together once it passes.
+ *
+ * <p>The first task that finds the deadline has passed cancels the crawl for every other task.
+ * From then on, {@link #isCancelled()} is a single volatile read, so tasks that are still queued
+ * can exit without reading the clock, and tasks that would fork more work can tell that they
+ * should not.
+ */
+final class CrawlDeadline {
+
+  private final Clock clock;
+  private final Instant instant;
+  private volatile boolean cancelled;
+
+  CrawlDeadline(Clock clock, Instant instant) {
+    this.clock = Objects.requireNonNull(clock);
+    this.instant = Objects.requireNonNull(instant);
+  }
+
+  /**
+   * Returns the point in time the crawl has to be done by.
+   */
+  Instant getInstant() {
+    return instant;
+  }
+
+  /**
+   * Returns whether the crawl has been cancelled, without reading the clock.
+   */
+  boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Returns whether the deadline has passed, and cancels the crawl if it has. The clock is only
+   * read if the crawl has not been cancelled yet.
+   */
+  boolean hasPassed() {
+    if (cancelled) {
+      return true;
+    }
+    if (clock.instant().isAfter(instant)) {
+      cancelled = true;
+      return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,438 @@
+package com.udacity.webcrawler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded, thread-safe queue of URLs that are waiting to be crawled, which spreads the crawl
+ * politely over the hosts the URLs point to.
+ *
+ * <p>Each queued URL is paired with the depth it was discovered at, so that workers draining the
+ * frontier know how many more links they are allowed to follow from that page.
+ *
+ * <p>URLs are queued per host, and {@link #poll()} takes turns between the hosts, so a single site
+ * with many links cannot take up every worker. A URL is only handed out once its host has fewer
+ * than the configured number of requests in flight and the configured delay has passed since the
+ * last request to that host was started. URLs without a host, such as local files, are never held
+ * back.
+ *
+ * <p>A prioritized frontier hands out the entry with the highest priority among the hosts that are
+ * ready, instead of taking turns. Entries with the same priority are handed out in the order they
+ * were added.
+ *
+ * <p>Without a per-host limit, a delay or priorities, nothing is ever held back, so the frontier is
+ * a plain lock-free queue that hands out entries in the order they were added. Otherwise every
+ * call takes the frontier's lock, which is only held for a few map and queue operations: the host
+ * of a URL is worked out before taking it.
+ *
+ * <p>A bounded frontier holds at most its capacity in entries, counted from when they are added
+ * until they are {@link #release(Entry) released}, so entries that were handed out but not crawled
+ * yet count too, in whichever host queue they wait. Callers {@link #reserve(int) reserve} room
+ * before adding entries, which makes them wait while the frontier is full. Reserving room is
+ * lock-free unless the caller has to wait, and waiting callers are let in in the order they came.
+ */
+final class CrawlFrontier {
+
+  /**
+   * The capacity of a frontier that is not bounded.
+   */
+  static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private final int capacity;
+  private final AtomicInteger taken = new AtomicInteger();
+  private final Object room = new Object();
+  private volatile int roomWaiters;
+  private long nextRoomTicket;
+  private long roomTicketServed;
+  private final int maxConcurrentPerHost;
+  private final long minDelayNanos;
+  private final boolean prioritized;
+  private final Queue<Entry> unthrottled;
+  private final Map<String, HostQueue> hosts = new HashMap<>();
+  private final Queue<HostQueue> waitingHosts = new ArrayDeque<>();
+  private int size;
+  private long added;
+  private boolean expired;
+  private long wakeupAt;
+  private boolean wakeupScheduled;
+
+  /**
+   * Creates an empty, unbounded frontier that takes turns between hosts.
+   *
+   * @param maxConcurrentPerHost the maximum number of requests to the same host that may be in
+   *                             flight at once, or 0 for no limit.
+   * @param minDelayPerHost      the minimum time between starting two requests to the same host.
+   */
+  CrawlFrontier(int maxConcurrentPerHost, Duration minDelayPerHost) {
+    this(maxConcurrentPerHost, minDelayPerHost, false);
+  }
+
+  /**
+   * Creates an empty, unbounded frontier.
+   *
+   * @param prioritized whether to hand out the entries with the highest priority first, instead
+   *                    of taking turns between hosts.
+   * @see #CrawlFrontier(int, Duration)
+   */
+  CrawlFrontier(int maxConcurrentPerHost, Duration minDelayPerHost, boolean prioritized) {
+    this(UNBOUNDED, maxConcurrentPerHost, minDelayPerHost, prioritized);
+  }
+
+  /**
+   * Creates an empty frontier that holds at most {@code capacity} entries.
+   *
+   * @see #CrawlFrontier(int, Duration, boolean)
+   */
+  CrawlFrontier(
+      int capacity, int maxConcurrentPerHost, Duration minDelayPerHost, boolean prioritized) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    if (maxConcurrentPerHost < 0) {
+      throw new IllegalArgumentException("maxConcurrentPerHost cannot be negative");
+    }
+    if (minDelayPerHost.isNegative()) {
+      throw new IllegalArgumentException("minDelayPerHost cannot be negative");
+    }
+    this.capacity = capacity;
+    this.maxConcurrentPerHost =
+        maxConcurrentPerHost == 0 ? Integer.MAX_VALUE : maxConcurrentPerHost;
+    this.minDelayNanos = minDelayPerHost.toNanos();
+    this.prioritized = prioritized;
+    this.unthrottled = maxConcurrentPerHost == 0 && minDelayNanos == 0 && !prioritized
+        ? new ConcurrentLinkedQueue<>()
+        : null;
+  }
+
+  /**
+   * Returns whether entries hold a slot of their host from {@link #poll()} until
+   * {@link #release(Entry)}, which keeps other entries of the same host waiting.
+   */
+  boolean limitsHosts() {
+    return unthrottled == null;
+  }
+
+  /**
+   * Reserves room for the given number of entries if there is enough right away, and no other
+   * caller is waiting for room.
+   *
+   * @return whether the room was reserved. If not, nothing was reserved.
+   * @see #reserve(int)
+   */
+  boolean tryReserve(int count) {
+    return capacity == UNBOUNDED || (roomWaiters == 0 && take(count));
+  }
+
+  /**
+   * Reserves room for the given number of entries, waiting until there is enough. Waiting callers
+   * get room in the order they asked for it.
+   *
+   * <p>Every entry of a bounded frontier must have been reserved before it is {@link #add(Entry)
+   * added}. More entries than the capacity fit once the frontier is empty, so that a page with
+   * more links than the capacity does not wait forever. Callers must not hold on to entries they
+   * have not crawled yet while they wait, or the room they hold may never come free.
+   */
+  void reserve(int count) {
+    if (capacity == UNBOUNDED) {
+      return;
+    }
+    boolean interrupted = false;
+    synchronized (room) {
+      long ticket = nextRoomTicket++;
+      roomWaiters++;
+      while (ticket != roomTicketServed || !take(count)) {
+        try {
+          room.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      roomTicketServed++;
+      roomWaiters--;
+      // The next caller in line may fit too.
+      room.notifyAll();
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean take(int count) {
+    while (true) {
+      int current = taken.get();
+      if (current > 0 && current + count > capacity) {
+        return false;
+      }
+      if (taken.compareAndSet(current, current + count)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of entries the frontier holds room for: the entries that are queued, those
+   * handed out but not released yet, and the room reserved for entries still to be added.
+   */
+  int taken() {
+    return taken.get();
+  }
+
+  /**
+   * Adds the given entry to the frontier.
+   */
+  void add(Entry entry) {
+    add(entry, 0);
+  }
+
+  /**
+   * Adds the given entry to the frontier with the given priority. Entries with a higher priority
+   * are handed out first, if the frontier is prioritized.
+   */
+  void add(Entry entry, double priority) {
+    if (unthrottled != null) {
+      unthrottled.add(entry);
+      return;
+    }
+    add(hostOf(entry.getUrl()), entry, priority);
+  }
+
+  private synchronized void add(String hostName, Entry entry, double priority) {
+    HostQueue host = hosts.computeIfAbsent(hostName, HostQueue::new);
+    host.entries.add(new Queued(entry, priority, added++));
+    if (!host.waiting) {
+      host.waiting = true;
+      waitingHosts.add(host);
+    }
+    size++;
+  }
+
+  /**
+   * Removes and returns the next entry that may be crawled right away, or {@code null} if there
+   * is none.
+   *
+   * <p>Every entry returned by this method must be passed to {@link #release(Entry)} once its page
+   * has been crawled.
+   */
+  Entry poll() {
+    return unthrottled != null ? unthrottled.poll() : pollHosts();
+  }
+
+  private synchronized Entry pollHosts() {
+    long now = System.nanoTime();
+    if (prioritized) {
+      HostQueue best = null;
+      for (HostQueue host : waitingHosts) {
+        if (host.isReady(now)
+            && (best == null || host.entries.peek().compareTo(best.entries.peek()) < 0)) {
+          best = host;
+        }
+      }
+      if (best == null) {
+        return null;
+      }
+      waitingHosts.remove(best);
+      return take(best, now);
+    }
+    for (int i = waitingHosts.size(); i > 0; i--) {
+      HostQueue host = waitingHosts.remove();
+      if (!host.isReady(now)) {
+        waitingHosts.add(host);
+        continue;
+      }
+      return take(host, now);
+    }
+    return null;
+  }
+
+  /**
+   * Takes the next entry from the given host, which has already been taken out of the line of
+   * waiting hosts.
+   */
+  private Entry take(HostQueue host, long now) {
+    Entry entry = host.entries.remove().entry;
+    host.inFlight++;
+    host.nextStart = now + minDelayNanos;
+    if (host.entries.isEmpty()) {
+      host.waiting = false;
+    } else {
+      // Go to the back of the line, so every other host gets a turn first.
+      waitingHosts.add(host);
+    }
+    size--;
+    return entry;
+  }
+
+  /**
+   * Frees the slot the given entry's host used while the entry was being crawled, and the entry's
+   * room in the frontier.
+   */
+  void release(Entry entry) {
+    if (unthrottled == null) {
+      release(hostOf(entry.getUrl()));
+    }
+    if (capacity != UNBOUNDED) {
+      taken.decrementAndGet();
+      if (roomWaiters > 0) {
+        synchronized (room) {
+          room.notifyAll();
+        }
+      }
+    }
+  }
+
+  private synchronized void release(String hostName) {
+    hosts.get(hostName).inFlight--;
+  }
+
+  /**
+   * Stops holding back any queued entries.
+   *
+   * <p>This is meant for when the crawl has run out of time: the remaining entries will not be
+   * fetched anyway, so there is no reason to wait before handing them out.
+   */
+  synchronized void expire() {
+    expired = true;
+  }
+
+  /**
+   * Checks whether entries are only being held back by the per-host delay, so that nothing will
+   * hand them out unless a caller polls again later.
+   *
+   * @return how many nanoseconds the caller should wait before polling again, or -1 if no wake-up
+   *     is needed, either because no entry is waiting on a delay, or because another caller
+   *     already claimed an earlier or equal wake-up.
+   */
+  synchronized long claimWakeup() {
+    if (unthrottled != null) {
+      return -1;
+    }
+    long now = System.nanoTime();
+    long earliest = 0;
+    boolean found = false;
+    for (HostQueue host : waitingHosts) {
+      // Hosts at their concurrency limit are woken up by release() instead.
+      if (host.inFlight < maxConcurrentPerHost
+          && (!found || host.nextStart - earliest < 0)) {
+        earliest = host.nextStart;
+        found = true;
+      }
+    }
+    if (!found || (wakeupScheduled && wakeupAt - earliest <= 0)) {
+      return -1;
+    }
+    wakeupScheduled = true;
+    wakeupAt = earliest;
+    return Math.max(0, earliest - now);
+  }
+
+  /**
+   * Records that the wake-up claimed with {@link #claimWakeup()} has happened.
+   */
+  synchronized void wakeupFired() {
+    wakeupScheduled = false;
+  }
+
+  /**
+   * Returns the number of URLs currently queued.
+   */
+  int size() {
+    if (unthrottled != null) {
+      return unthrottled.size();
+    }
+    synchronized (this) {
+      return size;
+    }
+  }
+
+  /**
+   * Returns the lower-cased host of the given URL, or an empty string if it does not have one.
+   */
+  static String hostOf(String url) {
+    int start = url.indexOf("://");
+    if (start < 0) {
+      return "";
+    }
+    start += 3;
+    int end = start;
+    while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+      end++;
+    }
+    int userInfo = url.lastIndexOf('@', end - 1);
+    if (userInfo >= start) {
+      start = userInfo + 1;
+    }
+    return url.substring(start, end).toLowerCase(Locale.ROOT);
+  }
+
+  private final class HostQueue {
+    private final boolean throttled;
+    private final Queue<Queued> entries = prioritized ? new PriorityQueue<>() : new ArrayDeque<>();
+    private int inFlight;
+    private long nextStart = System.nanoTime();
+    private boolean waiting;
+
+    private HostQueue(String host) {
+      this.throttled = !host.isEmpty();
+    }
+
+    private boolean isReady(long now) {
+      return expired
+          || !throttled
+          || (inFlight < maxConcurrentPerHost && now - nextStart >= 0);
+    }
+  }
+
+  /**
+   * An entry in the frontier, along with its priority and the order it was added in.
+   */
+  private static final class Queued implements Comparable<Queued> {
+    private final Entry entry;
+    private final double priority;
+    private final long order;
+
+    private Queued(Entry entry, double priority, long order) {
+      this.entry = entry;
+      this.priority = priority;
+      this.order = order;
+    }
+
+    @Override
+    public int compareTo(Queued other) {
+      int byPriority = Double.compare(other.priority, priority);
+      return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+    }
+  }
+
+  /**
+   * A URL waiting in the frontier, along with its remaining crawl depth.
+   */
+  static final class Entry {
+    private final String url;
+    private final int depth;
+
+    /**
+     * @param url   the URL to crawl.
+     * @param depth the number of links that may still be followed, including this one.
+     */
+    Entry(String url, int depth) {
+      this.url = Objects.requireNonNull(url);
+      this.depth = depth;
+    }
+
+    String getUrl() {
+      return url;
+    }
+
+    int getDepth() {
+      return depth;
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PageParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.udacity.webcrawler.CrawlCheckpointer.readString;
+import static com.udacity.webcrawler.CrawlCheckpointer.writeString;
+
+/**
+ * The word counts and links of every page from the previous run of an incremental crawl, which
+ * lets the next run skip parsing the pages that did not change.
+ *
+ * <p>Each revisited page is downloaded again, conditionally if the page cache is enabled, and its
+ * content is compared by digest with the content it had in the previous run. An unchanged page
+ * reuses its recorded links, and its words are already part of the previous run's totals, which
+ * the crawl starts from. A changed or new page is parsed, and only the difference between its new
+ * and old word counts is added to the totals. Once the crawl is done, {@link #finish} subtracts the
+ * words of the pages that were not reached anymore. The parsing work of a run is then proportional
+ * to how many pages changed, not to the size of the site.
+ *
+ * <p>Instances are thread-safe.
+ */
+final class CrawlHistory {
+
+  private static final int MAGIC = 0x57434948;
+  private static final int VERSION = 1;
+
+  private final Path path;
+  private final Map<String, Page> previous;
+  private final Map<String, Integer> previousTotals;
+  private final Map<String, Page> current = new ConcurrentHashMap<>();
+
+  private CrawlHistory(Path path, Map<String, Page> previous, Map<String, Integer> totals) {
+    this.path = path;
+    this.previous = previous;
+    this.previousTotals = totals;
+  }
+
+  /**
+   * Loads the history saved by the previous run at the given path. If there is no previous run,
+   * the history is empty and every page is crawled as new.
+   *
+   * @throws UncheckedIOException if the history exists but could not be read.
+   */
+  static CrawlHistory load(Path path) {
+    if (!Files.exists(path)) {
+      return new CrawlHistory(path, Map.of(), Map.of());
+    }
+    try (DataInputStream in =
+             new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException(path + " is not an incremental crawl state file");
+      }
+      Map<String, Integer> totals = readCounts(in);
+      int pages = in.readInt();
+      Map<String, Page> previous = new HashMap<>(pages * 2);
+      for (int i = 0; i < pages; i++) {
+        String url = readString(in);
+        previous.put(url, Page.readFrom(in));
+      }
+      return new CrawlHistory(path, previous, totals);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not load the previous crawl from " + path, e);
+    }
+  }
+
+  /**
+   * Returns the word counts of the previous run, before the popular words were picked.
+   */
+  Map<String, Integer> getPreviousTotals() {
+    return previousTotals;
+  }
+
+  /**
+   * Revisits the page at the given URL. The change in its word counts since the previous run is
+   * returned rather than added to the crawl's counts, so the caller can add it together with the
+   * rest of the page's results.
+   */
+  Revisit revisit(String url, PageParser parser) {
+    PageParser.Content content = parser.fetch().toCompletableFuture().join();
+    // A page that could not be downloaded counts as empty, just like in a full crawl. It is never
+    // matched against the previous run, so it is parsed again once it is back.
+    String digest = content.isNone() ? "" : content.digest();
+    Page old = previous.get(url);
+    Page page;
+    Map<String, Integer> countChange = Map.of();
+    if (old != null && !digest.isEmpty() && old.digest.equals(digest)) {
+      page = old;
+    } else {
+      PageParser.Result result = parser.parse(content);
+      page = new Page(digest, result.getWordCounts(), result.getLinks());
+      countChange = difference(page.wordCounts, old == null ? Map.of() : old.wordCounts);
+    }
+    current.put(url, page);
+    return new Revisit(countChange, page.links);
+  }
+
+  /**
+   * Subtracts the word counts of every page of the previous run that was not revisited by this one.
+   * Must be called once, after the crawl is done.
+   */
+  void finish(WordCountAccumulator counts) {
+    for (Map.Entry<String, Page> e : previous.entrySet()) {
+      if (!current.containsKey(e.getKey())) {
+        counts.add(difference(Map.of(), e.getValue().wordCounts));
+      }
+    }
+  }
+
+  /**
+   * Saves the pages revisited by this run, along with the given total word counts, for the next
+   * run to start from.
+   *
+   * @throws UncheckedIOException if the history could not be saved.
+   */
+  void save(Map<String, Integer> totals) {
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream out =
+               new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeCounts(out, totals);
+        out.writeInt(current.size());
+        for (Map.Entry<String, Page> e : current.entrySet()) {
+          writeString(out, e.getKey());
+          e.getValue().writeTo(out);
+        }
+      }
+      Files.move(
+          temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not save the crawl to " + path, e);
+    }
+  }
+
+  private static Map<String, Integer> difference(
+      Map<String, Integer> added, Map<String, Integer> removed) {
+    Map<String, Integer> difference = new HashMap<>(added);
+    for (Map.Entry<String, Integer> e : removed.entrySet()) {
+      difference.merge(e.getKey(), -e.getValue(), Integer::sum);
+    }
+    return difference;
+  }
+
+  private static void writeCounts(DataOutput out, Map<String, Integer> counts)
+      throws IOException {
+    out.writeInt(counts.size());
+    for (Map.Entry<String, Integer> e : counts.entrySet()) {
+      writeString(out, e.getKey());
+      out.writeInt(e.getValue());
+    }
+  }
+
+  private static Map<String, Integer> readCounts(DataInput in) throws IOException {
+    int size = in.readInt();
+    Map<String, Integer> counts = new HashMap<>(size * 2);
+    for (int i = 0; i < size; i++) {
+      counts.put(readString(in), in.readInt());
+    }
+    return counts;
+  }
+
+  /**
+   * The outcome of {@link #revisit(String, PageParser)}.
+   */
+  static final class Revisit {
+    private final Map<String, Integer> countChange;
+    private final List<String> links;
+
+    private Revisit(Map<String, Integer> countChange, List<String> links) {
+      this.countChange = countChange;
+      this.links = links;
+    }
+
+    /**
+     * Returns what has to be added to the crawl's word counts for the page.
+     */
+    Map<String, Integer> getCountChange() {
+      return countChange;
+    }
+
+    /**
+     * Returns the links on the page.
+     */
+    List<String> getLinks() {
+      return links;
+    }
+  }
+
+  /**
+   * What a single page contributed to a run.
+   */
+  private static final class Page {
+    private final String digest;
+    private final Map<String, Integer> wordCounts;
+    private final List<String> links;
+
+    private Page(String digest, Map<String, Integer> wordCounts, List<String> links) {
+      this.digest = Objects.requireNonNull(digest);
+      this.wordCounts = Objects.requireNonNull(wordCounts);
+      this.links = Objects.requireNonNull(links);
+    }
+
+    private void writeTo(DataOutput out) throws IOException {
+      writeString(out, digest);
+      writeCounts(out, wordCounts);
+      out.writeInt(links.size());
+      for (String link : links) {
+        writeString(out, link);
+      }
+    }
+
+    private static Page readFrom(DataInput in) throws IOException {
+      String digest = readString(in);
+      Map<String, Integer> wordCounts = readCounts(in);
+      int size = in.readInt();
+      List<String> links = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        links.add(readString(in));
+      }
+      return new Page(digest, wordCounts, links);
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the order in which the parallel crawler visits pages, which is either
+ * {@code "unordered"} or {@code "breadth-first"}.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "crawlOrder"} option from the
+ * crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CrawlOrder {
+}
@@ -0,0 +1,95 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.FetchBudget;
+import com.udacity.webcrawler.parser.PageStats;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gathers the statistics of a single crawl that go into its {@link CrawlResult}, besides the word
+ * counts.
+ *
+ * <p>Crawlers count every URL they visit per host, which only takes a map lookup and an increment
+ * of a striped counter. Download and parse times, downloaded bytes and errors are recorded by the
+ * parsers themselves, in the {@link FetchBudget.Totals} of the crawl and the {@link PageStats}
+ * they share. Crawlers hand the totals to the parsers they get.
+ */
+final class CrawlStatistics {
+
+  private final FetchBudget.Totals fetchBudget;
+  private final PageStats pageStats;
+  private final long startNanos = System.nanoTime();
+  private final Map<String, LongAdder> pagesPerHost = new ConcurrentHashMap<>();
+
+  private CrawlStatistics(FetchBudget.Totals fetchBudget, PageStats pageStats) {
+    this.fetchBudget = fetchBudget;
+    this.pageStats = pageStats;
+  }
+
+  /**
+   * Starts the statistics of a new crawl. The crawl gets the whole byte budget of the
+   * {@link FetchBudget} to itself, whatever other crawls of the same crawler spent before or
+   * alongside it, and its result only covers the pages it crawled itself.
+   */
+  static CrawlStatistics start(FetchBudget fetchBudget, PageStats pageStats) {
+    pageStats.startCrawl();
+    return new CrawlStatistics(fetchBudget.startCrawl(), pageStats);
+  }
+
+  /**
+   * Returns the byte budget of the crawl, for its parsers to spend.
+   */
+  FetchBudget.Totals getFetchBudget() {
+    return fetchBudget;
+  }
+
+  /**
+   * Counts a URL that the crawl visits.
+   */
+  void visited(String url) {
+    pagesPerHost.computeIfAbsent(CrawlFrontier.hostOf(url), host -> new LongAdder()).increment();
+  }
+
+  /**
+   * Returns a builder for the result of the crawl, with everything but the word counts set.
+   */
+  CrawlResult.Builder newResult(VisitedUrlSet visitedUrls) {
+    int urlsVisited = visitedUrls.size();
+    long elapsedNanos = System.nanoTime() - startNanos;
+    return new CrawlResult.Builder()
+        .setUrlsVisited(urlsVisited)
+        .setEstimatedFalsePositiveSkips(visitedUrls.estimateFalsePositiveSkips())
+        .setPagesTruncated(fetchBudget.getPagesTruncated())
+        .setPagesAborted(fetchBudget.getPagesAborted())
+        .setBytesDownloaded(fetchBudget.getBytesRead())
+        .setPagesPerSecond(elapsedNanos <= 0
+            ? 0
+            : urlsVisited * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos)
+        .setFetchLatency(pageStats.getFetchLatency())
+        .setParseLatency(pageStats.getParseLatency())
+        .setErrorCounts(pageStats.getErrorCounts())
+        .setPagesPerHost(sortedPagesPerHost());
+  }
+
+  /**
+   * Returns the number of pages per host, with the busiest hosts first.
+   */
+  private Map<String, Integer> sortedPagesPerHost() {
+    Map<String, Integer> counts = new HashMap<>();
+    pagesPerHost.forEach((host, count) -> counts.put(host, count.intValue()));
+    Map<String, Integer> sorted = new LinkedHashMap<>();
+    counts.entrySet()
+        .stream()
+        .sorted(Map.Entry.<String, Integer>comparingByValue()
+            .reversed()
+            .thenComparing(Map.Entry.comparingByKey()))
+        .forEachOrdered(e -> sorted.put(e.getKey(), e.getValue()));
+    return sorted;
+  }
+}
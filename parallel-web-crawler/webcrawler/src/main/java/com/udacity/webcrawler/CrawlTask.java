@@ -1,83 +1,405 @@
 package com.udacity.webcrawler;
 
-import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
 
 import java.time.Clock;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.RecursiveAction;
-import java.util.concurrent.RecursiveTask;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-public class CrawlTask extends RecursiveTask<CrawlResult> {
+/**
+ * A {@link CountedCompleter} that crawls web pages taken from a shared {@link CrawlFrontier}.
+ *
+ * <p>The root task seeds the frontier with the starting URLs. Every task then drains whatever is
+ * queued in the frontier by forking child tasks for the entries, so all starting pages are crawled
+ * at the same time and idle workers can steal queued pages from busy ones. Tasks never block
+ * waiting for their children; the root completes once every queued page has been processed.
+ *
+ * <p>Links are only queued once per page, and only if they are neither ignored nor visited yet, so
+ * no task is created for a link that would be skipped anyway. While the pool already has plenty of
+ * queued tasks, several entries are crawled by the same child task, which saves allocating and
+ * scheduling a task for each of them.
+ *
+ * <p>If the task is given a queue for the next level, links are put there instead of into the
+ * frontier, and the task completes once the pages it started with have been crawled. This lets
+ * the caller crawl one level of pages at a time.
+ *
+ * <p>If the task is given a {@link UrlScorer}, every queued page is scored, and the frontier hands
+ * out the page with the highest priority first. Pages are then only taken out of the frontier while
+ * some worker would otherwise be idle, since a page already handed to a task can no longer be
+ * overtaken by a better one found later.
+ *
+ * <p>The frontier decides which queued pages may be crawled right away, so that no host gets more
+ * than its share of requests. When pages are only waiting on a host's minimum delay, a timer
+ * submits a task that drains the frontier again once the delay is over.
+ *
+ * <p>All tasks share one {@link CrawlDeadline}. Once any task finds that it has passed, the others
+ * exit without reading the clock, and the rest of the frontier is dropped in place instead of
+ * forking a task for every queued page.
+ *
+ * <p>The frontier is bounded, and a page's entry keeps its room until the page has been fetched.
+ * A task reserves room for a page's links before queueing them, and waits while the frontier is
+ * full. Before waiting, it hands the entries it has not started on to a new task and forks what
+ * the frontier can hand out, so the room it waits for can come free. It waits through
+ * {@link ForkJoinPool#managedBlock}, which lets the pool start another worker in the meantime.
+ */
+public class CrawlTask extends CountedCompleter<Void> {
 
-    private final Clock clock;
-    private final Instant deadline;
+    // The most entries crawled by one child task.
+    private static final int MAX_BATCH = 16;
+    // Entries are only batched while the pool has more queued tasks than this beyond what other
+    // workers are likely to steal.
+    private static final int SURPLUS_QUEUED_TASKS = 3;
+
+    private final CrawlTask root;
+    private final CrawlDeadline deadline;
     private final PageParserFactory parserFactory;
+    private final IgnoredUrlFilter ignoredUrls;
+    private final CrawlFrontier frontier;
+    private final WordCountAccumulator counts;
+    private final VisitedUrlSet visitedUrls;
+    private final CrawlStatistics statistics;
+    private final CrawlCheckpointer checkpointer;
+    private final ScheduledExecutorService timer;
+    private final CrawlHistory history;
+    private final Queue<CrawlFrontier.Entry> nextLevel;
+    private final UrlScorer scorer;
+    private final List<CrawlFrontier.Entry> startingEntries;
     private final int maxDepth;
-    private final List<Pattern> ignoredUrls;
-    private final String url;
-    private final ConcurrentHashMap<String, Integer> counts;
-    private final ConcurrentSkipListSet<String> visitedUrls;
+    private final List<CrawlFrontier.Entry> entries;
+    // The entries from position up to end are still to be crawled by this task.
+    private int position;
+    private int end;
 
-    private CrawlTask(Clock clock, Instant deadline, PageParserFactory parserFactory, int maxDepth, List<Pattern> ignoredUrls, String url, ConcurrentHashMap<String, Integer> counts, ConcurrentSkipListSet<String> visitedUrls){
-       this.clock = clock;
+    private CrawlTask(CrawlDeadline deadline, PageParserFactory parserFactory, int maxDepth, IgnoredUrlFilter ignoredUrls, List<CrawlFrontier.Entry> startingEntries, CrawlFrontier frontier, WordCountAccumulator counts, VisitedUrlSet visitedUrls, CrawlStatistics statistics, CrawlCheckpointer checkpointer, ScheduledExecutorService timer, CrawlHistory history, Queue<CrawlFrontier.Entry> nextLevel, UrlScorer scorer){
+       super(null);
+       this.root = this;
        this.deadline = deadline;
        this.parserFactory = parserFactory;
        this.maxDepth = maxDepth;
        this.ignoredUrls = ignoredUrls;
-       this.url = url;
+       this.startingEntries = startingEntries;
+       this.frontier = frontier;
        this.counts = counts;
        this.visitedUrls = visitedUrls;
+       this.statistics = statistics;
+       this.checkpointer = checkpointer;
+       this.timer = timer;
+       this.history = history;
+       this.nextLevel = nextLevel;
+       this.scorer = scorer;
+       this.entries = List.of();
+    }
+
+    /**
+     * Creates a task that crawls the given frontier entries one after another, and shares all crawl
+     * state with the given root task. A task without entries only drains the frontier.
+     */
+    private CrawlTask(CrawlTask root, List<CrawlFrontier.Entry> entries){
+       super(root);
+       this.root = root;
+       this.deadline = root.deadline;
+       this.parserFactory = root.parserFactory;
+       this.maxDepth = root.maxDepth;
+       this.ignoredUrls = root.ignoredUrls;
+       this.startingEntries = List.of();
+       this.frontier = root.frontier;
+       this.counts = root.counts;
+       this.visitedUrls = root.visitedUrls;
+       this.statistics = root.statistics;
+       this.checkpointer = root.checkpointer;
+       this.timer = root.timer;
+       this.history = root.history;
+       this.nextLevel = root.nextLevel;
+       this.scorer = root.scorer;
+       this.entries = entries;
+       this.end = entries.size();
     }
 
     @Override
-    protected CrawlResult compute(){
+    public void compute(){
+        boolean crawled = false;
+        if(this == root){
+            // All starting entries go into the checkpoint at once, but into the frontier only as
+            // there is room for them.
+            checkpointer.pageStarted();
+            try{
+                for(CrawlFrontier.Entry start: startingEntries){
+                    checkpointer.queued(start);
+                }
+            } finally {
+                checkpointer.pageFinished();
+            }
+            for(CrawlFrontier.Entry start: startingEntries){
+                reserveRoom(1);
+                enqueue(start);
+            }
+        } else {
+            for(position = 0; position < end; position++){
+                CrawlFrontier.Entry entry = entries.get(position);
+                if(deadline.hasPassed()){
+                    // Entries skipped because the crawl ran out of time are never marked as
+                    // crawled, so they stay in the checkpoint and a resumed crawl picks them up.
+                    // There is no point in spacing them out per host either.
+                    frontier.expire();
+                    frontier.release(entry);
+                } else {
+                    crawl(entry);
+                    crawled = true;
+                }
+            }
+        }
+        // Crawling a page may have taken a while, so check the clock again before forking tasks for
+        // its links. Other tasks go by whether the crawl has already been cancelled.
+        drainFrontier(crawled ? deadline.hasPassed() : deadline.isCancelled());
+        tryComplete();
+    }
 
-        if(maxDepth == 0 || clock.instant().isAfter(deadline)){
-            return new CrawlResult.Builder().build();
+    /**
+     * Crawls the page of the given entry, and queues its links.
+     *
+     * <p>The page is downloaded and parsed without holding the checkpoint lock, so a checkpoint
+     * never waits for a download. Only claiming the URL and adding the page's results to the crawl
+     * state are done under the lock.
+     */
+    private void crawl(CrawlFrontier.Entry entry){
+        String url = entry.getUrl();
+        int depth = entry.getDepth();
+        if(depth == 0 || ignoredUrls.isIgnored(url) || !claim(url)){
+            // Nothing was added to the crawl state, so there is nothing to keep consistent.
+            frontier.release(entry);
+            checkpointer.crawled(entry);
+            return;
         }
-        for(Pattern pattern: ignoredUrls){
-            if(pattern.matcher(url).matches()){
-                return new CrawlResult.Builder().build();
+        statistics.visited(url);
+        if(scorer != null){
+            scorer.crawled(url);
+        }
+
+        Map<String, Integer> wordCounts;
+        List<String> links;
+        PageParser parser =
+                parserFactory.get(url, deadline.getInstant(), statistics.getFetchBudget());
+        try{
+            if(history == null){
+                PageParser.Result result = parser.parse();
+                wordCounts = result.getWordCounts();
+                links = result.getLinks();
+            } else {
+                CrawlHistory.Revisit revisit = history.revisit(url, parser);
+                wordCounts = revisit.getCountChange();
+                links = revisit.getLinks();
+            }
+        } finally {
+            // The page no longer needs its host's slot, and its room in the frontier can go to
+            // its links.
+            frontier.release(entry);
+        }
+        List<CrawlFrontier.Entry> children = new ArrayList<>();
+        if(depth > 1){
+            Set<String> seen = new HashSet<>();
+            for(String link: links){
+                // Checking the visited set here is only a shortcut. Another task may still visit
+                // the link first, which crawl() catches when the entry's turn comes.
+                if(seen.add(link) && !ignoredUrls.isIgnored(link) && !visitedUrls.contains(link)){
+                    children.add(new CrawlFrontier.Entry(link, depth - 1));
+                }
             }
         }
-        if(!visitedUrls.add(url)){
-            return new CrawlResult.Builder().build();
+        if(nextLevel == null){
+            // Wait for room before taking the checkpoint lock, so a checkpoint never waits on it.
+            reserveRoom(children.size());
         }
 
-        PageParser.Result result = parserFactory.get(url).parse();
-        for(Map.Entry<String, Integer> e : result.getWordCounts().entrySet()){
-            counts.compute(e.getKey(), (k,v) -> (v == null) ? e.getValue() : e.getValue() + counts.get(e.getKey()));
+        checkpointer.pageStarted();
+        try{
+            counts.add(wordCounts);
+            for(CrawlFrontier.Entry next: children){
+                checkpointer.queued(next);
+                if(nextLevel == null){
+                    enqueue(next);
+                } else {
+                    nextLevel.add(next);
+                }
+            }
+            checkpointer.crawled(entry);
+            checkpointer.fetched(url);
+        } finally {
+            checkpointer.pageFinished();
         }
+    }
 
-        List<CrawlTask> subTasks = result.getLinks().stream()
-                .map(link -> new CrawlTask.Builder()
-                        .setClock(clock)
-                        .setDeadline(deadline)
-                        .setParserFactory(parserFactory)
-                        .setMaxDepth(maxDepth - 1)
-                        .setIgnoredUrls(ignoredUrls)
-                        .setUrl(link)
-                        .setCounts(counts)
-                        .setVisitedUrls(visitedUrls)
-                        .build())
-                .collect(Collectors.toList());
+    /**
+     * Marks the given URL as visited, and returns whether this task should crawl it. A page that
+     * was still being downloaded when the resumed checkpoint was saved is crawled again, even
+     * though the checkpoint has it as visited.
+     */
+    private boolean claim(String url){
+        checkpointer.pageStarted();
+        try{
+            if(!visitedUrls.add(url) && !checkpointer.resumesFetch(url)){
+                return false;
+            }
+            checkpointer.fetching(url);
+            return true;
+        } finally {
+            checkpointer.pageFinished();
+        }
+    }
+
+    /**
+     * Reserves room in the frontier for the given number of entries, waiting until there is
+     * enough.
+     */
+    private void reserveRoom(int count){
+        if(count == 0 || frontier.tryReserve(count)){
+            return;
+        }
+        // The entries this task has not started on hold room as well, so another worker has to
+        // crawl them. The frontier may also hold entries that nothing else would hand out.
+        if(position + 1 < end){
+            // Counted like a forked child. This task no longer counts down for them.
+            root.addToPendingCount(1);
+            new CrawlTask(root, entries.subList(position + 1, end)).fork();
+            end = position + 1;
+        }
+        drainFrontier(deadline.isCancelled());
+        RoomBlocker blocker = new RoomBlocker(count);
+        try{
+            ForkJoinPool.managedBlock(blocker);
+        } catch(InterruptedException e){
+            // CrawlFrontier.reserve() does not throw it, but keeps the thread's interrupt status.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for room in the frontier while letting the pool make up for the blocked worker.
+     */
+    private final class RoomBlocker implements ForkJoinPool.ManagedBlocker{
+        private final int count;
+        private boolean reserved;
+
+        private RoomBlocker(int count){
+            this.count = count;
+        }
+
+        @Override
+        public boolean block(){
+            if(!reserved){
+                frontier.reserve(count);
+                reserved = true;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable(){
+            if(!reserved){
+                reserved = frontier.tryReserve(count);
+            }
+            return reserved;
+        }
+    }
 
-        invokeAll(subTasks);
+    /**
+     * Queues the given URL in the frontier, and registers it with the root task so the crawl does
+     * not complete before the URL has been processed. Room for the entry must have been reserved.
+     */
+    private void enqueue(CrawlFrontier.Entry next){
+        root.addToPendingCount(1);
+        if(scorer == null){
+            frontier.add(next);
+        } else {
+            frontier.add(next, scorer.score(next.getUrl(), next.getDepth()));
+        }
+    }
 
-        // aggregate results from all subtasks
+    /**
+     * Forks child tasks for the entries in the frontier that may be crawled right away, and
+     * schedules another drain if the rest are waiting on a host's minimum delay.
+     *
+     * <p>If the crawl is out of time, every queued entry is dropped instead. Like entries skipped
+     * at the start of a task, they are never marked as crawled, so they stay in the checkpoint.
+     */
+    private void drainFrontier(boolean outOfTime){
+        CrawlFrontier.Entry next;
+        if(outOfTime){
+            frontier.expire();
+            while((next = frontier.poll()) != null){
+                frontier.release(next);
+                // Counted like a completed child. The root still only completes once this task
+                // calls tryComplete().
+                root.addToPendingCount(-1);
+            }
+            return;
+        }
+        if(scorer != null){
+            // Leave the rest of the frontier for whichever task finishes next, so that pages are
+            // only handed out once a worker is free to crawl them.
+            while(getSurplusQueuedTaskCount() <= 0){
+                if((next = frontier.poll()) == null){
+                    scheduleWakeup();
+                    return;
+                }
+                forkBatch(List.of(next));
+            }
+            return;
+        }
+        List<CrawlFrontier.Entry> batch = new ArrayList<>();
+        // A polled entry holds a slot of its host until it is crawled, so a batch takes at most one
+        // entry per host. Otherwise a host's whole allowance could be crawled one page at a time.
+        Set<String> batchHosts = frontier.limitsHosts() ? new HashSet<>() : null;
+        while((next = frontier.poll()) != null){
+            if(batchHosts != null && !batchHosts.add(CrawlFrontier.hostOf(next.getUrl()))){
+                forkBatch(batch);
+                batch = new ArrayList<>();
+                batchHosts.clear();
+                batchHosts.add(CrawlFrontier.hostOf(next.getUrl()));
+            }
+            batch.add(next);
+            if(batch.size() == MAX_BATCH || getSurplusQueuedTaskCount() <= SURPLUS_QUEUED_TASKS){
+                forkBatch(batch);
+                batch = new ArrayList<>();
+                if(batchHosts != null){
+                    batchHosts.clear();
+                }
+            }
+        }
+        if(!batch.isEmpty()){
+            forkBatch(batch);
+        }
+        scheduleWakeup();
+    }
 
-        return new CrawlResult.Builder()
-                   .setWordCounts(counts)
-                   .setUrlsVisited(visitedUrls.size())
-                   .build();
+    /**
+     * Schedules another drain if entries left in the frontier are waiting on a host's minimum
+     * delay.
+     */
+    private void scheduleWakeup(){
+        long delay = timer == null ? -1 : frontier.claimWakeup();
+        if(delay >= 0){
+            // The drain task is counted right away, so the crawl cannot complete before it runs.
+            root.addToPendingCount(1);
+            ForkJoinPool pool = getPool();
+            timer.schedule(() -> {
+                frontier.wakeupFired();
+                pool.execute(new CrawlTask(root, List.of()));
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+    }
 
+    /**
+     * Forks a child task that crawls the given entries.
+     */
+    private void forkBatch(List<CrawlFrontier.Entry> batch){
+        // Every entry was counted when it was queued, but the child only counts down once.
+        root.addToPendingCount(1 - batch.size());
+        new CrawlTask(root, batch).fork();
     }
 
     public static final class Builder{
@@ -85,23 +407,41 @@ public class CrawlTask extends RecursiveTask<CrawlResult> {
         private Instant deadline;
         private PageParserFactory  parserFactory;
         private int maxDepth;
-        private List<Pattern> ignoredUrls;
-        private String url;
-        private ConcurrentHashMap<String, Integer> counts;
-        private ConcurrentSkipListSet<String> visitedUrls;
+        private IgnoredUrlFilter ignoredUrls;
+        private List<String> startingUrls = List.of();
+        private List<CrawlFrontier.Entry> resumedEntries = List.of();
+        private CrawlFrontier frontier;
+        private WordCountAccumulator counts;
+        private VisitedUrlSet visitedUrls;
+        private CrawlStatistics statistics;
+        private CrawlCheckpointer checkpointer = CrawlCheckpointer.disabled();
+        private ScheduledExecutorService timer;
+        private CrawlHistory history;
+        private Queue<CrawlFrontier.Entry> nextLevel;
+        private UrlScorer scorer;
 
         public Builder(){}
 
         public CrawlTask build(){
+            List<CrawlFrontier.Entry> startingEntries = new ArrayList<>(resumedEntries);
+            for(String url: startingUrls){
+                startingEntries.add(new CrawlFrontier.Entry(url, maxDepth));
+            }
             return new CrawlTask(
-                    clock,
-                    deadline,
+                    new CrawlDeadline(clock, deadline),
                     parserFactory,
                     maxDepth,
                     ignoredUrls,
-                    url,
+                    startingEntries,
+                    frontier,
                     counts,
-                    visitedUrls
+                    visitedUrls,
+                    statistics,
+                    checkpointer,
+                    timer,
+                    history,
+                    nextLevel,
+                    scorer
             );
         }
 
@@ -121,21 +461,53 @@ public class CrawlTask extends RecursiveTask<CrawlResult> {
             this.maxDepth = maxDepth;
             return this;
         }
-        public Builder setIgnoredUrls(List<Pattern> ignoredUrls){
+        Builder setIgnoredUrls(IgnoredUrlFilter ignoredUrls){
             this.ignoredUrls = ignoredUrls;
             return this;
         }
-        public Builder setUrl(String url){
-            this.url = url;
+        public Builder setStartingUrls(List<String> startingUrls){
+            this.startingUrls = startingUrls;
             return this;
         }
-        public Builder setCounts(ConcurrentHashMap<String, Integer> counts){
+        Builder setFrontier(CrawlFrontier frontier){
+            this.frontier = frontier;
+            return this;
+        }
+        Builder setCounts(WordCountAccumulator counts){
             this.counts = counts;
             return this;
         }
-        public Builder setVisitedUrls(ConcurrentSkipListSet<String> visitedUrls){
+        Builder setVisitedUrls(VisitedUrlSet visitedUrls){
             this.visitedUrls = visitedUrls;
             return this;
         }
+        Builder setStatistics(CrawlStatistics statistics){
+            this.statistics = statistics;
+            return this;
+        }
+        Builder setResumedEntries(List<CrawlFrontier.Entry> resumedEntries){
+            this.resumedEntries = resumedEntries;
+            return this;
+        }
+        Builder setCheckpointer(CrawlCheckpointer checkpointer){
+            this.checkpointer = checkpointer;
+            return this;
+        }
+        Builder setTimer(ScheduledExecutorService timer){
+            this.timer = timer;
+            return this;
+        }
+        Builder setHistory(CrawlHistory history){
+            this.history = history;
+            return this;
+        }
+        Builder setNextLevel(Queue<CrawlFrontier.Entry> nextLevel){
+            this.nextLevel = nextLevel;
+            return this;
+        }
+        Builder setScorer(UrlScorer scorer){
+            this.scorer = scorer;
+            return this;
+        }
     }
 }
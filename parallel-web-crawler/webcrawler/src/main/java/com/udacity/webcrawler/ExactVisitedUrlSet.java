@@ -0,0 +1,50 @@
+package com.udacity.webcrawler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link VisitedUrlSet} that keeps every normalized URL in a concurrent hash set.
+ *
+ * <p>This never mistakes a new URL for a visited one, at the cost of keeping every URL string in
+ * memory for the whole crawl.
+ */
+final class ExactVisitedUrlSet implements VisitedUrlSet {
+
+  private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+  @Override
+  public boolean add(String url) {
+    return urls.add(UrlNormalizer.normalize(url));
+  }
+
+  @Override
+  public boolean contains(String url) {
+    return urls.contains(UrlNormalizer.normalize(url));
+  }
+
+  @Override
+  public int size() {
+    return urls.size();
+  }
+
+  @Override
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeInt(urls.size());
+    for (String url : urls) {
+      CrawlCheckpointer.writeString(out, url);
+    }
+  }
+
+  @Override
+  public void readFrom(DataInput in) throws IOException {
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      // The URLs were normalized before they were written.
+      urls.add(CrawlCheckpointer.readString(in));
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package com.udacity.webcrawler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link VisitedUrlSet} that only keeps a 64-bit fingerprint of each normalized URL.
+ *
+ * <p>The fingerprints are stored in open addressing tables of primitive {@code long}s, split into
+ * independently locked stripes, so each visited URL costs about 16 bytes instead of a string and a
+ * set node. That makes multi-million page crawls fit comfortably in the heap.
+ *
+ * <p>Two different URLs with the same fingerprint are treated as the same page. With 64-bit
+ * fingerprints, the chance of that happening even once in a crawl of ten million pages is about
+ * one in 400,000.
+ */
+final class FingerprintVisitedUrlSet implements VisitedUrlSet {
+
+  private static final int STRIPES = 64;
+  private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final AtomicInteger size = new AtomicInteger();
+
+  FingerprintVisitedUrlSet() {
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  @Override
+  public boolean add(String url) {
+    long fingerprint = fingerprint(UrlNormalizer.normalize(url));
+    Stripe stripe = stripeFor(fingerprint);
+    boolean added;
+    synchronized (stripe) {
+      added = stripe.add(fingerprint);
+    }
+    if (added) {
+      size.incrementAndGet();
+    }
+    return added;
+  }
+
+  @Override
+  public boolean contains(String url) {
+    long fingerprint = fingerprint(UrlNormalizer.normalize(url));
+    Stripe stripe = stripeFor(fingerprint);
+    synchronized (stripe) {
+      return stripe.contains(fingerprint);
+    }
+  }
+
+  @Override
+  public int size() {
+    return size.get();
+  }
+
+  @Override
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeInt(size.get());
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        for (long fingerprint : stripe.table) {
+          if (fingerprint != 0) {
+            out.writeLong(fingerprint);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void readFrom(DataInput in) throws IOException {
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      long fingerprint = in.readLong();
+      Stripe stripe = stripeFor(fingerprint);
+      boolean added;
+      synchronized (stripe) {
+        added = stripe.add(fingerprint);
+      }
+      if (added) {
+        size.incrementAndGet();
+      }
+    }
+  }
+
+  private Stripe stripeFor(long fingerprint) {
+    // The low bits pick the slot inside a stripe, so use the high bits to pick the stripe.
+    return stripes[(int) (fingerprint >>> 58) & (STRIPES - 1)];
+  }
+
+  /**
+   * Returns a well mixed 64-bit hash of the given string, which is never 0.
+   */
+  static long fingerprint(String s) {
+    // 64-bit FNV-1a over the UTF-16 code units, followed by the MurmurHash3 finalizer to spread
+    // similar URLs, which differ only in their last few characters, over the whole range.
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < s.length(); i++) {
+      h ^= s.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    // 0 marks an empty slot.
+    return h == 0 ? 1 : h;
+  }
+
+  /**
+   * A linear probing hash set of non-zero {@code long}s. Callers must hold its lock.
+   */
+  private static final class Stripe {
+    private long[] table = new long[INITIAL_STRIPE_CAPACITY];
+    private int size;
+
+    private boolean add(long fingerprint) {
+      int mask = table.length - 1;
+      int i = (int) fingerprint & mask;
+      while (table[i] != 0) {
+        if (table[i] == fingerprint) {
+          return false;
+        }
+        i = (i + 1) & mask;
+      }
+      table[i] = fingerprint;
+      // Keep the table at most two thirds full.
+      if (++size * 3 > table.length * 2) {
+        grow();
+      }
+      return true;
+    }
+
+    private boolean contains(long fingerprint) {
+      int mask = table.length - 1;
+      for (int i = (int) fingerprint & mask; table[i] != 0; i = (i + 1) & mask) {
+        if (table[i] == fingerprint) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void grow() {
+      long[] old = table;
+      table = new long[old.length * 2];
+      int mask = table.length - 1;
+      for (long fingerprint : old) {
+        if (fingerprint != 0) {
+          int i = (int) fingerprint & mask;
+          while (table[i] != 0) {
+            i = (i + 1) & mask;
+          }
+          table[i] = fingerprint;
+        }
+      }
+    }
+  }
+}
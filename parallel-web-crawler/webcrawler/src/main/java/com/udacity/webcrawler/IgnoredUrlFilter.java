@@ -0,0 +1,223 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PatternSyntax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * The {@link IgnoredUrls} patterns, compiled once so that checking a link does not cost one regex
+ * match per pattern.
+ *
+ * <p>Most URL exclusion rules are a host or path prefix, like {@code "https://blog.udacity.com/.*"},
+ * or a single exact URL. Those rules are stored in a prefix trie, so a link is checked against all
+ * of them in one walk over its characters. Every other pattern without flags, back-references or
+ * named groups is combined into a single alternation, so each link goes through one regex match
+ * at most.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class IgnoredUrlFilter {
+
+  /**
+   * Stands for an unescaped {@code "."} in a trie rule.
+   */
+  private static final int ANY = -1;
+
+  private final Node trie;
+  private final List<Pattern> patterns;
+
+  private IgnoredUrlFilter(Node trie, List<Pattern> patterns) {
+    this.trie = trie;
+    this.patterns = patterns;
+  }
+
+  /**
+   * Compiles the given ignored URL patterns. A URL is ignored if it fully matches any of them.
+   */
+  static IgnoredUrlFilter compile(List<Pattern> ignoredUrls) {
+    NodeBuilder trie = new NodeBuilder();
+    boolean hasTrieRules = false;
+    List<String> combinable = new ArrayList<>();
+    List<Pattern> patterns = new ArrayList<>();
+    for (Pattern pattern : ignoredUrls) {
+      if (pattern.flags() == 0 && addToTrie(trie, pattern)) {
+        hasTrieRules = true;
+      } else if (isCombinable(pattern)) {
+        combinable.add("(?:" + pattern.pattern() + ")");
+      } else {
+        // Flags and group numbers would change meaning inside the combined pattern, and group names
+        // could clash.
+        patterns.add(pattern);
+      }
+    }
+    if (!combinable.isEmpty()) {
+      patterns.add(0, Pattern.compile(String.join("|", combinable)));
+    }
+    return new IgnoredUrlFilter(hasTrieRules ? trie.build() : null, List.copyOf(patterns));
+  }
+
+  private static boolean isCombinable(Pattern pattern) {
+    return pattern.flags() == 0
+        && !PatternSyntax.hasBackReference(pattern.pattern())
+        && !PatternSyntax.hasNamedGroup(pattern.pattern());
+  }
+
+  /**
+   * Returns whether the given URL matches one of the ignored URL patterns.
+   */
+  boolean isIgnored(String url) {
+    if (trie != null && trie.matches(url, 0)) {
+      return true;
+    }
+    for (Pattern pattern : patterns) {
+      if (pattern.matcher(url).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds the given pattern to the trie if it is made only of literal characters and {@code "."}
+   * wildcards, optionally followed by a trailing {@code ".*"}. Returns {@code false}, leaving the
+   * trie unchanged, if the pattern has any other form.
+   */
+  private static boolean addToTrie(NodeBuilder trie, Pattern pattern) {
+    String regex = pattern.pattern();
+    int start = 0;
+    int end = regex.length();
+    // Anchors are redundant, since ignored URLs must match the whole URL anyway.
+    if (start < end && regex.charAt(start) == '^') {
+      start++;
+    }
+    if (end > start && regex.charAt(end - 1) == '$' && !PatternSyntax.isEscaped(regex, end - 1)) {
+      end--;
+    }
+    boolean prefix = false;
+    if (end - start >= 2
+        && regex.charAt(end - 2) == '.'
+        && regex.charAt(end - 1) == '*'
+        && !PatternSyntax.isEscaped(regex, end - 2)) {
+      prefix = true;
+      end -= 2;
+    }
+
+    int[] rule = new int[end - start];
+    int length = 0;
+    for (int i = start; i < end; i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        // Only escaped punctuation, like "\.", stands for itself. "\d", "\Q" and friends do not.
+        if (i + 1 >= end || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          return false;
+        }
+        rule[length++] = regex.charAt(++i);
+      } else if (c == '.') {
+        rule[length++] = ANY;
+      } else if (PatternSyntax.isMetacharacter(c)) {
+        return false;
+      } else {
+        rule[length++] = c;
+      }
+    }
+
+    NodeBuilder node = trie;
+    for (int i = 0; i < length; i++) {
+      node = node.children.computeIfAbsent(rule[i], k -> new NodeBuilder());
+    }
+    if (prefix) {
+      node.prefixEnd = true;
+    } else {
+      node.exactEnd = true;
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether the character is one that {@code "."} does not match without
+   * {@link Pattern#DOTALL}.
+   */
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean hasLineTerminator(String url, int start) {
+    for (int i = start; i < url.length(); i++) {
+      if (isLineTerminator(url.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A node of the frozen trie. Child labels are sorted, so children are found by binary search.
+   */
+  private static final class Node {
+    private final char[] labels;
+    private final Node[] children;
+    private final Node any;
+    private final boolean prefixEnd;
+    private final boolean exactEnd;
+
+    private Node(char[] labels, Node[] children, Node any, boolean prefixEnd, boolean exactEnd) {
+      this.labels = labels;
+      this.children = children;
+      this.any = any;
+      this.prefixEnd = prefixEnd;
+      this.exactEnd = exactEnd;
+    }
+
+    /**
+     * Returns whether {@code url.substring(index)} matches a rule below this node.
+     */
+    private boolean matches(String url, int index) {
+      Node node = this;
+      for (int i = index; ; i++) {
+        if (node.prefixEnd && !hasLineTerminator(url, i)) {
+          return true;
+        }
+        if (i == url.length()) {
+          return node.exactEnd;
+        }
+        char c = url.charAt(i);
+        // Wildcard edges are rare, so only they cost a recursive call.
+        if (node.any != null && !isLineTerminator(c) && node.any.matches(url, i + 1)) {
+          return true;
+        }
+        int child = Arrays.binarySearch(node.labels, c);
+        if (child < 0) {
+          return false;
+        }
+        node = node.children[child];
+      }
+    }
+  }
+
+  private static final class NodeBuilder {
+    private final Map<Integer, NodeBuilder> children = new TreeMap<>();
+    private boolean prefixEnd;
+    private boolean exactEnd;
+
+    private Node build() {
+      NodeBuilder any = children.get(ANY);
+      int size = children.size() - (any == null ? 0 : 1);
+      char[] labels = new char[size];
+      Node[] nodes = new Node[size];
+      int i = 0;
+      for (Map.Entry<Integer, NodeBuilder> e : children.entrySet()) {
+        if (e.getKey() != ANY) {
+          labels[i] = (char) e.getKey().intValue();
+          nodes[i] = e.getValue().build();
+          i++;
+        }
+      }
+      return new Node(labels, nodes, any == null ? null : any.build(), prefixEnd, exactEnd);
+    }
+  }
+}
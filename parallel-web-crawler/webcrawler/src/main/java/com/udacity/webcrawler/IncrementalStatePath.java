@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the file the state of an incremental crawl is kept in between runs. The
+ * bound value is empty if crawls are not incremental.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "incrementalStatePath"} option
+ * from the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface IncrementalStatePath {
+}
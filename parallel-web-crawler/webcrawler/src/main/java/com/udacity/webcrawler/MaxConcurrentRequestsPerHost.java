@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the maximum number of pages from the same host that may be downloaded
+ * at once.
+ *
+ * <p>The value bound to this annotation is the value of the
+ * {@code "maxConcurrentRequestsPerHost"} option from the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxConcurrentRequestsPerHost {
+}
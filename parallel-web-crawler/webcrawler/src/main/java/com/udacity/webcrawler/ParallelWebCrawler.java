@@ -2,19 +2,23 @@ package com.udacity.webcrawler;
 
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchBudget;
 import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageStats;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
-import java.util.regex.Pattern;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 
 /**
@@ -22,13 +26,32 @@ import java.util.stream.Collectors;
  * {@link ForkJoinPool} to fetch and process multiple web pages in parallel.
  */
 final class ParallelWebCrawler implements WebCrawler {
+
+  /**
+   * Maximum number of URLs that may be queued in the {@link CrawlFrontier} or handed out from it
+   * but not crawled yet. Tasks that find more links wait until there is room for them.
+   */
+  static final int FRONTIER_CAPACITY = 10_000;
+
   private final Clock clock;
   private final Duration timeout;
   private final int popularWordCount;
   private final ForkJoinPool pool;
   private final PageParserFactory parserFactory;
+  private final FetchBudget fetchBudget;
+  private final PageStats pageStats;
   private final int maxDepth;
-  private final List<Pattern> ignoredUrls;
+  private final IgnoredUrlFilter ignoredUrls;
+  private final Provider<VisitedUrlSet> visitedUrlSetProvider;
+  private final String checkpointPath;
+  private final Duration checkpointInterval;
+  private final boolean resumeFromCheckpoint;
+  private final int maxConcurrentRequestsPerHost;
+  private final Duration minDelayPerHost;
+  private final String incrementalStatePath;
+  private final boolean breadthFirst;
+  private final boolean prioritized;
+  private final Provider<UrlScorer> scorerProvider;
 
   @Inject
   ParallelWebCrawler(
@@ -37,57 +60,163 @@ final class ParallelWebCrawler implements WebCrawler {
       @PopularWordCount int popularWordCount,
       @TargetParallelism int threadCount,
       PageParserFactory parserFactory,
+      FetchBudget fetchBudget,
+      PageStats pageStats,
       @MaxDepth int maxDepth,
-      @IgnoredUrls List<Pattern> ignoredUrls) {
+      IgnoredUrlFilter ignoredUrls,
+      Provider<VisitedUrlSet> visitedUrlSetProvider,
+      @CheckpointPath String checkpointPath,
+      @CheckpointInterval Duration checkpointInterval,
+      @ResumeFromCheckpoint boolean resumeFromCheckpoint,
+      @MaxConcurrentRequestsPerHost int maxConcurrentRequestsPerHost,
+      @MinDelayPerHost Duration minDelayPerHost,
+      @IncrementalStatePath String incrementalStatePath,
+      @CrawlOrder String crawlOrder,
+      Provider<UrlScorer> scorerProvider) {
     this.clock = clock;
     this.timeout = timeout;
     this.popularWordCount = popularWordCount;
     this.pool = new ForkJoinPool(Math.min(threadCount, getMaxParallelism()));
     this.parserFactory = parserFactory;
+    this.fetchBudget = fetchBudget;
+    this.pageStats = pageStats;
     this.maxDepth = maxDepth;
     this.ignoredUrls = ignoredUrls;
+    this.visitedUrlSetProvider = visitedUrlSetProvider;
+    this.checkpointPath = checkpointPath;
+    this.checkpointInterval = checkpointInterval;
+    this.resumeFromCheckpoint = resumeFromCheckpoint;
+    this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+    this.minDelayPerHost = minDelayPerHost;
+    this.incrementalStatePath = incrementalStatePath;
+    this.breadthFirst = crawlOrder.equals("breadth-first");
+    this.prioritized = crawlOrder.equals("priority");
+    this.scorerProvider = scorerProvider;
   }
 
   @Override
   public CrawlResult crawl(List<String> startingUrls) {
-    // submit each starting url in fork-join pool by creating a new CustomTask class instance
-    // each task assigned in a custom task instance can create its own subtask
-    // Creation of new CustomTask class instance using Builder pattern
+    // All starting urls are seeded into one shared frontier, which the fork-join workers drain
+    // together. This way a slow starting page does not hold up the rest of the crawl.
     Instant deadline = clock.instant().plus(timeout);
-    ConcurrentHashMap<String, Integer> counts = new ConcurrentHashMap<>();
-    ConcurrentSkipListSet<String> visitedUrls = new ConcurrentSkipListSet<>();
-
-
-    for(String url: startingUrls){
-      if(!clock.instant().isAfter(deadline)){
-        CrawlTask crawlTask = new CrawlTask.Builder()
-                .setCounts(counts)
-                .setClock(clock)
-                .setDeadline(deadline)
-                .setIgnoredUrls(ignoredUrls)
-                .setMaxDepth(maxDepth)
-                .setUrl(url)
-                .setParserFactory(parserFactory)
-                .setVisitedUrls(visitedUrls)
-                .build();
-         pool.invoke(crawlTask);
+    WordCountAccumulator accumulator = new WordCountAccumulator(pool.getParallelism());
+    VisitedUrlSet visitedUrls = visitedUrlSetProvider.get();
+    CrawlStatistics statistics = CrawlStatistics.start(fetchBudget, pageStats);
+    CrawlFrontier frontier =
+        new CrawlFrontier(
+            FRONTIER_CAPACITY, maxConcurrentRequestsPerHost, minDelayPerHost, prioritized);
+    CrawlCheckpointer checkpointer = checkpointPath.isEmpty()
+        ? CrawlCheckpointer.disabled()
+        : new CrawlCheckpointer(
+            Path.of(checkpointPath), checkpointInterval, visitedUrls, accumulator);
+
+    // A resumed crawl continues from the pages that were still queued, instead of starting over.
+    List<CrawlFrontier.Entry> resumedEntries = List.of();
+    if (resumeFromCheckpoint && checkpointer.hasCheckpoint()) {
+      resumedEntries = checkpointer.restore();
+      startingUrls = List.of();
+    }
+
+    // An incremental crawl starts from the totals of the previous run, and only adds what changed.
+    CrawlHistory history = null;
+    if (!incrementalStatePath.isEmpty()) {
+      history = CrawlHistory.load(Path.of(incrementalStatePath));
+      accumulator.add(history.getPreviousTotals());
+    }
+
+    // Pages held back by the per-host delay are picked up again by a timer, since no worker would
+    // otherwise come back to the frontier for them.
+    ScheduledExecutorService timer = minDelayPerHost.isZero()
+        ? null
+        : Executors.newSingleThreadScheduledExecutor(r -> {
+          Thread thread = new Thread(r, "crawl-politeness-timer");
+          thread.setDaemon(true);
+          return thread;
+        });
+
+    CrawlTask.Builder crawlTask = new CrawlTask.Builder()
+            .setCounts(accumulator)
+            .setClock(clock)
+            .setDeadline(deadline)
+            .setIgnoredUrls(ignoredUrls)
+            .setMaxDepth(maxDepth)
+            .setFrontier(frontier)
+            .setParserFactory(parserFactory)
+            .setVisitedUrls(visitedUrls)
+            .setStatistics(statistics)
+            .setCheckpointer(checkpointer)
+            .setTimer(timer)
+            .setHistory(history)
+            .setScorer(prioritized ? scorerProvider.get() : null);
+    checkpointer.start();
+    try {
+      if (breadthFirst) {
+        List<CrawlFrontier.Entry> startingEntries = new ArrayList<>(resumedEntries);
+        for (String url : startingUrls) {
+          startingEntries.add(new CrawlFrontier.Entry(url, maxDepth));
+        }
+        crawlByLevel(crawlTask, startingEntries, deadline);
+      } else {
+        pool.invoke(
+            crawlTask.setStartingUrls(startingUrls).setResumedEntries(resumedEntries).build());
       }
+    } finally {
+      checkpointer.finish();
+      if (timer != null) {
+        timer.shutdownNow();
+      }
+    }
+    if (history != null) {
+      history.finish(accumulator);
+    }
+    Map<String, Integer> counts = accumulator.merge();
+    if (history != null) {
+      history.save(counts);
     }
 
     if(counts.isEmpty()){
-      return new CrawlResult.Builder()
+      return statistics.newResult(visitedUrls)
               .setWordCounts(counts)
-              .setUrlsVisited(visitedUrls.size())
               .build();
     }
 
-    return new CrawlResult.Builder()
+    return statistics.newResult(visitedUrls)
             .setWordCounts(WordCounts.sort(counts, popularWordCount))
-            .setUrlsVisited(visitedUrls.size())
             .build();
 
   }
 
+  /**
+   * Crawls one level of pages at a time, starting from the given entries, so that every page is
+   * crawled before any page that is more links away from the starting pages.
+   *
+   * <p>The pages of each level are crawled in parallel, and the links found on them make up the
+   * next level. Once the deadline passes, the remaining levels are left alone, and stay in the
+   * checkpoint like any other page that was queued but not crawled.
+   */
+  private void crawlByLevel(
+      CrawlTask.Builder crawlTask, List<CrawlFrontier.Entry> startingEntries, Instant deadline) {
+    // Entries are grouped by how many more links may be followed from them, so the entries that
+    // allow the most links are the closest to the starting pages. Only a resumed crawl can start
+    // out with more than one level.
+    NavigableMap<Integer, List<CrawlFrontier.Entry>> levels =
+        new TreeMap<>(Comparator.reverseOrder());
+    for (CrawlFrontier.Entry entry : startingEntries) {
+      levels.computeIfAbsent(entry.getDepth(), depth -> new ArrayList<>()).add(entry);
+    }
+    while (!levels.isEmpty() && !clock.instant().isAfter(deadline)) {
+      Queue<CrawlFrontier.Entry> nextLevel = new ConcurrentLinkedQueue<>();
+      pool.invoke(
+          crawlTask
+              .setResumedEntries(levels.pollFirstEntry().getValue())
+              .setNextLevel(nextLevel)
+              .build());
+      for (CrawlFrontier.Entry entry : nextLevel) {
+        levels.computeIfAbsent(entry.getDepth(), depth -> new ArrayList<>()).add(entry);
+      }
+    }
+  }
+
   @Override
   public int getMaxParallelism() {
     return Runtime.getRuntime().availableProcessors();
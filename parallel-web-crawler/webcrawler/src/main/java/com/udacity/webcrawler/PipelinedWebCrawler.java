@@ -0,0 +1,257 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.FetchBudget;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageStats;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link WebCrawler} that downloads and parses pages in two separate stages, so that blocking
+ * network reads and CPU-bound parsing do not compete for the same threads.
+ *
+ * <ol>
+ *   <li>The calling thread takes URLs from the frontier and starts an asynchronous download for each
+ *   of them with {@link PageParser#fetch()}. Downloads do not hold a thread while they wait for the
+ *   network.</li>
+ *   <li>Downloaded pages are handed off through a bounded queue to a pool of parser threads, sized to
+ *   the number of CPU cores. The parser threads count the words of each page with
+ *   {@link PageParser#parse(PageParser.Content)} and queue its links in the frontier.</li>
+ * </ol>
+ *
+ * <p>At most {@link MaxConcurrentFetches} pages may be downloading or waiting to be parsed at once.
+ * When the parsers fall behind, the hand-off queue fills up and no new downloads are started until
+ * they catch up, so downloaded pages never pile up in memory. Both stages are {@link
+ * com.udacity.webcrawler.profiler.Profiled}, so the profiler reports the time spent in each.
+ *
+ * <p>This implementation is never picked based on the configured parallelism; it has to be
+ * selected explicitly with the {@code "implementationOverride"} option.
+ */
+final class PipelinedWebCrawler implements WebCrawler {
+
+  private final Clock clock;
+  private final Duration timeout;
+  private final int popularWordCount;
+  private final int parserThreads;
+  private final PageParserFactory parserFactory;
+  private final FetchBudget fetchBudget;
+  private final PageStats pageStats;
+  private final int maxDepth;
+  private final IgnoredUrlFilter ignoredUrls;
+  private final int maxConcurrentFetches;
+  private final Provider<VisitedUrlSet> visitedUrlSetProvider;
+
+  @Inject
+  PipelinedWebCrawler(
+      Clock clock,
+      @Timeout Duration timeout,
+      @PopularWordCount int popularWordCount,
+      @TargetParallelism int threadCount,
+      PageParserFactory parserFactory,
+      FetchBudget fetchBudget,
+      PageStats pageStats,
+      @MaxDepth int maxDepth,
+      IgnoredUrlFilter ignoredUrls,
+      @MaxConcurrentFetches int maxConcurrentFetches,
+      Provider<VisitedUrlSet> visitedUrlSetProvider) {
+    this.clock = clock;
+    this.timeout = timeout;
+    this.popularWordCount = popularWordCount;
+    this.parserThreads = Math.max(1, Math.min(threadCount, getMaxParallelism()));
+    this.parserFactory = parserFactory;
+    this.fetchBudget = fetchBudget;
+    this.pageStats = pageStats;
+    this.maxDepth = maxDepth;
+    this.ignoredUrls = ignoredUrls;
+    this.maxConcurrentFetches = maxConcurrentFetches;
+    this.visitedUrlSetProvider = visitedUrlSetProvider;
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls) {
+    Instant deadline = clock.instant().plus(timeout);
+    AtomicInteger threadNumber = new AtomicInteger();
+    ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, r -> {
+      Thread thread = new Thread(r, "crawl-parser-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    Crawl crawl = new Crawl(deadline);
+    try {
+      crawl.run(startingUrls, parsers);
+    } finally {
+      parsers.shutdownNow();
+    }
+
+    Map<String, Integer> counts = crawl.counts.merge();
+    if (counts.isEmpty()) {
+      return crawl.statistics.newResult(crawl.visitedUrls)
+          .setWordCounts(counts)
+          .build();
+    }
+
+    return crawl.statistics.newResult(crawl.visitedUrls)
+        .setWordCounts(WordCounts.sort(counts, popularWordCount))
+        .build();
+  }
+
+  @Override
+  public int getMaxParallelism() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * A downloaded page waiting in the hand-off queue to be parsed.
+   */
+  private static final class FetchedPage {
+    private final PageParser parser;
+    private final PageParser.Content content;
+    private final int depth;
+
+    private FetchedPage(PageParser parser, PageParser.Content content, int depth) {
+      this.parser = parser;
+      this.content = content;
+      this.depth = depth;
+    }
+  }
+
+  /**
+   * The state of a single call to {@link #crawl(List)}.
+   */
+  private final class Crawl {
+
+    /**
+     * Wakes up the calling thread once every queued URL has been processed.
+     */
+    private final CrawlFrontier.Entry done = new CrawlFrontier.Entry("", 0);
+
+    private final Instant deadline;
+    private final BlockingQueue<CrawlFrontier.Entry> frontier = new LinkedBlockingQueue<>();
+    private final BlockingQueue<FetchedPage> fetched =
+        new ArrayBlockingQueue<>(maxConcurrentFetches);
+    // Taken before a download starts and given back once the parsers take the page off the queue,
+    // so the hand-off queue always has room for every download that is in flight.
+    private final Semaphore pagePermits = new Semaphore(maxConcurrentFetches);
+    private final WordCountAccumulator counts = new WordCountAccumulator(parserThreads);
+    private final VisitedUrlSet visitedUrls = visitedUrlSetProvider.get();
+    private final CrawlStatistics statistics = CrawlStatistics.start(fetchBudget, pageStats);
+
+    // The number of URLs that have been queued but not fully processed yet.
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private Crawl(Instant deadline) {
+      this.deadline = deadline;
+    }
+
+    /**
+     * Crawls from the given starting URLs and waits until every reachable page has been processed.
+     */
+    private void run(List<String> startingUrls, ExecutorService parsers) {
+      for (int i = 0; i < parserThreads; i++) {
+        parsers.execute(this::parsePages);
+      }
+      for (String url : startingUrls) {
+        enqueue(new CrawlFrontier.Entry(url, maxDepth));
+      }
+      try {
+        while (pending.get() > 0) {
+          CrawlFrontier.Entry entry = frontier.take();
+          if (entry == done) {
+            break;
+          }
+          fetch(entry);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for the crawl to finish", e);
+      }
+      RuntimeException e = failure.get();
+      if (e != null) {
+        throw e;
+      }
+    }
+
+    private void enqueue(CrawlFrontier.Entry entry) {
+      pending.incrementAndGet();
+      frontier.add(entry);
+    }
+
+    private void finish() {
+      if (pending.decrementAndGet() == 0) {
+        frontier.add(done);
+      }
+    }
+
+    /**
+     * Starts downloading the given entry's page, after waiting for room in the hand-off queue.
+     */
+    private void fetch(CrawlFrontier.Entry entry) throws InterruptedException {
+      String url = entry.getUrl();
+      if (entry.getDepth() == 0
+          || clock.instant().isAfter(deadline)
+          || ignoredUrls.isIgnored(url)
+          || !visitedUrls.add(url)) {
+        finish();
+        return;
+      }
+      statistics.visited(url);
+
+      pagePermits.acquire();
+      PageParser parser = parserFactory.get(url, deadline, statistics.getFetchBudget());
+      parser.fetch().whenComplete((content, error) -> {
+        if (error != null) {
+          // fetch() reports failed downloads as empty content, so this is a bug in the parser.
+          failure.compareAndSet(null, new IllegalStateException("Could not fetch " + url, error));
+          pagePermits.release();
+          finish();
+          return;
+        }
+        fetched.add(new FetchedPage(parser, content, entry.getDepth()));
+      });
+    }
+
+    /**
+     * Parses downloaded pages until the crawl is over. Runs on each of the parser threads.
+     */
+    private void parsePages() {
+      try {
+        while (true) {
+          FetchedPage page = fetched.take();
+          pagePermits.release();
+          try {
+            PageParser.Result result = page.parser.parse(page.content);
+            counts.add(result.getWordCounts());
+            if (page.depth > 1) {
+              for (String link : result.getLinks()) {
+                enqueue(new CrawlFrontier.Entry(link, page.depth - 1));
+              }
+            }
+          } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+          } finally {
+            finish();
+          }
+        }
+      } catch (InterruptedException e) {
+        // The crawl is over.
+      }
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for whether a crawl should resume from its saved checkpoint, if there is
+ * one.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "resumeFromCheckpoint"} option
+ * from the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ResumeFromCheckpoint {
+}
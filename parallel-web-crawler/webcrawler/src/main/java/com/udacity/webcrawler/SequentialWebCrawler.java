@@ -1,19 +1,19 @@
 package com.udacity.webcrawler;
 
 import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.FetchBudget;
 import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageStats;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.regex.Pattern;
 
 /**
  * A {@link WebCrawler} that downloads and processes one page at a time.
@@ -22,46 +22,54 @@ final class SequentialWebCrawler implements WebCrawler {
 
   private final Clock clock;
   private final PageParserFactory parserFactory;
+  private final FetchBudget fetchBudget;
+  private final PageStats pageStats;
   private final Duration timeout;
   private final int popularWordCount;
   private final int maxDepth;
-  private final List<Pattern> ignoredUrls;
+  private final IgnoredUrlFilter ignoredUrls;
+  private final Provider<VisitedUrlSet> visitedUrlSetProvider;
 
   @Inject
   SequentialWebCrawler(
       Clock clock,
       PageParserFactory parserFactory,
+      FetchBudget fetchBudget,
+      PageStats pageStats,
       @Timeout Duration timeout,
       @PopularWordCount int popularWordCount,
       @MaxDepth int maxDepth,
-      @IgnoredUrls List<Pattern> ignoredUrls) {
+      IgnoredUrlFilter ignoredUrls,
+      Provider<VisitedUrlSet> visitedUrlSetProvider) {
     this.clock = clock;
     this.parserFactory = parserFactory;
+    this.fetchBudget = fetchBudget;
+    this.pageStats = pageStats;
     this.timeout = timeout;
     this.popularWordCount = popularWordCount;
     this.maxDepth = maxDepth;
     this.ignoredUrls = ignoredUrls;
+    this.visitedUrlSetProvider = visitedUrlSetProvider;
   }
 
   @Override
   public CrawlResult crawl(List<String> startingUrls) {
     Instant deadline = clock.instant().plus(timeout);
     Map<String, Integer> counts = new HashMap<>();
-    Set<String> visitedUrls = new HashSet<>();
+    VisitedUrlSet visitedUrls = visitedUrlSetProvider.get();
+    CrawlStatistics statistics = CrawlStatistics.start(fetchBudget, pageStats);
     for (String url : startingUrls) {
-      crawlInternal(url, deadline, maxDepth, counts, visitedUrls);
+      crawlInternal(url, deadline, maxDepth, counts, visitedUrls, statistics);
     }
 
     if (counts.isEmpty()) {
-      return new CrawlResult.Builder()
+      return statistics.newResult(visitedUrls)
           .setWordCounts(counts)
-          .setUrlsVisited(visitedUrls.size())
           .build();
     }
 
-    return new CrawlResult.Builder()
+    return statistics.newResult(visitedUrls)
         .setWordCounts(WordCounts.sort(counts, popularWordCount))
-        .setUrlsVisited(visitedUrls.size())
         .build();
   }
 
@@ -70,20 +78,20 @@ final class SequentialWebCrawler implements WebCrawler {
       Instant deadline,
       int maxDepth,
       Map<String, Integer> counts,
-      Set<String> visitedUrls) {
+      VisitedUrlSet visitedUrls,
+      CrawlStatistics statistics) {
     if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
       return;
     }
-    for (Pattern pattern : ignoredUrls) {
-      if (pattern.matcher(url).matches()) {
-        return;
-      }
+    if (ignoredUrls.isIgnored(url)) {
+      return;
     }
-    if (visitedUrls.contains(url)) {
+    if (!visitedUrls.add(url)) {
       return;
     }
-    visitedUrls.add(url);
-    PageParser.Result result = parserFactory.get(url).parse();
+    statistics.visited(url);
+    PageParser.Result result =
+        parserFactory.get(url, deadline, statistics.getFetchBudget()).parse();
     for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
       if (counts.containsKey(e.getKey())) {
         counts.put(e.getKey(), e.getValue() + counts.get(e.getKey()));
@@ -92,7 +100,7 @@ final class SequentialWebCrawler implements WebCrawler {
       }
     }
     for (String link : result.getLinks()) {
-      crawlInternal(link, deadline, maxDepth - 1, counts, visitedUrls);
+      crawlInternal(link, deadline, maxDepth - 1, counts, visitedUrls, statistics);
     }
   }
 }
@@ -0,0 +1,90 @@
+package com.udacity.webcrawler;
+
+import java.util.Locale;
+
+/**
+ * Rewrites URLs into a canonical form, so that equivalent links to the same page are recognized as
+ * already visited.
+ */
+final class UrlNormalizer {
+
+  private UrlNormalizer() {
+  }
+
+  /**
+   * Returns the normalized form of the given URL.
+   *
+   * <p>The scheme and host are lower-cased, the fragment is removed, and the port is removed if it
+   * is the default port of the scheme (80 for {@code http}, 443 for {@code https}). Everything
+   * else, including the case of the path and query, is kept as-is, since servers are allowed to
+   * treat those as case-sensitive. Strings that do not start with a scheme only lose their
+   * fragment.
+   */
+  static String normalize(String url) {
+    int end = url.indexOf('#');
+    if (end < 0) {
+      end = url.length();
+    }
+    int schemeEnd = schemeEnd(url, end);
+    if (schemeEnd < 0) {
+      return url.substring(0, end);
+    }
+    String scheme = url.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+    int authorityStart = schemeEnd + 1;
+    if (!url.startsWith("//", authorityStart)) {
+      // No authority, as in "mailto:someone@example.com".
+      return scheme + url.substring(schemeEnd, end);
+    }
+    authorityStart += 2;
+    int authorityEnd = authorityStart;
+    while (authorityEnd < end && "/?".indexOf(url.charAt(authorityEnd)) < 0) {
+      authorityEnd++;
+    }
+
+    // The user info, if any, is case-sensitive.
+    int hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+    if (hostStart <= authorityStart) {
+      hostStart = authorityStart;
+    }
+    int hostEnd = authorityEnd;
+    int portStart = url.lastIndexOf(':', authorityEnd - 1);
+    // A colon inside brackets belongs to an IPv6 address, not to the port.
+    int bracket = url.indexOf(']', portStart);
+    if (portStart >= hostStart && (bracket < 0 || bracket >= authorityEnd)) {
+      hostEnd = portStart;
+    }
+    String port = url.substring(Math.min(hostEnd + 1, authorityEnd), authorityEnd);
+    boolean dropPort = port.isEmpty()
+        || (scheme.equals("http") && port.equals("80"))
+        || (scheme.equals("https") && port.equals("443"));
+
+    StringBuilder normalized = new StringBuilder(end)
+        .append(scheme)
+        .append("://")
+        .append(url, authorityStart, hostStart)
+        .append(url.substring(hostStart, hostEnd).toLowerCase(Locale.ROOT));
+    if (!dropPort) {
+      normalized.append(':').append(port);
+    }
+    return normalized.append(url, authorityEnd, end).toString();
+  }
+
+  /**
+   * Returns the index of the colon ending the scheme of the given URL, or -1 if it does not start
+   * with a valid scheme.
+   */
+  private static int schemeEnd(String url, int end) {
+    for (int i = 0; i < end; i++) {
+      char c = url.charAt(i);
+      if (c == ':') {
+        return i > 0 ? i : -1;
+      }
+      boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+          || (i > 0 && ((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'));
+      if (!valid) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+}
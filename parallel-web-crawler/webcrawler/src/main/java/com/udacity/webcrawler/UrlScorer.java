@@ -0,0 +1,30 @@
+package com.udacity.webcrawler;
+
+/**
+ * Decides which queued pages a prioritized crawl fetches first.
+ *
+ * <p>A new scorer is used for every crawl, so implementations may keep track of what they have
+ * seen during the crawl, such as how often a page was linked to. Implementations must be
+ * thread-safe, since every crawl worker scores the links it finds.
+ */
+public interface UrlScorer {
+
+  /**
+   * Returns the priority of a link found during the crawl. Pages with a higher priority are
+   * fetched first.
+   *
+   * <p>This is called every time the link is found, including on different pages, and for every
+   * starting page.
+   *
+   * @param url   the absolute URL of the link.
+   * @param depth the number of links that may still be followed from the page, including the link
+   *              itself.
+   */
+  double score(String url, int depth);
+
+  /**
+   * Records that the page at the given URL is about to be crawled. Does nothing by default.
+   */
+  default void crawled(String url) {
+  }
+}
@@ -0,0 +1,212 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.FetchBudget;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageStats;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link WebCrawler} that downloads and processes every page on its own virtual thread.
+ *
+ * <p>Page downloads spend almost all of their time blocked on network I/O, so instead of sizing a
+ * thread pool to the number of CPU cores, this crawler starts one cheap thread per page and only
+ * limits how many downloads are in flight at once (see {@link MaxConcurrentFetches}). Parsing a
+ * downloaded page does not count against that limit.
+ *
+ * <p>This implementation is never picked based on the configured parallelism; it has to be
+ * selected explicitly with the {@code "implementationOverride"} option.
+ */
+final class VirtualThreadWebCrawler implements WebCrawler {
+
+  private final Clock clock;
+  private final Duration timeout;
+  private final int popularWordCount;
+  private final PageParserFactory parserFactory;
+  private final FetchBudget fetchBudget;
+  private final PageStats pageStats;
+  private final int maxDepth;
+  private final IgnoredUrlFilter ignoredUrls;
+  private final int maxConcurrentFetches;
+  private final Provider<VisitedUrlSet> visitedUrlSetProvider;
+
+  @Inject
+  VirtualThreadWebCrawler(
+      Clock clock,
+      @Timeout Duration timeout,
+      @PopularWordCount int popularWordCount,
+      PageParserFactory parserFactory,
+      FetchBudget fetchBudget,
+      PageStats pageStats,
+      @MaxDepth int maxDepth,
+      IgnoredUrlFilter ignoredUrls,
+      @MaxConcurrentFetches int maxConcurrentFetches,
+      Provider<VisitedUrlSet> visitedUrlSetProvider) {
+    this.clock = clock;
+    this.timeout = timeout;
+    this.popularWordCount = popularWordCount;
+    this.parserFactory = parserFactory;
+    this.fetchBudget = fetchBudget;
+    this.pageStats = pageStats;
+    this.maxDepth = maxDepth;
+    this.ignoredUrls = ignoredUrls;
+    this.maxConcurrentFetches = maxConcurrentFetches;
+    this.visitedUrlSetProvider = visitedUrlSetProvider;
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls) {
+    Instant deadline = clock.instant().plus(timeout);
+    ExecutorService executor = newThreadPerTaskExecutor(maxConcurrentFetches);
+    Crawl crawl = new Crawl(executor, deadline);
+    try {
+      crawl.run(startingUrls);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Map<String, Integer> counts = crawl.counts.merge();
+    if (counts.isEmpty()) {
+      return crawl.statistics.newResult(crawl.visitedUrls)
+          .setWordCounts(counts)
+          .build();
+    }
+
+    return crawl.statistics.newResult(crawl.visitedUrls)
+        .setWordCounts(WordCounts.sort(counts, popularWordCount))
+        .build();
+  }
+
+  /**
+   * Returns an executor that starts a new virtual thread for each task.
+   *
+   * <p>Virtual threads only exist on Java 21 and later, so the factory method is looked up at
+   * runtime. On older runtimes this falls back to a fixed pool with one platform thread per
+   * allowed concurrent download, plus one per core for the threads that are parsing a page.
+   */
+  private static ExecutorService newThreadPerTaskExecutor(int maxConcurrentFetches) {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newFixedThreadPool(
+          maxConcurrentFetches + Runtime.getRuntime().availableProcessors());
+    }
+  }
+
+  /**
+   * The state of a single call to {@link #crawl(List)}.
+   */
+  private final class Crawl {
+    private final ExecutorService executor;
+    private final Instant deadline;
+    private final Semaphore fetchPermits = new Semaphore(maxConcurrentFetches);
+    private final WordCountAccumulator counts =
+        new WordCountAccumulator(Runtime.getRuntime().availableProcessors());
+    private final VisitedUrlSet visitedUrls = visitedUrlSetProvider.get();
+    private final CrawlStatistics statistics = CrawlStatistics.start(fetchBudget, pageStats);
+
+    // Starts at 1 so the crawl cannot finish while the starting URLs are still being submitted.
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private Crawl(ExecutorService executor, Instant deadline) {
+      this.executor = executor;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Crawls from the given starting URLs and waits until every reachable page has been processed.
+     */
+    private void run(List<String> startingUrls) {
+      for (String url : startingUrls) {
+        submit(url, maxDepth);
+      }
+      finishTask();
+      try {
+        done.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for the crawl to finish", e);
+      }
+      RuntimeException e = failure.get();
+      if (e != null) {
+        throw e;
+      }
+    }
+
+    private void submit(String url, int depth) {
+      pending.incrementAndGet();
+      executor.execute(() -> {
+        try {
+          crawlPage(url, depth);
+        } catch (RuntimeException e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          finishTask();
+        }
+      });
+    }
+
+    private void finishTask() {
+      if (pending.decrementAndGet() == 0) {
+        done.countDown();
+      }
+    }
+
+    private void crawlPage(String url, int depth) {
+      if (depth == 0 || clock.instant().isAfter(deadline)) {
+        return;
+      }
+      if (ignoredUrls.isIgnored(url)) {
+        return;
+      }
+      if (!visitedUrls.add(url)) {
+        return;
+      }
+      statistics.visited(url);
+
+      // Only the download counts against the limit, so other threads can download their pages
+      // while this one parses.
+      PageParser parser = parserFactory.get(url, deadline, statistics.getFetchBudget());
+      PageParser.Content content;
+      fetchPermits.acquireUninterruptibly();
+      try {
+        content = parser.fetch().toCompletableFuture().join();
+      } finally {
+        fetchPermits.release();
+      }
+      PageParser.Result result = parser.parse(content);
+
+      counts.add(result.getWordCounts());
+      if (depth > 1) {
+        Set<String> seen = new HashSet<>();
+        for (String link : result.getLinks()) {
+          // Checking the visited set here is only a shortcut. Another thread may still visit the
+          // link first, which crawlPage() catches when the link's thread starts.
+          if (seen.add(link) && !ignoredUrls.isIgnored(link) && !visitedUrls.contains(link)) {
+            submit(link, depth - 1);
+          }
+        }
+      }
+    }
+  }
+}
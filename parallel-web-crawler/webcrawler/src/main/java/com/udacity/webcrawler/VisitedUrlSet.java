@@ -0,0 +1,54 @@
+package com.udacity.webcrawler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A thread-safe record of the URLs a crawl has already visited.
+ *
+ * <p>Implementations compare URLs by their {@link UrlNormalizer normalized} form, so links that
+ * only differ in the case of their scheme or host, a fragment or a default port are treated as the
+ * same page.
+ */
+interface VisitedUrlSet {
+
+  /**
+   * Marks the given URL as visited.
+   *
+   * @return {@code true} if the URL had not been visited before, meaning the caller should crawl
+   *         it.
+   */
+  boolean add(String url);
+
+  /**
+   * Returns whether the given URL has already been visited.
+   */
+  boolean contains(String url);
+
+  /**
+   * Returns the number of distinct URLs visited so far.
+   */
+  int size();
+
+  /**
+   * Returns an estimate of how many URLs {@link #add(String)} reported as already visited even
+   * though they were not, for implementations that can give false positives.
+   */
+  default long estimateFalsePositiveSkips() {
+    return 0;
+  }
+
+  /**
+   * Writes the visited URLs to the given output, so they can be restored with
+   * {@link #readFrom(DataInput)} when a crawl is resumed. Callers must make sure no URLs are added
+   * while this runs.
+   */
+  void writeTo(DataOutput out) throws IOException;
+
+  /**
+   * Adds the visited URLs previously written by {@link #writeTo(DataOutput)} on a set of the same
+   * kind.
+   */
+  void readFrom(DataInput in) throws IOException;
+}
@@ -49,11 +49,26 @@ public final class WebCrawlerModule extends AbstractModule {
         Multibinder.newSetBinder(binder(), WebCrawler.class, Internal.class);
     multibinder.addBinding().to(SequentialWebCrawler.class);
     multibinder.addBinding().to(ParallelWebCrawler.class);
+    multibinder.addBinding().to(VirtualThreadWebCrawler.class);
+    multibinder.addBinding().to(PipelinedWebCrawler.class);
 
     bind(Clock.class).toInstance(Clock.systemUTC());
     bind(Key.get(Integer.class, MaxDepth.class)).toInstance(config.getMaxDepth());
     bind(Key.get(Integer.class, PopularWordCount.class)).toInstance(config.getPopularWordCount());
+    bind(Key.get(Integer.class, MaxConcurrentFetches.class))
+        .toInstance(config.getMaxConcurrentFetches());
+    bind(Key.get(Integer.class, MaxConcurrentRequestsPerHost.class))
+        .toInstance(config.getMaxConcurrentRequestsPerHost());
+    bind(Key.get(Duration.class, MinDelayPerHost.class)).toInstance(config.getMinDelayPerHost());
     bind(Key.get(Duration.class, Timeout.class)).toInstance(config.getTimeout());
+    bind(Key.get(String.class, CheckpointPath.class)).toInstance(config.getCheckpointPath());
+    bind(Key.get(Duration.class, CheckpointInterval.class))
+        .toInstance(config.getCheckpointInterval());
+    bind(Key.get(Boolean.class, ResumeFromCheckpoint.class))
+        .toInstance(config.isResumeFromCheckpoint());
+    bind(Key.get(String.class, IncrementalStatePath.class))
+        .toInstance(config.getIncrementalStatePath());
+    bind(Key.get(String.class, CrawlOrder.class)).toInstance(config.getCrawlOrder());
     bind(new Key<List<Pattern>>(IgnoredUrls.class) {
     }).toInstance(config.getIgnoredUrls());
 
@@ -61,6 +76,11 @@ public final class WebCrawlerModule extends AbstractModule {
         new ParserModule.Builder()
             .setTimeout(config.getTimeout())
             .setIgnoredWords(config.getIgnoredWords())
+            .setPageCachePath(config.getPageCachePath())
+            .setParseCacheMaxBytes(config.getParseCacheMaxBytes())
+            .setParserMode(config.getParserMode())
+            .setMaxPageBytes(config.getMaxPageBytes())
+            .setMaxCrawlBytes(config.getMaxCrawlBytes())
             .build());
   }
 
@@ -88,6 +108,40 @@ public final class WebCrawlerModule extends AbstractModule {
                     config.getParallelism() + "\"."));
   }
 
+  @Provides
+  @Singleton
+  IgnoredUrlFilter provideIgnoredUrlFilter(@IgnoredUrls List<Pattern> ignoredUrls) {
+    return IgnoredUrlFilter.compile(ignoredUrls);
+  }
+
+  /**
+   * Provides a new, empty {@link VisitedUrlSet} each time, so every crawl starts from scratch.
+   */
+  @Provides
+  VisitedUrlSet provideVisitedUrlSet() {
+    switch (config.getVisitedUrlMode()) {
+      case "fingerprint":
+        return new FingerprintVisitedUrlSet();
+      case "bloom":
+        return new BloomFilterVisitedUrlSet(
+            config.getBloomFilterExpectedUrls(), config.getBloomFilterFalsePositiveRate());
+      default:
+        return new ExactVisitedUrlSet();
+    }
+  }
+
+  /**
+   * Provides a new {@link UrlScorer} each time, so every crawl starts counting links from scratch.
+   */
+  @Provides
+  UrlScorer provideUrlScorer() {
+    return new WeightedUrlScorer(
+        config.getPriorityDepthWeight(),
+        config.getPriorityInLinkWeight(),
+        config.getPriorityHostQuota(),
+        config.getPriorityUrlWeights());
+  }
+
   @Provides
   @Singleton
   @TargetParallelism
@@ -0,0 +1,88 @@
+package com.udacity.webcrawler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link UrlScorer} that adds up weighted signals about each link:
+ *
+ * <ul>
+ *   <li>how close the page is to the starting pages,</li>
+ *   <li>how many times the crawl has found a link to it so far,</li>
+ *   <li>how many pages have already been crawled from its host, compared to a per-host quota,</li>
+ *   <li>and which configured URL patterns it matches.</li>
+ * </ul>
+ *
+ * <p>Since a link is scored again every time it is found, a page that many other pages link to is
+ * queued again with a higher priority each time, and gets crawled by whichever of its entries comes
+ * up first.
+ */
+final class WeightedUrlScorer implements UrlScorer {
+
+  private final double depthWeight;
+  private final double inLinkWeight;
+  private final int hostQuota;
+  private final List<Pattern> patterns = new ArrayList<>();
+  private final List<Double> patternWeights = new ArrayList<>();
+  private final Map<String, AtomicInteger> inLinks = new ConcurrentHashMap<>();
+  private final Map<String, AtomicInteger> crawledPerHost = new ConcurrentHashMap<>();
+
+  /**
+   * @param depthWeight  the priority added for every link that may still be followed from the
+   *                     page, which favors pages closer to the starting pages.
+   * @param inLinkWeight the priority added for every link to the page found so far.
+   * @param hostQuota    the number of pages crawled from a host for which the priority of its other
+   *                     pages is lowered by one, or 0 to ignore hosts.
+   * @param urlWeights   the priority added for each of these regular expressions that the whole
+   *                     URL matches.
+   */
+  WeightedUrlScorer(
+      double depthWeight, double inLinkWeight, int hostQuota, Map<String, Double> urlWeights) {
+    if (hostQuota < 0) {
+      throw new IllegalArgumentException("hostQuota cannot be negative");
+    }
+    this.depthWeight = depthWeight;
+    this.inLinkWeight = inLinkWeight;
+    this.hostQuota = hostQuota;
+    urlWeights.forEach((pattern, weight) -> {
+      patterns.add(Pattern.compile(pattern));
+      patternWeights.add(weight);
+    });
+  }
+
+  @Override
+  public double score(String url, int depth) {
+    double score = depthWeight * depth;
+    if (inLinkWeight != 0) {
+      int links = inLinks
+          .computeIfAbsent(UrlNormalizer.normalize(url), u -> new AtomicInteger())
+          .incrementAndGet();
+      score += inLinkWeight * links;
+    }
+    if (hostQuota > 0) {
+      AtomicInteger crawled = crawledPerHost.get(CrawlFrontier.hostOf(url));
+      if (crawled != null) {
+        score -= crawled.get() / hostQuota;
+      }
+    }
+    for (int i = 0; i < patterns.size(); i++) {
+      if (patterns.get(i).matcher(url).matches()) {
+        score += patternWeights.get(i);
+      }
+    }
+    return score;
+  }
+
+  @Override
+  public void crawled(String url) {
+    if (hostQuota > 0) {
+      crawledPerHost
+          .computeIfAbsent(CrawlFrontier.hostOf(url), host -> new AtomicInteger())
+          .incrementAndGet();
+    }
+  }
+}
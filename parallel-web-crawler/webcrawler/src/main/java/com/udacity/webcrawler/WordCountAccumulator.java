@@ -0,0 +1,85 @@
+package com.udacity.webcrawler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects word counts from many crawler threads at once.
+ *
+ * <p>Instead of funneling every word through one shared concurrent map, the counts are split into
+ * a number of independent shards. Each thread adds a whole page's counts to the shard picked by its
+ * thread id, so a page costs one uncontended lock rather than one atomic update (and boxed
+ * {@link Integer}) per word, and popular words like "the" no longer make every thread fight over
+ * the same map bin. The shards are only combined once, by {@link #merge()}, when the crawl is done.
+ */
+final class WordCountAccumulator {
+
+  private final Shard[] shards;
+  private final int mask;
+
+  /**
+   * Creates an accumulator sized for the given number of threads adding counts concurrently.
+   */
+  WordCountAccumulator(int parallelism) {
+    // Use a power of two that is at least twice the parallelism, so threads with consecutive ids
+    // always land on different shards.
+    int size = Integer.highestOneBit(Math.max(1, parallelism) * 2 - 1) << 1;
+    this.shards = new Shard[size];
+    for (int i = 0; i < size; i++) {
+      shards[i] = new Shard();
+    }
+    this.mask = size - 1;
+  }
+
+  /**
+   * Adds the word counts of a single page.
+   */
+  void add(Map<String, Integer> wordCounts) {
+    if (wordCounts.isEmpty()) {
+      return;
+    }
+    Shard shard = shards[(int) Thread.currentThread().getId() & mask];
+    synchronized (shard) {
+      for (Map.Entry<String, Integer> e : wordCounts.entrySet()) {
+        Counter counter = shard.counts.get(e.getKey());
+        if (counter == null) {
+          shard.counts.put(e.getKey(), new Counter(e.getValue()));
+        } else {
+          counter.value += e.getValue();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the combined word counts of every page added so far.
+   *
+   * <p>This walks every shard, so it should be called once, after all threads have finished adding
+   * counts. Words whose counts add up to zero, because pages were subtracted by adding negative
+   * counts, are left out.
+   */
+  Map<String, Integer> merge() {
+    Map<String, Integer> merged = new HashMap<>();
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        for (Map.Entry<String, Counter> e : shard.counts.entrySet()) {
+          merged.merge(e.getKey(), e.getValue().value, Integer::sum);
+        }
+      }
+    }
+    merged.values().removeIf(count -> count == 0);
+    return merged;
+  }
+
+  private static final class Shard {
+    private final Map<String, Counter> counts = new HashMap<>();
+  }
+
+  private static final class Counter {
+    private int value;
+
+    private Counter(int value) {
+      this.value = value;
+    }
+  }
+}
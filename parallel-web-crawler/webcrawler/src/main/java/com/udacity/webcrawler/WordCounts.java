@@ -1,16 +1,14 @@
 package com.udacity.webcrawler;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
-import java.util.stream.Collectors;
 
 /**
  * Utility class that sorts the map of word counts.
- *
- * <p>TODO: Reimplement the sort() method using only the Stream API and lambdas and/or method
- *          references.
  */
 final class WordCounts {
 
@@ -19,8 +17,9 @@ final class WordCounts {
    * to the provided {@link WordCountComparator}, and includes only the top
    * {@param popluarWordCount} words and counts.
    *
-   * <p>TODO: Reimplement this method using only the Stream API and lambdas and/or method
-   *          references.
+   * <p>Only the top words are ever ordered: a bounded heap keeps the {@code popularWordCount} best
+   * entries seen so far while the map is scanned once, which takes O(n log k) time and O(k) extra
+   * space instead of sorting all n entries.
    *
    * @param wordCounts       the unsorted map of word counts.
    * @param popularWordCount the number of popular words to include in the result map.
@@ -29,11 +28,30 @@ final class WordCounts {
   static Map<String, Integer> sort(Map<String, Integer> wordCounts, int popularWordCount) {
 
     int minWordCount = Math.min(popularWordCount, wordCounts.size());
-    return wordCounts.entrySet().stream()
-            .sorted(new WordCountComparator())
-            .limit(minWordCount)
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (k, v) -> k, LinkedHashMap::new));
+    if (minWordCount <= 0) {
+      return new LinkedHashMap<>();
+    }
 
+    Comparator<Map.Entry<String, Integer>> comparator = new WordCountComparator();
+    // The head of this heap is the lowest ranked of the top entries found so far.
+    PriorityQueue<Map.Entry<String, Integer>> top =
+        new PriorityQueue<>(minWordCount, comparator.reversed());
+    for (Map.Entry<String, Integer> entry : wordCounts.entrySet()) {
+      if (top.size() < minWordCount) {
+        top.add(entry);
+      } else if (comparator.compare(entry, top.peek()) < 0) {
+        top.poll();
+        top.add(entry);
+      }
+    }
+
+    List<Map.Entry<String, Integer>> sorted = new ArrayList<>(top);
+    sorted.sort(comparator);
+    Map<String, Integer> result = new LinkedHashMap<>();
+    for (Map.Entry<String, Integer> entry : sorted) {
+      result.put(entry.getKey(), entry.getValue());
+    }
+    return result;
   }
 
   /**
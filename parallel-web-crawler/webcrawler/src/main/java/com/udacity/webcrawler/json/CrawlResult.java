@@ -12,13 +12,42 @@ public final class CrawlResult {
 
   private final Map<String, Integer> wordCounts;
   private final int urlsVisited;
+  private final long estimatedFalsePositiveSkips;
+  private final long pagesTruncated;
+  private final long pagesAborted;
+  private final long bytesDownloaded;
+  private final double pagesPerSecond;
+  private final LatencyHistogram fetchLatency;
+  private final LatencyHistogram parseLatency;
+  private final Map<String, Long> errorCounts;
+  private final Map<String, Integer> pagesPerHost;
 
   /**
    * Constructs a {@link CrawlResult} with the given word counts and visited URL count.
    */
-  private CrawlResult(Map<String, Integer> wordCounts, int urlsVisited) {
+  private CrawlResult(
+      Map<String, Integer> wordCounts,
+      int urlsVisited,
+      long estimatedFalsePositiveSkips,
+      long pagesTruncated,
+      long pagesAborted,
+      long bytesDownloaded,
+      double pagesPerSecond,
+      LatencyHistogram fetchLatency,
+      LatencyHistogram parseLatency,
+      Map<String, Long> errorCounts,
+      Map<String, Integer> pagesPerHost) {
     this.wordCounts = wordCounts;
     this.urlsVisited = urlsVisited;
+    this.estimatedFalsePositiveSkips = estimatedFalsePositiveSkips;
+    this.pagesTruncated = pagesTruncated;
+    this.pagesAborted = pagesAborted;
+    this.bytesDownloaded = bytesDownloaded;
+    this.pagesPerSecond = pagesPerSecond;
+    this.fetchLatency = fetchLatency;
+    this.parseLatency = parseLatency;
+    this.errorCounts = errorCounts;
+    this.pagesPerHost = pagesPerHost;
   }
 
   /**
@@ -52,12 +81,93 @@ public final class CrawlResult {
     return urlsVisited;
   }
 
+  /**
+   * Returns an estimate of how many URLs the web crawler skipped because it wrongly believed it
+   * had already visited them.
+   *
+   * <p>This is always 0 unless the crawl used the {@code "bloom"} visited URL mode, which trades
+   * a small chance of skipping unvisited pages for a fixed memory footprint.
+   */
+  public long getEstimatedFalsePositiveSkips() {
+    return estimatedFalsePositiveSkips;
+  }
+
+  /**
+   * Returns the number of pages that were cut off because they were larger than the
+   * {@code "maxPageBytes"} option, or used up the rest of the {@code "maxCrawlBytes"} budget. The
+   * part of each page before the cut was still counted.
+   */
+  public long getPagesTruncated() {
+    return pagesTruncated;
+  }
+
+  /**
+   * Returns the number of pages that were not downloaded at all, because the
+   * {@code "maxCrawlBytes"} budget was already used up.
+   */
+  public long getPagesAborted() {
+    return pagesAborted;
+  }
+
+  /**
+   * Returns the number of bytes downloaded, before decompression.
+   */
+  public long getBytesDownloaded() {
+    return bytesDownloaded;
+  }
+
+  /**
+   * Returns the number of URLs visited per second of the crawl. See {@link #getUrlsVisited()}.
+   */
+  public double getPagesPerSecond() {
+    return pagesPerSecond;
+  }
+
+  /**
+   * Returns how long pages took to download, including downloads that failed.
+   */
+  public LatencyHistogram getFetchLatency() {
+    return fetchLatency;
+  }
+
+  /**
+   * Returns how long downloaded pages took to parse.
+   */
+  public LatencyHistogram getParseLatency() {
+    return parseLatency;
+  }
+
+  /**
+   * Returns an unmodifiable {@link Map} from the simple name of an exception, such as
+   * {@code "HttpTimeoutException"}, to the number of pages that could not be read because of it.
+   */
+  public Map<String, Long> getErrorCounts() {
+    return errorCounts;
+  }
+
+  /**
+   * Returns an unmodifiable {@link Map} from each host to the number of URLs visited on it, with
+   * the busiest hosts first. Local files are counted under an empty host.
+   */
+  public Map<String, Integer> getPagesPerHost() {
+    return pagesPerHost;
+  }
+
   /**
    * A package-private builder class for constructing web crawl {@link CrawlResult}s.
    */
   public static final class Builder {
     private Map<String, Integer> wordFrequencies = new HashMap<>();
     private int pageCount;
+    private long estimatedFalsePositiveSkips;
+    private long pagesTruncated;
+    private long pagesAborted;
+    private long bytesDownloaded;
+    private double pagesPerSecond;
+    private LatencyHistogram fetchLatency = LatencyHistogram.empty();
+    private LatencyHistogram parseLatency = LatencyHistogram.empty();
+    private Map<String, Long> errorCounts = new HashMap<>();
+    private Map<String, Integer> pagesPerHost = new HashMap<>();
 
     /**
      * Sets the word counts. See {@link #getWordCounts()}
@@ -75,11 +185,96 @@ public final class CrawlResult {
       return this;
     }
 
+    /**
+     * Sets the estimated number of URLs skipped as false positives. See
+     * {@link #getEstimatedFalsePositiveSkips()}.
+     */
+    public Builder setEstimatedFalsePositiveSkips(long estimatedFalsePositiveSkips) {
+      this.estimatedFalsePositiveSkips = estimatedFalsePositiveSkips;
+      return this;
+    }
+
+    /**
+     * Sets the number of pages that were cut off. See {@link #getPagesTruncated()}.
+     */
+    public Builder setPagesTruncated(long pagesTruncated) {
+      this.pagesTruncated = pagesTruncated;
+      return this;
+    }
+
+    /**
+     * Sets the number of pages that were not downloaded. See {@link #getPagesAborted()}.
+     */
+    public Builder setPagesAborted(long pagesAborted) {
+      this.pagesAborted = pagesAborted;
+      return this;
+    }
+
+    /**
+     * Sets the number of bytes downloaded. See {@link #getBytesDownloaded()}.
+     */
+    public Builder setBytesDownloaded(long bytesDownloaded) {
+      this.bytesDownloaded = bytesDownloaded;
+      return this;
+    }
+
+    /**
+     * Sets the number of URLs visited per second. See {@link #getPagesPerSecond()}.
+     */
+    public Builder setPagesPerSecond(double pagesPerSecond) {
+      this.pagesPerSecond = pagesPerSecond;
+      return this;
+    }
+
+    /**
+     * Sets how long pages took to download. See {@link #getFetchLatency()}.
+     */
+    public Builder setFetchLatency(LatencyHistogram fetchLatency) {
+      this.fetchLatency = Objects.requireNonNull(fetchLatency);
+      return this;
+    }
+
+    /**
+     * Sets how long pages took to parse. See {@link #getParseLatency()}.
+     */
+    public Builder setParseLatency(LatencyHistogram parseLatency) {
+      this.parseLatency = Objects.requireNonNull(parseLatency);
+      return this;
+    }
+
+    /**
+     * Sets the number of pages that could not be read, by exception. See
+     * {@link #getErrorCounts()}.
+     */
+    public Builder setErrorCounts(Map<String, Long> errorCounts) {
+      this.errorCounts = Objects.requireNonNull(errorCounts);
+      return this;
+    }
+
+    /**
+     * Sets the number of URLs visited per host. See {@link #getPagesPerHost()}.
+     */
+    public Builder setPagesPerHost(Map<String, Integer> pagesPerHost) {
+      this.pagesPerHost = Objects.requireNonNull(pagesPerHost);
+      return this;
+    }
+
     /**
      * Constructs a {@link CrawlResult} from this builder.
      */
     public CrawlResult build() {
-      return new CrawlResult(Collections.unmodifiableMap(wordFrequencies), pageCount);
+      return new CrawlResult(
+          Collections.unmodifiableMap(wordFrequencies),
+          pageCount,
+          estimatedFalsePositiveSkips,
+          pagesTruncated,
+          pagesAborted,
+          bytesDownloaded,
+          pagesPerSecond,
+          fetchLatency,
+          parseLatency,
+          Collections.unmodifiableMap(errorCounts),
+          Collections.unmodifiableMap(pagesPerHost));
     }
   }
 }
\ No newline at end of file
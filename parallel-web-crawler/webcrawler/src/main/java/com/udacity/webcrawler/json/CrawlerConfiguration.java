@@ -4,8 +4,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -22,11 +25,31 @@ public final class CrawlerConfiguration {
   private final List<Pattern> ignoredWords;
   private final int parallelism;
   private final String implementationOverride;
+  private final int maxConcurrentFetches;
+  private final int maxConcurrentRequestsPerHost;
+  private final Duration minDelayPerHost;
+  private final String visitedUrlMode;
+  private final long bloomFilterExpectedUrls;
+  private final double bloomFilterFalsePositiveRate;
   private final int maxDepth;
   private final Duration timeout;
   private final int popularWordCount;
   private final String profileOutputPath;
   private final String resultPath;
+  private final String checkpointPath;
+  private final Duration checkpointInterval;
+  private final boolean resumeFromCheckpoint;
+  private final String pageCachePath;
+  private final long parseCacheMaxBytes;
+  private final String incrementalStatePath;
+  private final String parserMode;
+  private final long maxPageBytes;
+  private final long maxCrawlBytes;
+  private final String crawlOrder;
+  private final double priorityDepthWeight;
+  private final double priorityInLinkWeight;
+  private final int priorityHostQuota;
+  private final Map<String, Double> priorityUrlWeights;
 
   private CrawlerConfiguration(
       List<String> startPages,
@@ -34,21 +57,61 @@ public final class CrawlerConfiguration {
       List<Pattern> ignoredWords,
       int parallelism,
       String implementationOverride,
+      int maxConcurrentFetches,
+      int maxConcurrentRequestsPerHost,
+      Duration minDelayPerHost,
+      String visitedUrlMode,
+      long bloomFilterExpectedUrls,
+      double bloomFilterFalsePositiveRate,
       int maxDepth,
       Duration timeout,
       int popularWordCount,
       String profileOutputPath,
-      String resultPath) {
+      String resultPath,
+      String checkpointPath,
+      Duration checkpointInterval,
+      boolean resumeFromCheckpoint,
+      String pageCachePath,
+      long parseCacheMaxBytes,
+      String incrementalStatePath,
+      String parserMode,
+      long maxPageBytes,
+      long maxCrawlBytes,
+      String crawlOrder,
+      double priorityDepthWeight,
+      double priorityInLinkWeight,
+      int priorityHostQuota,
+      Map<String, Double> priorityUrlWeights) {
     this.startPages = startPages;
     this.ignoredUrls = ignoredUrls;
     this.ignoredWords = ignoredWords;
     this.parallelism = parallelism;
     this.implementationOverride = implementationOverride;
+    this.maxConcurrentFetches = maxConcurrentFetches;
+    this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+    this.minDelayPerHost = minDelayPerHost;
+    this.visitedUrlMode = visitedUrlMode;
+    this.bloomFilterExpectedUrls = bloomFilterExpectedUrls;
+    this.bloomFilterFalsePositiveRate = bloomFilterFalsePositiveRate;
     this.maxDepth = maxDepth;
     this.timeout = timeout;
     this.popularWordCount = popularWordCount;
     this.profileOutputPath = profileOutputPath;
     this.resultPath = resultPath;
+    this.checkpointPath = checkpointPath;
+    this.checkpointInterval = checkpointInterval;
+    this.resumeFromCheckpoint = resumeFromCheckpoint;
+    this.pageCachePath = pageCachePath;
+    this.parseCacheMaxBytes = parseCacheMaxBytes;
+    this.incrementalStatePath = incrementalStatePath;
+    this.parserMode = parserMode;
+    this.maxPageBytes = maxPageBytes;
+    this.maxCrawlBytes = maxCrawlBytes;
+    this.crawlOrder = crawlOrder;
+    this.priorityDepthWeight = priorityDepthWeight;
+    this.priorityInLinkWeight = priorityInLinkWeight;
+    this.priorityHostQuota = priorityHostQuota;
+    this.priorityUrlWeights = priorityUrlWeights;
   }
 
   /**
@@ -101,6 +164,86 @@ public final class CrawlerConfiguration {
     return implementationOverride;
   }
 
+  /**
+   * The maximum number of page downloads that may be in flight at the same time.
+   *
+   * <p>This setting is only used by {@link com.udacity.webcrawler.VirtualThreadWebCrawler}, which
+   * runs each download on its own thread instead of sizing its thread pool to the number of CPU
+   * cores, and by {@link com.udacity.webcrawler.PipelinedWebCrawler}, which also counts downloaded
+   * pages that are still waiting to be parsed. It is optional and defaults to 256.
+   */
+  public int getMaxConcurrentFetches() {
+    return maxConcurrentFetches;
+  }
+
+  /**
+   * The maximum number of pages from the same host that may be downloaded at the same time.
+   *
+   * <p>Together with {@link #getMinDelayPerHost()}, this keeps a single site with many links from
+   * taking up every worker, and from throttling or banning the crawler. Pages from other hosts are
+   * crawled in the meantime. This setting is only used by
+   * {@link com.udacity.webcrawler.ParallelWebCrawler}. It is optional and defaults to zero, meaning
+   * no limit.
+   */
+  public int getMaxConcurrentRequestsPerHost() {
+    return maxConcurrentRequestsPerHost;
+  }
+
+  /**
+   * The minimum amount of time between starting two page downloads from the same host.
+   *
+   * <p>This setting is only used by {@link com.udacity.webcrawler.ParallelWebCrawler}. It is
+   * optional and defaults to zero, meaning only {@link #getMaxConcurrentRequestsPerHost()}, if set,
+   * limits how fast a host is crawled.
+   */
+  public Duration getMinDelayPerHost() {
+    return minDelayPerHost;
+  }
+
+  /**
+   * How the crawler remembers which URLs it has already visited.
+   *
+   * <p>Either way, URLs are compared after lower-casing their scheme and host and removing their
+   * fragment and default port, so equivalent links are only crawled once.
+   *
+   * <ul>
+   *   <li>{@code "exact"} (the default) keeps every visited URL in memory.</li>
+   *   <li>{@code "fingerprint"} only keeps a 64-bit hash of each visited URL, which takes far less
+   *   memory on very large crawls, but may very rarely skip a page whose hash collides with a
+   *   visited one.</li>
+   *   <li>{@code "bloom"} keeps the visited URLs in a fixed size Bloom filter outside of the Java
+   *   heap, sized by {@link #getBloomFilterExpectedUrls()} and
+   *   {@link #getBloomFilterFalsePositiveRate()}. This is meant for crawls of tens of millions of
+   *   pages, where even fingerprints take too much memory. Some unvisited pages will be skipped;
+   *   the crawl result reports an estimate of how many.</li>
+   * </ul>
+   */
+  public String getVisitedUrlMode() {
+    return visitedUrlMode;
+  }
+
+  /**
+   * The number of distinct URLs the Bloom filter should be sized for.
+   *
+   * <p>This setting is only used when {@link #getVisitedUrlMode()} is {@code "bloom"}. It is
+   * optional and defaults to 10,000,000. Crawling more URLs than this makes false positives more
+   * likely than {@link #getBloomFilterFalsePositiveRate()}.
+   */
+  public long getBloomFilterExpectedUrls() {
+    return bloomFilterExpectedUrls;
+  }
+
+  /**
+   * The chance that the Bloom filter reports an unvisited URL as visited, once
+   * {@link #getBloomFilterExpectedUrls()} URLs have been visited.
+   *
+   * <p>This setting is only used when {@link #getVisitedUrlMode()} is {@code "bloom"}. It is
+   * optional and defaults to 0.001.
+   */
+  public double getBloomFilterFalsePositiveRate() {
+    return bloomFilterFalsePositiveRate;
+  }
+
   /**
    * The maximum depth allowed for the crawl.
    *
@@ -174,6 +317,225 @@ public final class CrawlerConfiguration {
     return resultPath;
   }
 
+  /**
+   * Path to the file where the state of the crawl is periodically saved, so that a crawl that is
+   * killed or runs out of time can later be resumed without fetching the same pages again.
+   *
+   * <p>The checkpoint holds the visited URLs, the word counts so far and the URLs still waiting to
+   * be crawled. It is deleted once a crawl finishes every page it was asked to crawl.
+   *
+   * <p>If the path is empty, the crawl is not checkpointed. This setting is only used by
+   * {@link com.udacity.webcrawler.ParallelWebCrawler}.
+   */
+  public String getCheckpointPath() {
+    return checkpointPath;
+  }
+
+  /**
+   * How often the state of the crawl is saved to {@link #getCheckpointPath()}. This setting is
+   * optional and defaults to 60 seconds.
+   */
+  public Duration getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  /**
+   * Whether the crawl should continue from the checkpoint at {@link #getCheckpointPath()}, instead
+   * of starting over from {@link #getStartPages()}.
+   *
+   * <p>If there is no checkpoint file, the crawl starts from the start pages as usual.
+   */
+  public boolean isResumeFromCheckpoint() {
+    return resumeFromCheckpoint;
+  }
+
+  /**
+   * Path to a directory where downloaded pages are cached between crawls.
+   *
+   * <p>Pages that the server sent with an {@code ETag} or {@code Last-Modified} header are stored
+   * in the cache. On the next crawl they are requested conditionally, so a page that did not change
+   * only costs a {@code 304 Not Modified} response instead of a full download.
+   *
+   * <p>If the path is empty, pages are not cached.
+   */
+  public String getPageCachePath() {
+    return pageCachePath;
+  }
+
+  /**
+   * The maximum amount of memory, in bytes, used to cache the words and links parsed from each
+   * page.
+   *
+   * <p>A page whose content is byte for byte the same as when it was last parsed is then not parsed
+   * again. This pays off when the same crawler is used for repeated crawls, together with
+   * {@link #getPageCachePath()}. The setting is optional and defaults to zero, which disables the
+   * cache.
+   */
+  public long getParseCacheMaxBytes() {
+    return parseCacheMaxBytes;
+  }
+
+  /**
+   * Path to the file where the word counts and links of every crawled page are kept between runs,
+   * so that the next run only has to parse the pages that changed.
+   *
+   * <p>Each run starts from the word counts of the previous run. Pages whose content did not change
+   * reuse their saved links, changed pages only add the difference in their word counts, and the
+   * words of pages that are no longer reached are subtracted. Set {@link #getPageCachePath()} too,
+   * so unchanged pages are revalidated with conditional requests instead of downloaded again.
+   *
+   * <p>If the path is empty, every crawl starts from scratch. This setting is only used by
+   * {@link com.udacity.webcrawler.ParallelWebCrawler}, and cannot be combined with
+   * {@link #isResumeFromCheckpoint()}.
+   */
+  public String getIncrementalStatePath() {
+    return incrementalStatePath;
+  }
+
+  /**
+   * How the downloaded pages are parsed. The setting is optional and defaults to {@code "dom"}.
+   *
+   * <ul>
+   *   <li>{@code "dom"}: each page is parsed into a Jsoup document, which is then walked to find
+   *   its text and links.</li>
+   *   <li>{@code "streaming"}: the text and links of each page are read straight from the
+   *   downloaded bytes, without building a document. The memory used per page stays the same no
+   *   matter how large the page is, which helps when crawling very large pages with many threads.
+   *   </li>
+   * </ul>
+   */
+  public String getParserMode() {
+    return parserMode;
+  }
+
+  /**
+   * The most bytes read from a single page.
+   *
+   * <p>A page is cut off once it reaches this size, and only the part before that is parsed. For
+   * compressed pages, both the downloaded and the decompressed size are limited. This keeps a
+   * single huge page from filling up the heap. The setting is optional and defaults to zero, which
+   * means no limit.
+   */
+  public long getMaxPageBytes() {
+    return maxPageBytes;
+  }
+
+  /**
+   * The most bytes downloaded from all pages of the crawl together.
+   *
+   * <p>The page that uses up the budget is cut off, and no pages are downloaded after that. The
+   * setting is optional and defaults to zero, which means no limit.
+   */
+  public long getMaxCrawlBytes() {
+    return maxCrawlBytes;
+  }
+
+  /**
+   * The order in which the parallel crawler visits pages. The setting is optional and defaults to
+   * {@code "unordered"}.
+   *
+   * <ul>
+   *   <li>{@code "unordered"}: every page is crawled as soon as a worker is free, no matter how far
+   *   it is from the starting pages. This keeps all workers busy, but with a short timeout the
+   *   crawl may spend most of its time deep in one part of the site.</li>
+   *   <li>{@code "breadth-first"}: all pages at one distance from the starting pages are crawled,
+   *   in parallel, before any page one link further away. With a short timeout, this covers the
+   *   pages closest to the starting pages first, at the cost of idle workers at the end of each
+   *   level.</li>
+   *   <li>{@code "priority"}: the queued page with the highest priority is crawled first. The
+   *   priority of a page is computed from the {@code priority*} settings whenever a link to it is
+   *   found. With a short timeout, this covers the pages that matter most first.</li>
+   * </ul>
+   *
+   * <p>Only the {@code ParallelWebCrawler} supports breadth-first and priority order. Other
+   * crawlers ignore this setting.
+   */
+  public String getCrawlOrder() {
+    return crawlOrder;
+  }
+
+  /**
+   * The priority added for every link that may still be followed from a page, in priority order.
+   *
+   * <p>A positive weight favors pages close to the starting pages. The setting is optional and
+   * defaults to 1.
+   */
+  public double getPriorityDepthWeight() {
+    return priorityDepthWeight;
+  }
+
+  /**
+   * The priority added for every link to a page that the crawl has found so far, in priority
+   * order.
+   *
+   * <p>A positive weight favors pages that many other pages link to. The setting is optional and
+   * defaults to 0.
+   */
+  public double getPriorityInLinkWeight() {
+    return priorityInLinkWeight;
+  }
+
+  /**
+   * The number of pages crawled from a host for which the priority of its other pages is lowered
+   * by one, in priority order.
+   *
+   * <p>This spreads the crawl over more hosts, so that a single large site does not take up the
+   * whole time budget. The setting is optional and defaults to 0, which means hosts are not taken
+   * into account.
+   */
+  public int getPriorityHostQuota() {
+    return priorityHostQuota;
+  }
+
+  /**
+   * Regular expression patterns of URLs, each with the priority added to pages whose whole URL
+   * matches it, in priority order.
+   *
+   * <p>For example, {@code {"https://example\\.com/docs/.*": 5}} crawls the documentation of a site
+   * before the rest of it. The setting is optional and defaults to no patterns.
+   */
+  public Map<String, Double> getPriorityUrlWeights() {
+    return priorityUrlWeights;
+  }
+
+  /**
+   * Returns a {@link Builder} with all options set to the values of this configuration.
+   */
+  public Builder toBuilder() {
+    Builder builder = new Builder()
+        .addStartPages(startPages.toArray(new String[0]))
+        .setParallelism(parallelism)
+        .setImplementationOverride(implementationOverride)
+        .setMaxConcurrentFetches(maxConcurrentFetches)
+        .setMaxConcurrentRequestsPerHost(maxConcurrentRequestsPerHost)
+        .setMinDelayPerHostMillis(minDelayPerHost.toMillis())
+        .setVisitedUrlMode(visitedUrlMode)
+        .setBloomFilterExpectedUrls(bloomFilterExpectedUrls)
+        .setBloomFilterFalsePositiveRate(bloomFilterFalsePositiveRate)
+        .setMaxDepth(maxDepth)
+        .setTimeoutSeconds((int) timeout.getSeconds())
+        .setPopularWordCount(popularWordCount)
+        .setProfileOutputPath(profileOutputPath)
+        .setResultPath(resultPath)
+        .setCheckpointPath(checkpointPath)
+        .setCheckpointIntervalSeconds((int) checkpointInterval.getSeconds())
+        .setResumeFromCheckpoint(resumeFromCheckpoint)
+        .setPageCachePath(pageCachePath)
+        .setParseCacheMaxBytes(parseCacheMaxBytes)
+        .setIncrementalStatePath(incrementalStatePath)
+        .setParserMode(parserMode)
+        .setMaxPageBytes(maxPageBytes)
+        .setMaxCrawlBytes(maxCrawlBytes)
+        .setCrawlOrder(crawlOrder)
+        .setPriorityDepthWeight(priorityDepthWeight)
+        .setPriorityInLinkWeight(priorityInLinkWeight)
+        .setPriorityHostQuota(priorityHostQuota)
+        .putPriorityUrlWeights(priorityUrlWeights);
+    ignoredUrls.forEach(pattern -> builder.addIgnoredUrls(pattern.pattern()));
+    ignoredWords.forEach(pattern -> builder.addIgnoredWords(pattern.pattern()));
+    return builder;
+  }
+
   /**
    * A builder class to create {@link CrawlerConfiguration} instances.
    */
@@ -183,11 +545,31 @@ public final class CrawlerConfiguration {
     private final Set<String> ignoredWords = new LinkedHashSet<>();
     private int parallelism = -1;
     private String implementationOverride = "";
+    private int maxConcurrentFetches = 256;
+    private int maxConcurrentRequestsPerHost = 0;
+    private long minDelayPerHostMillis = 0;
+    private String visitedUrlMode = "exact";
+    private long bloomFilterExpectedUrls = 10_000_000;
+    private double bloomFilterFalsePositiveRate = 0.001;
     private int maxDepth = 0;
     private int timeoutSeconds = 1;
     private int popularWordCount = 0;
     private String profileOutputPath = "";
     private String resultPath = "";
+    private String checkpointPath = "";
+    private int checkpointIntervalSeconds = 60;
+    private boolean resumeFromCheckpoint = false;
+    private String pageCachePath = "";
+    private long parseCacheMaxBytes = 0;
+    private String incrementalStatePath = "";
+    private String parserMode = "dom";
+    private long maxPageBytes = 0;
+    private long maxCrawlBytes = 0;
+    private String crawlOrder = "unordered";
+    private double priorityDepthWeight = 1;
+    private double priorityInLinkWeight = 0;
+    private int priorityHostQuota = 0;
+    private final Map<String, Double> priorityUrlWeights = new LinkedHashMap<>();
 
     /**
      * Adds a start page URL.
@@ -259,6 +641,74 @@ public final class CrawlerConfiguration {
       return this;
     }
 
+    /**
+     * Sets the maximum number of page downloads that may be in flight at the same time.
+     *
+     * <p>See {@link #getMaxConcurrentFetches()}.
+     */
+    @JsonProperty("maxConcurrentFetches")
+    public Builder setMaxConcurrentFetches(int maxConcurrentFetches) {
+      this.maxConcurrentFetches = maxConcurrentFetches;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of pages from the same host that may be downloaded at the same time,
+     * or 0 for no limit.
+     *
+     * <p>See {@link #getMaxConcurrentRequestsPerHost()}.
+     */
+    @JsonProperty("maxConcurrentRequestsPerHost")
+    public Builder setMaxConcurrentRequestsPerHost(int maxConcurrentRequestsPerHost) {
+      this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+      return this;
+    }
+
+    /**
+     * Sets the minimum time between two page downloads from the same host, specified in
+     * milliseconds.
+     *
+     * <p>See {@link #getMinDelayPerHost()}.
+     */
+    @JsonProperty("minDelayPerHostMillis")
+    public Builder setMinDelayPerHostMillis(long millis) {
+      this.minDelayPerHostMillis = millis;
+      return this;
+    }
+
+    /**
+     * Sets how the crawler remembers which URLs it has already visited.
+     *
+     * <p>See {@link #getVisitedUrlMode()}.
+     */
+    @JsonProperty("visitedUrlMode")
+    public Builder setVisitedUrlMode(String visitedUrlMode) {
+      this.visitedUrlMode = Objects.requireNonNull(visitedUrlMode);
+      return this;
+    }
+
+    /**
+     * Sets the number of distinct URLs the Bloom filter should be sized for.
+     *
+     * <p>See {@link #getBloomFilterExpectedUrls()}.
+     */
+    @JsonProperty("bloomFilterExpectedUrls")
+    public Builder setBloomFilterExpectedUrls(long bloomFilterExpectedUrls) {
+      this.bloomFilterExpectedUrls = bloomFilterExpectedUrls;
+      return this;
+    }
+
+    /**
+     * Sets the target false positive rate of the Bloom filter.
+     *
+     * <p>See {@link #getBloomFilterFalsePositiveRate()}.
+     */
+    @JsonProperty("bloomFilterFalsePositiveRate")
+    public Builder setBloomFilterFalsePositiveRate(double bloomFilterFalsePositiveRate) {
+      this.bloomFilterFalsePositiveRate = bloomFilterFalsePositiveRate;
+      return this;
+    }
+
     /**
      * Sets the maximum depth of the crawl.
      *
@@ -314,6 +764,164 @@ public final class CrawlerConfiguration {
       return this;
     }
 
+    /**
+     * Sets the path to the file where the state of this crawl should be periodically saved.
+     *
+     * <p>See {@link #getCheckpointPath()}.
+     */
+    @JsonProperty("checkpointPath")
+    public Builder setCheckpointPath(String checkpointPath) {
+      this.checkpointPath = Objects.requireNonNull(checkpointPath);
+      return this;
+    }
+
+    /**
+     * Sets how often the state of this crawl should be saved, specified in seconds.
+     *
+     * <p>See {@link #getCheckpointInterval()}.
+     */
+    @JsonProperty("checkpointIntervalSeconds")
+    public Builder setCheckpointIntervalSeconds(int seconds) {
+      this.checkpointIntervalSeconds = seconds;
+      return this;
+    }
+
+    /**
+     * Sets whether this crawl should resume from its saved checkpoint.
+     *
+     * <p>See {@link #isResumeFromCheckpoint()}.
+     */
+    @JsonProperty("resumeFromCheckpoint")
+    public Builder setResumeFromCheckpoint(boolean resumeFromCheckpoint) {
+      this.resumeFromCheckpoint = resumeFromCheckpoint;
+      return this;
+    }
+
+    /**
+     * Sets the path to the directory where downloaded pages should be cached between crawls.
+     *
+     * <p>See {@link #getPageCachePath()}.
+     */
+    @JsonProperty("pageCachePath")
+    public Builder setPageCachePath(String pageCachePath) {
+      this.pageCachePath = Objects.requireNonNull(pageCachePath);
+      return this;
+    }
+
+    /**
+     * Sets the maximum amount of memory used to cache parse results, in bytes.
+     *
+     * <p>See {@link #getParseCacheMaxBytes()}.
+     */
+    @JsonProperty("parseCacheMaxBytes")
+    public Builder setParseCacheMaxBytes(long parseCacheMaxBytes) {
+      this.parseCacheMaxBytes = parseCacheMaxBytes;
+      return this;
+    }
+
+    /**
+     * Sets the path to the file where the state of incremental crawls is kept between runs.
+     *
+     * <p>See {@link #getIncrementalStatePath()}.
+     */
+    @JsonProperty("incrementalStatePath")
+    public Builder setIncrementalStatePath(String incrementalStatePath) {
+      this.incrementalStatePath = Objects.requireNonNull(incrementalStatePath);
+      return this;
+    }
+
+    /**
+     * Sets how the downloaded pages are parsed.
+     *
+     * <p>See {@link #getParserMode()}.
+     */
+    @JsonProperty("parserMode")
+    public Builder setParserMode(String parserMode) {
+      this.parserMode = Objects.requireNonNull(parserMode);
+      return this;
+    }
+
+    /**
+     * Sets the most bytes read from a single page.
+     *
+     * <p>See {@link #getMaxPageBytes()}.
+     */
+    @JsonProperty("maxPageBytes")
+    public Builder setMaxPageBytes(long maxPageBytes) {
+      this.maxPageBytes = maxPageBytes;
+      return this;
+    }
+
+    /**
+     * Sets the most bytes downloaded from all pages together.
+     *
+     * <p>See {@link #getMaxCrawlBytes()}.
+     */
+    @JsonProperty("maxCrawlBytes")
+    public Builder setMaxCrawlBytes(long maxCrawlBytes) {
+      this.maxCrawlBytes = maxCrawlBytes;
+      return this;
+    }
+
+    /**
+     * Sets the order in which the parallel crawler visits pages.
+     *
+     * <p>See {@link #getCrawlOrder()}.
+     */
+    @JsonProperty("crawlOrder")
+    public Builder setCrawlOrder(String crawlOrder) {
+      this.crawlOrder = Objects.requireNonNull(crawlOrder);
+      return this;
+    }
+
+    /**
+     * Sets the priority added for every link that may still be followed from a page.
+     *
+     * <p>See {@link #getPriorityDepthWeight()}.
+     */
+    @JsonProperty("priorityDepthWeight")
+    public Builder setPriorityDepthWeight(double priorityDepthWeight) {
+      this.priorityDepthWeight = priorityDepthWeight;
+      return this;
+    }
+
+    /**
+     * Sets the priority added for every link to a page found so far.
+     *
+     * <p>See {@link #getPriorityInLinkWeight()}.
+     */
+    @JsonProperty("priorityInLinkWeight")
+    public Builder setPriorityInLinkWeight(double priorityInLinkWeight) {
+      this.priorityInLinkWeight = priorityInLinkWeight;
+      return this;
+    }
+
+    /**
+     * Sets the number of pages crawled from a host for which the priority of its other pages is
+     * lowered by one.
+     *
+     * <p>See {@link #getPriorityHostQuota()}.
+     */
+    @JsonProperty("priorityHostQuota")
+    public Builder setPriorityHostQuota(int priorityHostQuota) {
+      this.priorityHostQuota = priorityHostQuota;
+      return this;
+    }
+
+    /**
+     * Adds regular expression patterns of URLs, each with the priority added to pages that match
+     * it.
+     *
+     * <p>Replaces the weight of a pattern that has already been added. See
+     * {@link #getPriorityUrlWeights()}.
+     */
+    @JsonProperty("priorityUrlWeights")
+    public Builder putPriorityUrlWeights(Map<String, Double> weights) {
+      weights.forEach((pattern, weight) -> priorityUrlWeights.put(
+          Objects.requireNonNull(pattern), Objects.requireNonNull(weight)));
+      return this;
+    }
+
     /**
      * Constructs a {@link CrawlerConfiguration} from this builder.
      */
@@ -327,6 +935,57 @@ public final class CrawlerConfiguration {
       if (popularWordCount < 0) {
         throw new IllegalArgumentException("popularWordCount cannot be negative");
       }
+      if (maxConcurrentFetches <= 0) {
+        throw new IllegalArgumentException("maxConcurrentFetches must be positive");
+      }
+      if (maxConcurrentRequestsPerHost < 0) {
+        throw new IllegalArgumentException("maxConcurrentRequestsPerHost cannot be negative");
+      }
+      if (minDelayPerHostMillis < 0) {
+        throw new IllegalArgumentException("minDelayPerHostMillis cannot be negative");
+      }
+      if (!Set.of("exact", "fingerprint", "bloom").contains(visitedUrlMode)) {
+        throw new IllegalArgumentException(
+            "visitedUrlMode must be \"exact\", \"fingerprint\" or \"bloom\", but was \""
+                + visitedUrlMode + "\"");
+      }
+      if (bloomFilterExpectedUrls <= 0) {
+        throw new IllegalArgumentException("bloomFilterExpectedUrls must be positive");
+      }
+      if (!(bloomFilterFalsePositiveRate > 0 && bloomFilterFalsePositiveRate < 1)) {
+        throw new IllegalArgumentException("bloomFilterFalsePositiveRate must be between 0 and 1");
+      }
+      if (checkpointIntervalSeconds <= 0) {
+        throw new IllegalArgumentException("checkpointIntervalSeconds must be positive");
+      }
+      if (parseCacheMaxBytes < 0) {
+        throw new IllegalArgumentException("parseCacheMaxBytes cannot be negative");
+      }
+      if (!Set.of("dom", "streaming").contains(parserMode)) {
+        throw new IllegalArgumentException(
+            "parserMode must be \"dom\" or \"streaming\", but was \"" + parserMode + "\"");
+      }
+      if (maxPageBytes < 0) {
+        throw new IllegalArgumentException("maxPageBytes cannot be negative");
+      }
+      if (maxCrawlBytes < 0) {
+        throw new IllegalArgumentException("maxCrawlBytes cannot be negative");
+      }
+      if (!Set.of("unordered", "breadth-first", "priority").contains(crawlOrder)) {
+        throw new IllegalArgumentException(
+            "crawlOrder must be \"unordered\", \"breadth-first\" or \"priority\", but was \""
+                + crawlOrder + "\"");
+      }
+      if (priorityHostQuota < 0) {
+        throw new IllegalArgumentException("priorityHostQuota cannot be negative");
+      }
+      // Fail here for invalid patterns, instead of when the crawl starts.
+      priorityUrlWeights.keySet().forEach(Pattern::compile);
+      if (!incrementalStatePath.isEmpty() && resumeFromCheckpoint) {
+        // The checkpoint does not know which pages the interrupted run already revisited.
+        throw new IllegalArgumentException(
+            "incrementalStatePath cannot be combined with resumeFromCheckpoint");
+      }
 
       return new CrawlerConfiguration(
           startPages.stream().collect(Collectors.toUnmodifiableList()),
@@ -334,11 +993,31 @@ public final class CrawlerConfiguration {
           ignoredWords.stream().map(Pattern::compile).collect(Collectors.toUnmodifiableList()),
           parallelism,
           implementationOverride,
+          maxConcurrentFetches,
+          maxConcurrentRequestsPerHost,
+          Duration.ofMillis(minDelayPerHostMillis),
+          visitedUrlMode,
+          bloomFilterExpectedUrls,
+          bloomFilterFalsePositiveRate,
           maxDepth,
           Duration.ofSeconds(timeoutSeconds),
           popularWordCount,
           profileOutputPath,
-          resultPath);
+          resultPath,
+          checkpointPath,
+          Duration.ofSeconds(checkpointIntervalSeconds),
+          resumeFromCheckpoint,
+          pageCachePath,
+          parseCacheMaxBytes,
+          incrementalStatePath,
+          parserMode,
+          maxPageBytes,
+          maxCrawlBytes,
+          crawlOrder,
+          priorityDepthWeight,
+          priorityInLinkWeight,
+          priorityHostQuota,
+          Collections.unmodifiableMap(new LinkedHashMap<>(priorityUrlWeights)));
     }
   }
 }
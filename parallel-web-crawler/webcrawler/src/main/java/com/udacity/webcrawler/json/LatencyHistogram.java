@@ -0,0 +1,184 @@
+package com.udacity.webcrawler.json;
+
+/**
+ * Data class summarizing how long a step of the crawl took for each page, such as downloading it.
+ *
+ * <p>All times are in milliseconds. Percentiles are approximate: each one is exact to within a few
+ * percent of its value, which is enough to tell a slow tail apart from a slow average.
+ */
+public final class LatencyHistogram {
+
+  private static final LatencyHistogram EMPTY = new Builder().build();
+
+  private final long count;
+  private final double minMillis;
+  private final double meanMillis;
+  private final double maxMillis;
+  private final double p50Millis;
+  private final double p90Millis;
+  private final double p99Millis;
+  private final double p999Millis;
+
+  private LatencyHistogram(Builder builder) {
+    this.count = builder.count;
+    this.minMillis = toMillis(builder.minNanos);
+    this.meanMillis = toMillis(builder.meanNanos);
+    this.maxMillis = toMillis(builder.maxNanos);
+    this.p50Millis = toMillis(builder.p50Nanos);
+    this.p90Millis = toMillis(builder.p90Nanos);
+    this.p99Millis = toMillis(builder.p99Nanos);
+    this.p999Millis = toMillis(builder.p999Nanos);
+  }
+
+  /**
+   * Returns a histogram without any pages.
+   */
+  public static LatencyHistogram empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns the number of pages that were timed.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the shortest time, or 0 if no page was timed.
+   */
+  public double getMinMillis() {
+    return minMillis;
+  }
+
+  /**
+   * Returns the average time, or 0 if no page was timed.
+   */
+  public double getMeanMillis() {
+    return meanMillis;
+  }
+
+  /**
+   * Returns the longest time, or 0 if no page was timed.
+   */
+  public double getMaxMillis() {
+    return maxMillis;
+  }
+
+  /**
+   * Returns the time that half of the pages took at most.
+   */
+  public double getP50Millis() {
+    return p50Millis;
+  }
+
+  /**
+   * Returns the time that 90% of the pages took at most.
+   */
+  public double getP90Millis() {
+    return p90Millis;
+  }
+
+  /**
+   * Returns the time that 99% of the pages took at most.
+   */
+  public double getP99Millis() {
+    return p99Millis;
+  }
+
+  /**
+   * Returns the time that 99.9% of the pages took at most.
+   */
+  public double getP999Millis() {
+    return p999Millis;
+  }
+
+  private static double toMillis(double nanos) {
+    return nanos / 1_000_000;
+  }
+
+  /**
+   * A builder class for constructing {@link LatencyHistogram}s from times in nanoseconds.
+   */
+  public static final class Builder {
+    private long count;
+    private long minNanos;
+    private double meanNanos;
+    private long maxNanos;
+    private long p50Nanos;
+    private long p90Nanos;
+    private long p99Nanos;
+    private long p999Nanos;
+
+    /**
+     * Sets the number of pages that were timed. See {@link #getCount()}.
+     */
+    public Builder setCount(long count) {
+      this.count = count;
+      return this;
+    }
+
+    /**
+     * Sets the shortest time. See {@link #getMinMillis()}.
+     */
+    public Builder setMinNanos(long minNanos) {
+      this.minNanos = minNanos;
+      return this;
+    }
+
+    /**
+     * Sets the average time. See {@link #getMeanMillis()}.
+     */
+    public Builder setMeanNanos(double meanNanos) {
+      this.meanNanos = meanNanos;
+      return this;
+    }
+
+    /**
+     * Sets the longest time. See {@link #getMaxMillis()}.
+     */
+    public Builder setMaxNanos(long maxNanos) {
+      this.maxNanos = maxNanos;
+      return this;
+    }
+
+    /**
+     * Sets the median time. See {@link #getP50Millis()}.
+     */
+    public Builder setP50Nanos(long p50Nanos) {
+      this.p50Nanos = p50Nanos;
+      return this;
+    }
+
+    /**
+     * Sets the 90th percentile. See {@link #getP90Millis()}.
+     */
+    public Builder setP90Nanos(long p90Nanos) {
+      this.p90Nanos = p90Nanos;
+      return this;
+    }
+
+    /**
+     * Sets the 99th percentile. See {@link #getP99Millis()}.
+     */
+    public Builder setP99Nanos(long p99Nanos) {
+      this.p99Nanos = p99Nanos;
+      return this;
+    }
+
+    /**
+     * Sets the 99.9th percentile. See {@link #getP999Millis()}.
+     */
+    public Builder setP999Nanos(long p999Nanos) {
+      this.p999Nanos = p999Nanos;
+      return this;
+    }
+
+    /**
+     * Constructs a {@link LatencyHistogram} from this builder.
+     */
+    public LatencyHistogram build() {
+      return new LatencyHistogram(this);
+    }
+  }
+}
@@ -1,12 +1,14 @@
 package com.udacity.webcrawler.main;
 
 import com.google.inject.Guice;
+import com.google.inject.Injector;
 import com.udacity.webcrawler.WebCrawler;
 import com.udacity.webcrawler.WebCrawlerModule;
 import com.udacity.webcrawler.json.ConfigurationLoader;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlResultWriter;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageCache;
 import com.udacity.webcrawler.profiler.Profiler;
 import com.udacity.webcrawler.profiler.ProfilerModule;
 
@@ -33,9 +35,14 @@ public final class WebCrawlerMain {
   private Profiler profiler;
 
   private void run() throws Exception {
-    Guice.createInjector(new WebCrawlerModule(config), new ProfilerModule()).injectMembers(this);
+    Injector injector = Guice.createInjector(new WebCrawlerModule(config), new ProfilerModule());
+    injector.injectMembers(this);
 
-    CrawlResult result = crawler.crawl(config.getStartPages());
+    // The page cache stays open for every crawl of the injector, and this is the only one.
+    CrawlResult result;
+    try (PageCache pageCache = injector.getInstance(PageCache.class)) {
+      result = crawler.crawl(config.getStartPages());
+    }
     CrawlResultWriter resultWriter = new CrawlResultWriter(result);
 
     String resultPath = config.getResultPath();
@@ -65,12 +72,17 @@ public final class WebCrawlerMain {
   }
 
   public static void main(String[] args) throws Exception {
-    if (args.length != 1) {
-      System.out.println("Usage: WebCrawlerMain [starting-url]");
+    boolean resume = args.length == 2 && args[1].equals("--resume");
+    if (args.length != 1 && !resume) {
+      System.out.println("Usage: WebCrawlerMain [starting-url] [--resume]");
       return;
     }
 
     CrawlerConfiguration config = new ConfigurationLoader(Path.of(args[0])).load();
+    if (resume) {
+      // Continue from the checkpoint saved by an earlier run of the same crawl, if there is one.
+      config = config.toBuilder().setResumeFromCheckpoint(true).build();
+    }
     new WebCrawlerMain(config).run();
   }
 }
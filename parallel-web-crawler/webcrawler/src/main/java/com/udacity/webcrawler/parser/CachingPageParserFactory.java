@@ -0,0 +1,88 @@
+package com.udacity.webcrawler.parser;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link PageParserFactory} decorator whose parsers skip parsing pages whose content has not
+ * changed since they were last parsed.
+ *
+ * <p>The returned parsers always download the page, since that is the only way to tell whether it
+ * changed. If the downloaded bytes have the same digest as the ones a cached result was parsed
+ * from, that result is returned without running Jsoup or the tokenizer at all. Together with the
+ * {@link PageCache}, an unchanged page then costs a {@code 304} response and a digest.
+ *
+ * <p>Only pages with a cached result are downloaded in full before they are parsed, since their
+ * digest has to be known first. Other pages are parsed as they are read, streaming mode and the
+ * {@link FetchBudget} limits included, so the delegate has to work out their digest on the way, as
+ * in {@link PageParserFactoryImpl#digestingContent()}. Results without a digest are not cached.
+ */
+final class CachingPageParserFactory implements PageParserFactory {
+
+  private final PageParserFactory delegate;
+  private final ParseResultCache cache;
+
+  CachingPageParserFactory(PageParserFactory delegate, ParseResultCache cache) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.cache = Objects.requireNonNull(cache);
+  }
+
+  @Override
+  public PageParser get(String url) {
+    return new CachingPageParser(url, delegate.get(url));
+  }
+
+  @Override
+  public PageParser get(String url, Instant deadline) {
+    return new CachingPageParser(url, delegate.get(url, deadline));
+  }
+
+  @Override
+  public PageParser get(String url, Instant deadline, FetchBudget.Totals budget) {
+    return new CachingPageParser(url, delegate.get(url, deadline, budget));
+  }
+
+  private final class CachingPageParser implements PageParser {
+    private final String url;
+    private final PageParser delegate;
+
+    private CachingPageParser(String url, PageParser delegate) {
+      this.url = url;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Result parse() {
+      if (!cache.contains(url)) {
+        // Nothing to compare the content with, so parse it as it is read.
+        Result result = delegate.parse();
+        if (result.getContentDigest() != null) {
+          cache.put(url, result.getContentDigest(), result);
+        }
+        return result;
+      }
+      // The content has to be in hand to look it up, so download it in full first.
+      return parse(delegate.fetch().toCompletableFuture().join());
+    }
+
+    @Override
+    public CompletionStage<Content> fetch() {
+      return delegate.fetch();
+    }
+
+    @Override
+    public Result parse(Content content) {
+      if (content.isNone()) {
+        return delegate.parse(content);
+      }
+      String digest = content.digest();
+      Result result = cache.get(url, digest);
+      if (result == null) {
+        result = delegate.parse(content);
+        cache.put(url, digest, result);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,295 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how many bytes are read from each page, and from all pages together.
+ *
+ * <p>The limits are enforced while the page is being read, so a page is never held in memory past
+ * its limit, no matter how large it really is. A page that hits a limit is cut off there and the
+ * part that was read is still parsed. Once the crawl's total budget is spent, pages are not
+ * downloaded at all anymore.
+ *
+ * <p>The per-page limit applies both to the bytes downloaded and, for compressed pages, to the
+ * decompressed bytes. The total budget counts downloaded bytes only. Instances are thread-safe and
+ * shared by all the parsers of a crawler.
+ *
+ * <p>The total budget and the counters are per crawl: {@link #startCrawl()} gives each crawl
+ * {@link Totals} of its own, which the crawl hands to its parsers, so crawls that run at the same
+ * time never spend each other's budget. Pages that are not read for a crawl share the totals of
+ * the budget itself.
+ */
+public final class FetchBudget {
+
+  private final long maxPageBytes;
+  private final long maxTotalBytes;
+  private final Totals totals = new Totals();
+
+  /**
+   * @param maxPageBytes  the most bytes read from one page, or 0 for no limit.
+   * @param maxTotalBytes the most bytes downloaded from all pages together, or 0 for no limit.
+   */
+  FetchBudget(long maxPageBytes, long maxTotalBytes) {
+    if (maxPageBytes < 0 || maxTotalBytes < 0) {
+      throw new IllegalArgumentException("Byte limits cannot be negative");
+    }
+    this.maxPageBytes = maxPageBytes == 0 ? Long.MAX_VALUE : maxPageBytes;
+    this.maxTotalBytes = maxTotalBytes == 0 ? Long.MAX_VALUE : maxTotalBytes;
+  }
+
+  /**
+   * Returns a budget without any limits.
+   */
+  static FetchBudget unlimited() {
+    return new FetchBudget(0, 0);
+  }
+
+  /**
+   * Starts a new crawl, with the whole total budget left and all counters at zero.
+   */
+  public Totals startCrawl() {
+    return new Totals();
+  }
+
+  /**
+   * Returns the totals of the pages that are not read for a crawl.
+   */
+  Totals getTotals() {
+    return totals;
+  }
+
+  /**
+   * Returns the number of pages not read for a crawl that were cut off because they hit a limit.
+   */
+  public long getPagesTruncated() {
+    return totals.getPagesTruncated();
+  }
+
+  /**
+   * Returns the number of pages not read for a crawl that were not downloaded because the total
+   * budget was spent.
+   */
+  public long getPagesAborted() {
+    return totals.getPagesAborted();
+  }
+
+  /**
+   * Returns the number of bytes downloaded so far for pages not read for a crawl.
+   */
+  public long getBytesRead() {
+    return totals.getBytesRead();
+  }
+
+  /**
+   * Starts reading a new page that is not read for a crawl.
+   *
+   * @throws BudgetExhaustedException if the total budget is already spent. The page is counted as
+   *                                  aborted.
+   */
+  Page startPage() throws BudgetExhaustedException {
+    return totals.startPage();
+  }
+
+  /**
+   * The bytes and pages counted in one crawl, which spends the total budget. Instances are
+   * thread-safe.
+   */
+  public final class Totals {
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final LongAdder pagesTruncated = new LongAdder();
+    private final LongAdder pagesAborted = new LongAdder();
+
+    private Totals() {
+    }
+
+    /**
+     * Returns the number of pages of the crawl that were cut off because they hit a limit.
+     */
+    public long getPagesTruncated() {
+      return pagesTruncated.sum();
+    }
+
+    /**
+     * Returns the number of pages of the crawl that were not downloaded because the total budget
+     * was spent.
+     */
+    public long getPagesAborted() {
+      return pagesAborted.sum();
+    }
+
+    /**
+     * Returns the number of bytes downloaded so far in the crawl.
+     */
+    public long getBytesRead() {
+      return bytesRead.get();
+    }
+
+    /**
+     * Starts reading a new page of the crawl.
+     *
+     * @throws BudgetExhaustedException if the total budget is already spent. The page is counted
+     *                                  as aborted.
+     */
+    Page startPage() throws BudgetExhaustedException {
+      if (bytesRead.get() >= maxTotalBytes) {
+        pagesAborted.increment();
+        throw new BudgetExhaustedException();
+      }
+      return new Page(this);
+    }
+
+    /**
+     * Wraps the decompressed body of a page of the crawl that has already been downloaded, so that
+     * it ends once the page limit is hit.
+     *
+     * @param truncated whether the download of the page was cut off.
+     */
+    InputStream limitDecompressed(InputStream in, boolean truncated) {
+      Page page = new Page(this);
+      page.truncated = truncated;
+      return page.limitDecompressed(in);
+    }
+
+    /**
+     * Takes up to the given number of bytes from the total budget, and returns how many were
+     * taken.
+     */
+    private long take(long wanted) {
+      while (true) {
+        long read = bytesRead.get();
+        long granted = Math.min(wanted, maxTotalBytes - read);
+        if (granted <= 0) {
+          return 0;
+        }
+        if (bytesRead.compareAndSet(read, read + granted)) {
+          return granted;
+        }
+      }
+    }
+  }
+
+  /**
+   * Thrown instead of downloading a page once the total budget is spent.
+   */
+  static final class BudgetExhaustedException extends IOException {
+    private BudgetExhaustedException() {
+      super("The crawl byte budget is spent");
+    }
+  }
+
+  /**
+   * Tracks the bytes read from a single page. Not thread-safe.
+   */
+  final class Page {
+    private final Totals crawl;
+    private long downloaded;
+    private boolean truncated;
+
+    private Page(Totals crawl) {
+      this.crawl = crawl;
+    }
+
+    /**
+     * Returns how many of the next {@code wanted} downloaded bytes may be kept. If that is fewer
+     * than wanted, the page is cut off and counted as truncated.
+     */
+    long allow(long wanted) {
+      long granted = crawl.take(Math.min(wanted, maxPageBytes - downloaded));
+      downloaded += granted;
+      if (granted < wanted) {
+        truncate();
+      }
+      return granted;
+    }
+
+    /**
+     * Returns whether the page was cut off.
+     */
+    boolean isTruncated() {
+      return truncated;
+    }
+
+    /**
+     * Wraps the downloaded body of the page, so that it ends once a limit is hit.
+     */
+    InputStream limitDownload(InputStream in) {
+      return new FilterInputStream(in) {
+        @Override
+        public int read() throws IOException {
+          byte[] b = new byte[1];
+          return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          if (truncated) {
+            return -1;
+          }
+          int n = super.read(b, off, len);
+          if (n <= 0) {
+            return n;
+          }
+          int granted = (int) allow(n);
+          return granted == 0 ? -1 : granted;
+        }
+      };
+    }
+
+    /**
+     * Wraps the decompressed body of the page, so that it ends once the page limit is hit.
+     *
+     * <p>A compressed body that was cut off ends in the middle of the compressed data, which is
+     * treated as the end of the page instead of an error.
+     */
+    InputStream limitDecompressed(InputStream in) {
+      return new FilterInputStream(in) {
+        private long decompressed;
+
+        @Override
+        public int read() throws IOException {
+          byte[] b = new byte[1];
+          return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          if (decompressed >= maxPageBytes) {
+            // Only count the page as truncated if there is more to it.
+            if (readOrEnd(new byte[1], 0, 1) != -1) {
+              truncate();
+            }
+            return -1;
+          }
+          int n = readOrEnd(b, off, (int) Math.min(len, maxPageBytes - decompressed));
+          if (n > 0) {
+            decompressed += n;
+          }
+          return n;
+        }
+
+        private int readOrEnd(byte[] b, int off, int len) throws IOException {
+          try {
+            return super.read(b, off, len);
+          } catch (EOFException e) {
+            if (truncated) {
+              return -1;
+            }
+            throw e;
+          }
+        }
+      };
+    }
+
+    private void truncate() {
+      if (!truncated) {
+        truncated = true;
+        crawl.pagesTruncated.increment();
+      }
+    }
+  }
+}
@@ -0,0 +1,455 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.parser.Parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads HTML from a stream and reports its text and hyperlinks as they go by, without building a
+ * document tree.
+ *
+ * <p>Jsoup keeps the whole DOM of a page in memory until it has been parsed, which for very large
+ * pages is many times the size of the page itself. This lexer only holds a small read buffer, the
+ * tag it is currently reading and the text since the last whitespace, so its memory use stays the
+ * same no matter how large the page is.
+ *
+ * <p>It reports the same text as the text nodes of a Jsoup document: text between two tags is
+ * reported separately, entities are decoded, comments are skipped, the contents of {@code <script>}
+ * and {@code <style>} elements are dropped, and other raw text elements are reported as they are.
+ * Only the {@code href} attributes of start tags are read; all other attributes are skipped. The
+ * lexer does not repair the structure of the page, which does not matter for counting words and
+ * collecting links.
+ *
+ * <p>Instances are not thread-safe; use one lexer per page.
+ */
+final class HtmlStreamLexer {
+
+  /**
+   * Receives what the lexer finds in the page, in document order.
+   */
+  interface Handler {
+
+    /**
+     * Called with a run of text, with entities decoded. A long run of text may be split into
+     * several calls, but only at whitespace.
+     */
+    void text(String text);
+
+    /**
+     * Called for every start tag that has an {@code href} attribute.
+     *
+     * @param name the lower-case name of the tag.
+     * @param href the value of the attribute, with entities decoded.
+     */
+    void href(String name, String href);
+  }
+
+  /**
+   * How many bytes at the start of a page are searched for a {@code <meta>} charset, same as Jsoup.
+   */
+  private static final int CHARSET_PEEK_BYTES = 5 * 1024;
+
+  /**
+   * How much text is collected before it is handed to the handler at the last whitespace.
+   */
+  private static final int TEXT_FLUSH_CHARS = 4 * 1024;
+
+  private static final Pattern META_CHARSET = Pattern.compile(
+      "(?i)<meta[^>]+charset\\s*=\\s*[\"']?\\s*([^\\s\"'/>;]+)");
+
+  /**
+   * Elements whose contents are data rather than text, and are never reported.
+   */
+  private static final Set<String> DATA_ELEMENTS = Set.of("script", "style");
+
+  /**
+   * Elements whose contents are reported as text, but without decoding entities or reading tags.
+   */
+  private static final Set<String> RAW_TEXT_ELEMENTS =
+      Set.of("iframe", "noembed", "noframes", "xmp");
+
+  /**
+   * Elements whose contents are reported as text with entities decoded, but without reading tags.
+   */
+  private static final Set<String> ESCAPABLE_RAW_TEXT_ELEMENTS = Set.of("textarea", "title");
+
+  private final Handler handler;
+  private final char[] buffer = new char[8 * 1024];
+  private final StringBuilder text = new StringBuilder();
+  private final StringBuilder tag = new StringBuilder();
+  private Reader reader;
+  private int position;
+  private int limit;
+  private int pushedBack = -1;
+
+  HtmlStreamLexer(Handler handler) {
+    this.handler = Objects.requireNonNull(handler);
+  }
+
+  /**
+   * Reads the whole page from the given stream.
+   *
+   * @param charset the charset of the page, or {@code null} to detect it from a byte order mark or
+   *                a {@code <meta>} tag near the start of the page, falling back to UTF-8.
+   */
+  void lex(InputStream in, String charset) throws IOException {
+    lex(decode(in, charset));
+  }
+
+  /**
+   * Reads the whole page from the given reader.
+   */
+  void lex(Reader reader) throws IOException {
+    this.reader = reader;
+    int c;
+    while ((c = next()) != -1) {
+      if (c == '<') {
+        markup();
+      } else {
+        appendText(c);
+      }
+    }
+    flushText();
+  }
+
+  /**
+   * Reads whatever follows a {@code '<'} in text.
+   */
+  private void markup() throws IOException {
+    int c = next();
+    if (isAsciiLetter(c)) {
+      flushText();
+      startTag(c);
+    } else if (c == '/') {
+      int first = next();
+      if (isAsciiLetter(first)) {
+        flushText();
+        readName(first);
+        skipPast('>');
+      } else if (first == '>') {
+        // "</>" is dropped entirely.
+        flushText();
+      } else if (first == -1) {
+        appendText('<');
+        appendText('/');
+      } else {
+        flushText();
+        pushBack(first);
+        skipPast('>');
+      }
+    } else if (c == '!') {
+      flushText();
+      comment();
+    } else if (c == '?') {
+      flushText();
+      skipPast('>');
+    } else {
+      // A '<' that does not start a tag is just text.
+      appendText('<');
+      pushBack(c);
+    }
+  }
+
+  /**
+   * Skips a comment, a doctype or any other {@code <!...>} markup.
+   */
+  private void comment() throws IOException {
+    int c = next();
+    if (c != '-') {
+      pushBack(c);
+      skipPast('>');
+      return;
+    }
+    c = next();
+    if (c != '-') {
+      pushBack(c);
+      skipPast('>');
+      return;
+    }
+    // A comment ends at the first "-->", or right away for "<!-->" and "<!--->".
+    int dashes = 2;
+    while ((c = next()) != -1) {
+      if (c == '>' && dashes >= 2) {
+        return;
+      }
+      dashes = c == '-' ? dashes + 1 : 0;
+    }
+  }
+
+  private void startTag(int first) throws IOException {
+    String name = readName(first);
+    String href = null;
+    int c;
+    while (true) {
+      c = skipWhitespace(next());
+      if (c == '/') {
+        continue;
+      }
+      if (c == '>' || c == -1) {
+        break;
+      }
+      String attribute = readAttributeName(c);
+      c = skipWhitespace(next());
+      if (c != '=') {
+        pushBack(c);
+        if (attribute.equals("href") && href == null) {
+          href = "";
+        }
+        continue;
+      }
+      boolean wanted = attribute.equals("href") && href == null;
+      String value = readAttributeValue(skipWhitespace(next()), wanted);
+      if (wanted) {
+        href = value;
+      }
+    }
+
+    if (href != null) {
+      handler.href(name, Parser.unescapeEntities(href, true));
+    }
+    if (c == -1) {
+      return;
+    }
+    if (DATA_ELEMENTS.contains(name)) {
+      rawText(name, false, false);
+    } else if (RAW_TEXT_ELEMENTS.contains(name)) {
+      rawText(name, true, false);
+    } else if (ESCAPABLE_RAW_TEXT_ELEMENTS.contains(name)) {
+      rawText(name, true, true);
+    } else if (name.equals("plaintext")) {
+      // Everything after a <plaintext> tag is text, up to the end of the page.
+      while ((c = next()) != -1) {
+        appendText(c, false);
+      }
+      flushText(false);
+    }
+  }
+
+  /**
+   * Reads the contents of an element that cannot hold other tags, up to its end tag.
+   *
+   * @param report whether to report the contents as text.
+   * @param decode whether to decode entities in the contents.
+   */
+  private void rawText(String name, boolean report, boolean decode) throws IOException {
+    int c;
+    while ((c = next()) != -1) {
+      if (c != '<') {
+        if (report) {
+          appendText(c, decode);
+        }
+        continue;
+      }
+      c = next();
+      if (c != '/') {
+        if (report) {
+          appendText('<', decode);
+        }
+        pushBack(c);
+        continue;
+      }
+      // Check for the end tag, and report whatever was read as text if it is not.
+      int matched = 0;
+      while (matched < name.length()) {
+        c = next();
+        if (c == -1 || Character.toLowerCase((char) c) != name.charAt(matched)) {
+          break;
+        }
+        matched++;
+      }
+      if (matched == name.length()) {
+        c = next();
+        if (c == '>' || c == '/' || c == -1 || isWhitespace(c)) {
+          if (report) {
+            flushText(decode);
+          }
+          if (c != '>' && c != -1) {
+            skipPast('>');
+          }
+          return;
+        }
+      }
+      if (report) {
+        appendText('<', decode);
+        appendText('/', decode);
+        for (int i = 0; i < matched; i++) {
+          appendText(name.charAt(i), decode);
+        }
+      }
+      pushBack(c);
+    }
+    if (report) {
+      flushText(decode);
+    }
+  }
+
+  private String readName(int first) throws IOException {
+    tag.setLength(0);
+    int c = first;
+    while (c != -1 && c != '>' && c != '/' && !isWhitespace(c)) {
+      tag.append(Character.toLowerCase((char) c));
+      c = next();
+    }
+    pushBack(c);
+    return tag.toString();
+  }
+
+  private String readAttributeName(int first) throws IOException {
+    tag.setLength(0);
+    int c = first;
+    do {
+      tag.append(Character.toLowerCase((char) c));
+      c = next();
+    } while (c != -1 && c != '>' && c != '/' && c != '=' && !isWhitespace(c));
+    pushBack(c);
+    return tag.toString();
+  }
+
+  /**
+   * Reads an attribute value starting with the given character. The value is only kept if it is
+   * wanted, so that long attribute values that are not needed are never held in memory.
+   */
+  private String readAttributeValue(int first, boolean wanted) throws IOException {
+    tag.setLength(0);
+    int c = first;
+    if (c == '"' || c == '\'') {
+      int quote = c;
+      while ((c = next()) != -1 && c != quote) {
+        if (wanted) {
+          tag.append((char) c);
+        }
+      }
+    } else {
+      while (c != -1 && c != '>' && !isWhitespace(c)) {
+        if (wanted) {
+          tag.append((char) c);
+        }
+        c = next();
+      }
+      pushBack(c);
+    }
+    return wanted ? tag.toString() : null;
+  }
+
+  private int skipWhitespace(int c) throws IOException {
+    while (c != -1 && isWhitespace(c)) {
+      c = next();
+    }
+    return c;
+  }
+
+  private void skipPast(char end) throws IOException {
+    int c;
+    do {
+      c = next();
+    } while (c != -1 && c != end);
+  }
+
+  private void appendText(int c) {
+    appendText(c, true);
+  }
+
+  private void appendText(int c, boolean decode) {
+    text.append((char) c);
+    if (text.length() >= TEXT_FLUSH_CHARS && isWhitespace(c)) {
+      // Whitespace cannot be part of an entity, so everything before it can be decoded on its own.
+      emit(text.toString(), decode);
+      text.setLength(0);
+    }
+  }
+
+  private void flushText() {
+    flushText(true);
+  }
+
+  private void flushText(boolean decode) {
+    if (text.length() > 0) {
+      emit(text.toString(), decode);
+      text.setLength(0);
+    }
+  }
+
+  private void emit(String raw, boolean decode) {
+    String decoded = decode && raw.indexOf('&') >= 0 ? Parser.unescapeEntities(raw, false) : raw;
+    // Jsoup normalizes non-breaking spaces in text nodes to plain spaces, so words are split there.
+    handler.text(decoded.replace('\u00a0', ' '));
+  }
+
+  private int next() throws IOException {
+    if (pushedBack != -1) {
+      int c = pushedBack;
+      pushedBack = -1;
+      return c;
+    }
+    if (position == limit) {
+      limit = reader.read(buffer);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return -1;
+      }
+    }
+    return buffer[position++];
+  }
+
+  private void pushBack(int c) {
+    pushedBack = c;
+  }
+
+  private static boolean isAsciiLetter(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * Returns a reader for the given page, detecting its charset if it is not given.
+   */
+  private static Reader decode(InputStream in, String charset) throws IOException {
+    if (charset != null) {
+      return new InputStreamReader(in, charset);
+    }
+    BufferedInputStream buffered = new BufferedInputStream(in, CHARSET_PEEK_BYTES);
+    buffered.mark(CHARSET_PEEK_BYTES);
+    byte[] start = buffered.readNBytes(CHARSET_PEEK_BYTES);
+    buffered.reset();
+
+    if (start.length >= 3
+        && (start[0] & 0xff) == 0xef && (start[1] & 0xff) == 0xbb && (start[2] & 0xff) == 0xbf) {
+      buffered.skip(3);
+      return new InputStreamReader(buffered, StandardCharsets.UTF_8);
+    }
+    if (start.length >= 2 && (start[0] & 0xff) == 0xfe && (start[1] & 0xff) == 0xff) {
+      return new InputStreamReader(buffered, StandardCharsets.UTF_16);
+    }
+    if (start.length >= 2 && (start[0] & 0xff) == 0xff && (start[1] & 0xff) == 0xfe) {
+      return new InputStreamReader(buffered, StandardCharsets.UTF_16);
+    }
+
+    Matcher matcher = META_CHARSET.matcher(new String(start, StandardCharsets.ISO_8859_1));
+    if (matcher.find()) {
+      String name = matcher.group(1);
+      try {
+        if (Charset.isSupported(name)) {
+          return new InputStreamReader(buffered, Charset.forName(name.toUpperCase(Locale.ROOT)));
+        }
+      } catch (IllegalArgumentException e) {
+        // Not a valid charset name; fall back to the default.
+      }
+    }
+    return new InputStreamReader(buffered, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,190 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The ignored word patterns from the crawler configuration, compiled so that checking a word does
+ * not cost one regex match per pattern.
+ *
+ * <p>Patterns that can only ever match one exact word (such as {@code "the"} or {@code "^don't$"})
+ * are stored in a hash set and checked in constant time. The remaining patterns are combined into a
+ * single alternation, so each word goes through one regex match at most.
+ *
+ * <p>Instances are immutable and can be shared by all page parsers. The per-word checks are done
+ * through a {@link WordMatcher}, which is not thread-safe.
+ */
+final class IgnoredWordFilter {
+
+  private static final IgnoredWordFilter EMPTY = new IgnoredWordFilter(new String[0], List.of());
+
+  private final String[] literals;
+  private final int literalMask;
+  private final List<Pattern> patterns;
+
+  private IgnoredWordFilter(String[] literals, List<Pattern> patterns) {
+    this.literals = literals;
+    this.literalMask = literals.length - 1;
+    this.patterns = patterns;
+  }
+
+  /**
+   * Compiles the given ignored word patterns. A word is ignored if it fully matches any of them.
+   */
+  static IgnoredWordFilter compile(List<Pattern> ignoredWords) {
+    List<String> literals = new ArrayList<>();
+    List<String> combinable = new ArrayList<>();
+    List<Pattern> patterns = new ArrayList<>();
+    for (Pattern pattern : ignoredWords) {
+      String literal = literalOf(pattern);
+      if (literal != null) {
+        literals.add(literal);
+      } else if (isCombinable(pattern)) {
+        combinable.add("(?:" + pattern.pattern() + ")");
+      } else {
+        // Flags and group numbers would change meaning inside the combined pattern, and group names
+        // could clash.
+        patterns.add(pattern);
+      }
+    }
+    if (literals.isEmpty() && combinable.isEmpty() && patterns.isEmpty()) {
+      return EMPTY;
+    }
+    if (!combinable.isEmpty()) {
+      patterns.add(0, Pattern.compile(String.join("|", combinable)));
+    }
+    return new IgnoredWordFilter(buildLiteralTable(literals), List.copyOf(patterns));
+  }
+
+  private static boolean isCombinable(Pattern pattern) {
+    return pattern.flags() == 0
+        && !PatternSyntax.hasBackReference(pattern.pattern())
+        && !PatternSyntax.hasNamedGroup(pattern.pattern());
+  }
+
+  /**
+   * Returns whether no word is ever ignored by this filter.
+   */
+  boolean isEmpty() {
+    return literals.length == 0 && patterns.isEmpty();
+  }
+
+  /**
+   * Creates a new {@link WordMatcher} for checking words against this filter on a single thread.
+   */
+  WordMatcher newMatcher() {
+    return new WordMatcher();
+  }
+
+  /**
+   * Checks words against an {@link IgnoredWordFilter}, reusing the same regex {@link Matcher}s for
+   * every word.
+   */
+  final class WordMatcher {
+    private final Matcher[] matchers = new Matcher[patterns.size()];
+
+    private WordMatcher() {
+      for (int i = 0; i < matchers.length; i++) {
+        matchers[i] = patterns.get(i).matcher("");
+      }
+    }
+
+    /**
+     * Returns whether the given word should be ignored.
+     */
+    boolean isIgnored(CharSequence word) {
+      if (containsLiteral(word)) {
+        return true;
+      }
+      for (Matcher matcher : matchers) {
+        if (matcher.reset(word).matches()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private boolean containsLiteral(CharSequence word) {
+    if (literals.length == 0) {
+      return false;
+    }
+    for (int i = hash(word) & literalMask; literals[i] != null; i = (i + 1) & literalMask) {
+      if (literals[i].contentEquals(word)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Builds an open addressing hash table of the given words, so they can be looked up with a
+   * {@link CharSequence} without first copying it into a {@link String}.
+   */
+  private static String[] buildLiteralTable(List<String> words) {
+    if (words.isEmpty()) {
+      return new String[0];
+    }
+    // Keep the table at most half full, so probe sequences stay short.
+    String[] table = new String[Integer.highestOneBit(words.size() * 4 - 1)];
+    int mask = table.length - 1;
+    for (String word : words) {
+      int i = hash(word) & mask;
+      while (table[i] != null && !table[i].equals(word)) {
+        i = (i + 1) & mask;
+      }
+      table[i] = word;
+    }
+    return table;
+  }
+
+  /**
+   * Same as {@link String#hashCode()}, with the high bits spread into the low ones.
+   */
+  private static int hash(CharSequence word) {
+    int h = 0;
+    for (int i = 0; i < word.length(); i++) {
+      h = 31 * h + word.charAt(i);
+    }
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the only word the given pattern can fully match, or {@code null} if the pattern can
+   * match more than one word.
+   */
+  private static String literalOf(Pattern pattern) {
+    if (pattern.flags() != 0) {
+      return null;
+    }
+    String regex = pattern.pattern();
+    int start = 0;
+    int end = regex.length();
+    // Anchors are redundant, since ignored words must match the whole word anyway.
+    if (start < end && regex.charAt(start) == '^') {
+      start++;
+    }
+    if (end > start && regex.charAt(end - 1) == '$' && !PatternSyntax.isEscaped(regex, end - 1)) {
+      end--;
+    }
+
+    StringBuilder literal = new StringBuilder(end - start);
+    for (int i = start; i < end; i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        // Only escaped punctuation, like "\.", stands for itself. "\d", "\Q" and friends do not.
+        if (i + 1 >= end || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          return null;
+        }
+        literal.append(regex.charAt(++i));
+      } else if (PatternSyntax.isMetacharacter(c)) {
+        return null;
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.toString();
+  }
+}
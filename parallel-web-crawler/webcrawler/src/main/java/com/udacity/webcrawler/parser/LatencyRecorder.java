@@ -0,0 +1,112 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.json.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records times into a histogram with buckets that grow along with the times they hold, the way
+ * HdrHistogram does.
+ *
+ * <p>Times below {@link #SUB_BUCKETS} nanoseconds get a bucket each. Above that, every power of two
+ * is split into {@code SUB_BUCKETS / 2} equal buckets, so a bucket is never wider than about 3% of
+ * the times in it. That covers every possible {@code long} in under 2,000 buckets.
+ *
+ * <p>Recording never takes a lock: it increments one bucket of an {@link AtomicLongArray} and a few
+ * striped counters, so threads recording at the same time rarely contend.
+ */
+final class LatencyRecorder {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  // The largest shift is for values with the highest bit of a positive long set.
+  private static final int BUCKETS = (62 - (SUB_BUCKET_BITS - 1) + 2) * HALF_SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records the given time. Negative times, which a clock that went backwards could produce, are
+   * recorded as 0.
+   */
+  void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(indexOf(value));
+    total.add(value);
+    min.accumulate(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Returns a summary of the times recorded so far.
+   *
+   * <p>Times that are recorded while the summary is taken may or may not be included in it.
+   */
+  LatencyHistogram snapshot() {
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    if (count == 0) {
+      return LatencyHistogram.empty();
+    }
+    long maxNanos = max.get();
+    return new LatencyHistogram.Builder()
+        .setCount(count)
+        .setMinNanos(min.get())
+        .setMeanNanos((double) total.sum() / count)
+        .setMaxNanos(maxNanos)
+        .setP50Nanos(percentile(snapshot, count, 50, maxNanos))
+        .setP90Nanos(percentile(snapshot, count, 90, maxNanos))
+        .setP99Nanos(percentile(snapshot, count, 99, maxNanos))
+        .setP999Nanos(percentile(snapshot, count, 99.9, maxNanos))
+        .build();
+  }
+
+  /**
+   * Returns the highest time in the bucket that holds the given percentile, which is never more
+   * than the longest time that was recorded.
+   */
+  private static long percentile(long[] counts, long count, double percentile, long maxNanos) {
+    long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(highestValueAt(i), maxNanos);
+      }
+    }
+    return maxNanos;
+  }
+
+  /**
+   * Returns the bucket that holds the given non-negative value.
+   */
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+    return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  /**
+   * Returns the highest value that goes into the bucket at the given index.
+   */
+  static long highestValueAt(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / HALF_SUB_BUCKETS - 1;
+    long subBucket = index - (long) shift * HALF_SUB_BUCKETS;
+    // For the last bucket, this wraps around to exactly Long.MAX_VALUE.
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,304 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A disk-backed cache of downloaded pages, used to revalidate pages with conditional requests
+ * instead of downloading them again on every crawl.
+ *
+ * <p>Page bodies are stored in files named after the SHA-256 digest of their bytes, so identical
+ * pages are only stored once. An index maps each URL to the digest of its last downloaded body,
+ * along with the {@code ETag} and {@code Last-Modified} validators the server sent for it. The
+ * index is an append-only log that is replayed when the cache is opened, so each update costs a
+ * single small write and a crash can at most lose the last entry.
+ *
+ * <p>Opening the cache also compacts it: the log is rewritten with only the latest entry per URL,
+ * and bodies that no entry refers to anymore are deleted. The log stays open for appending until
+ * the cache is {@link #close() closed}.
+ *
+ * <p>Instances are thread-safe.
+ */
+public final class PageCache implements Closeable {
+
+  private static final int MAGIC = 0x57435043;
+  private static final int VERSION = 1;
+  private static final int MAX_STRING_BYTES = 1 << 20;
+
+  private static final PageCache DISABLED = new PageCache();
+
+  private final Path bodies;
+  private final Map<String, Entry> index = new ConcurrentHashMap<>();
+  private final DataOutputStream log;
+  private volatile boolean closed;
+
+  private PageCache() {
+    this.bodies = null;
+    this.log = null;
+  }
+
+  private PageCache(Path directory) throws IOException {
+    this.bodies = directory.resolve("bodies");
+    Files.createDirectories(bodies);
+    Path indexPath = directory.resolve("index");
+    if (Files.exists(indexPath)) {
+      readIndex(indexPath);
+    }
+    // Rewrite the log with only the latest entry per URL, so it does not keep growing across
+    // crawls.
+    Path temp = directory.resolve("index.tmp");
+    try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      for (Entry entry : index.values()) {
+        entry.writeTo(out);
+      }
+    }
+    Files.move(
+        temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    deleteUnreferencedBodies();
+    this.log = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(indexPath, StandardOpenOption.APPEND)));
+  }
+
+  /**
+   * Opens the cache stored in the given directory, creating it if it does not exist yet.
+   */
+  static PageCache open(Path directory) throws IOException {
+    return new PageCache(directory);
+  }
+
+  /**
+   * Returns a cache that never stores anything.
+   */
+  static PageCache disabled() {
+    return DISABLED;
+  }
+
+  boolean isEnabled() {
+    return bodies != null;
+  }
+
+  /**
+   * Returns the cached entry for the given URL, or {@code null} if the URL is not cached.
+   */
+  Entry get(String url) {
+    return isEnabled() ? index.get(url) : null;
+  }
+
+  /**
+   * Returns the stored body of the given entry, or {@code null} if it is no longer on disk.
+   */
+  byte[] readBody(Entry entry) throws IOException {
+    try {
+      return Files.readAllBytes(bodies.resolve(entry.digest));
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Stores the body that was downloaded from the given URL, along with its validators. Once the
+   * cache is closed, nothing is stored anymore.
+   *
+   * @param etag         the {@code ETag} header of the response, or an empty string.
+   * @param lastModified the {@code Last-Modified} header of the response, or an empty string.
+   */
+  void put(String url, String etag, String lastModified, PageParser.Content content)
+      throws IOException {
+    if (!isEnabled() || closed) {
+      return;
+    }
+    String digest = content.digest();
+    Path body = bodies.resolve(digest);
+    if (!Files.exists(body)) {
+      Path temp = Files.createTempFile(bodies, digest, ".tmp");
+      try {
+        Files.write(temp, content.getBody());
+        Files.move(temp, body, StandardCopyOption.ATOMIC_MOVE);
+      } catch (FileAlreadyExistsException e) {
+        // Another thread stored the same body first.
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    }
+
+    Entry entry = new Entry(
+        url,
+        etag,
+        lastModified,
+        digest,
+        content.isGzipped(),
+        content.getCharset() == null ? "" : content.getCharset(),
+        content.getBaseUri());
+    synchronized (log) {
+      if (closed) {
+        return;
+      }
+      entry.writeTo(log);
+      log.flush();
+      index.put(url, entry);
+    }
+  }
+
+  /**
+   * Closes the index log. The entries stored so far stay in the cache for the next time it is
+   * opened.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!isEnabled()) {
+      return;
+    }
+    synchronized (log) {
+      if (!closed) {
+        closed = true;
+        log.close();
+      }
+    }
+  }
+
+  /**
+   * Deletes the bodies that no entry refers to, because their URLs have been stored with another
+   * body since, along with temporary files left behind by a crash.
+   */
+  private void deleteUnreferencedBodies() throws IOException {
+    Set<String> referenced = new HashSet<>();
+    for (Entry entry : index.values()) {
+      referenced.add(entry.digest);
+    }
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(bodies)) {
+      for (Path file : files) {
+        if (!referenced.contains(file.getFileName().toString())) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  private void readIndex(Path indexPath) throws IOException {
+    try (DataInputStream in =
+             new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException(indexPath + " is not a page cache index");
+      }
+      while (true) {
+        Entry entry = Entry.readFrom(in);
+        index.put(entry.url, entry);
+      }
+    } catch (EOFException e) {
+      // The end of the log. A record cut off by a crash is dropped.
+    }
+  }
+
+  /**
+   * What the cache knows about a single URL.
+   */
+  static final class Entry {
+    private final String url;
+    private final String etag;
+    private final String lastModified;
+    private final String digest;
+    private final boolean gzipped;
+    private final String charset;
+    private final String baseUri;
+
+    private Entry(
+        String url,
+        String etag,
+        String lastModified,
+        String digest,
+        boolean gzipped,
+        String charset,
+        String baseUri) {
+      this.url = Objects.requireNonNull(url);
+      this.etag = Objects.requireNonNull(etag);
+      this.lastModified = Objects.requireNonNull(lastModified);
+      this.digest = Objects.requireNonNull(digest);
+      this.gzipped = gzipped;
+      this.charset = Objects.requireNonNull(charset);
+      this.baseUri = Objects.requireNonNull(baseUri);
+    }
+
+    /**
+     * Returns the {@code ETag} of the cached body, or an empty string if the server sent none.
+     */
+    String getEtag() {
+      return etag;
+    }
+
+    /**
+     * Returns the {@code Last-Modified} date of the cached body, or an empty string if the server
+     * sent none.
+     */
+    String getLastModified() {
+      return lastModified;
+    }
+
+    /**
+     * Returns the page content for the given stored body of this entry.
+     */
+    PageParser.Content toContent(byte[] body) {
+      return new PageParser.Content(body, gzipped, charset.isEmpty() ? null : charset, baseUri);
+    }
+
+    private void writeTo(DataOutput out) throws IOException {
+      writeString(out, url);
+      writeString(out, etag);
+      writeString(out, lastModified);
+      writeString(out, digest);
+      out.writeBoolean(gzipped);
+      writeString(out, charset);
+      writeString(out, baseUri);
+    }
+
+    private static Entry readFrom(DataInput in) throws IOException {
+      return new Entry(
+          readString(in),
+          readString(in),
+          readString(in),
+          readString(in),
+          in.readBoolean(),
+          readString(in),
+          readString(in));
+    }
+
+    private static void writeString(DataOutput out, String s) throws IOException {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+      int length = in.readInt();
+      if (length < 0 || length > MAX_STRING_BYTES) {
+        // Garbage from a record that was cut off while it was being written.
+        throw new EOFException();
+      }
+      byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+}
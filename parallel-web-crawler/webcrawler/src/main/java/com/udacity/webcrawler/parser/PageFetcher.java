@@ -0,0 +1,494 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.jsoup.helper.HttpConnection;
+import org.jsoup.nodes.Document;
+
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Downloads remote web pages with a single shared {@link HttpClient}, and parses them with Jsoup.
+ *
+ * <p>Unlike {@link Jsoup#parse(java.net.URL, int)}, which opens a new connection for every page,
+ * the shared client keeps connections alive between requests and multiplexes requests to the same
+ * host over one HTTP/2 connection where the server supports it. This saves a TCP and TLS handshake
+ * for most pages of a same-host crawl.
+ *
+ * <p>{@link #fetch(URI, Duration)} streams the response body straight into the Jsoup parser, so it
+ * is never buffered in full. {@link #fetchAsync(URI, Duration)} instead downloads the body without
+ * blocking the calling thread, and leaves the parsing to {@link #parse(PageParser.Content)}, so it
+ * can be done on another thread. Instances are thread-safe.
+ *
+ * <p>If a {@link PageCache} is enabled, every downloaded page that came with an {@code ETag} or
+ * {@code Last-Modified} header is stored in it. The next request for the same URL is made
+ * conditional on those validators, and if the server answers {@code 304 Not Modified}, the stored
+ * body is used instead of downloading it again.
+ *
+ * <p>Every download is limited by the shared {@link FetchBudget}, so that a single huge page cannot
+ * fill up the heap. Its timeout covers the whole download, not just the wait for the response, so
+ * a slow server cannot keep a download going past it.
+ */
+final class PageFetcher {
+
+  private static final Pattern CHARSET = Pattern.compile("(?i)\\bcharset=\\s*\"?([^\\s;\"]+)");
+
+  private final HttpClient client;
+  private final PageCache cache;
+  private final FetchBudget.Totals budget;
+  private final PageStats stats;
+  private final ScheduledThreadPoolExecutor timeouts;
+
+  /**
+   * Reads the body of a downloaded page.
+   */
+  interface BodyReader<T> {
+
+    /**
+     * @param body    the decompressed bytes of the page.
+     * @param charset the charset of the page, or {@code null} to detect it from the page.
+     * @param baseUri the URI that relative links on the page are resolved against.
+     */
+    T read(InputStream body, String charset, String baseUri) throws IOException;
+  }
+
+  @Inject
+  PageFetcher(HttpClient client, PageCache cache, FetchBudget budget, PageStats stats) {
+    this.client = Objects.requireNonNull(client);
+    this.cache = Objects.requireNonNull(cache);
+    this.budget = budget.getTotals();
+    this.stats = Objects.requireNonNull(stats);
+    this.timeouts = newTimeoutScheduler();
+  }
+
+  private PageFetcher(PageFetcher fetcher, FetchBudget.Totals budget) {
+    this.client = fetcher.client;
+    this.cache = fetcher.cache;
+    this.budget = Objects.requireNonNull(budget);
+    this.stats = fetcher.stats;
+    this.timeouts = fetcher.timeouts;
+  }
+
+  /**
+   * Returns a fetcher like this one, whose downloads spend the byte budget of the given crawl
+   * instead of the budget's own totals.
+   */
+  PageFetcher forCrawl(FetchBudget.Totals budget) {
+    return new PageFetcher(this, budget);
+  }
+
+  /**
+   * Returns the scheduler that ends downloads once their time is up.
+   *
+   * <p>Every timer is cancelled as soon as its download is done, and cancelled timers are removed
+   * from the queue right away, so a finished page is not kept in memory until its deadline. The
+   * thread stops when no download is running.
+   */
+  private static ScheduledThreadPoolExecutor newTimeoutScheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "page-fetch-timeout");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    scheduler.setKeepAliveTime(1, TimeUnit.SECONDS);
+    scheduler.allowCoreThreadTimeOut(true);
+    return scheduler;
+  }
+
+  /**
+   * Returns the number of download timers that are still waiting for their deadline.
+   */
+  int getPendingTimeouts() {
+    return timeouts.getQueue().size();
+  }
+
+  /**
+   * Returns the budget that limits how much is read from each page.
+   */
+  FetchBudget.Totals getBudget() {
+    return budget;
+  }
+
+  /**
+   * Returns where the time spent on each page is recorded.
+   */
+  PageStats getStats() {
+    return stats;
+  }
+
+  /**
+   * Downloads and parses the page at the given {@link URI}.
+   *
+   * <p>Like Jsoup's own fetching, redirects are followed, relative links are resolved against the
+   * final URL of the page, and responses with an error status or a content type that is not HTML,
+   * XML or text are rejected.
+   *
+   * @param uri     the URI of the page, which must use the {@code http} or {@code https} scheme.
+   * @param timeout how long the whole download may take. Once it is over, the download is cancelled
+   *                and an {@link HttpTimeoutException} is thrown.
+   * @throws IOException if the page could not be downloaded or is not a web page.
+   */
+  Document fetch(URI uri, Duration timeout) throws IOException {
+    return fetch(uri, timeout, stats.startPage(), null, Jsoup::parse);
+  }
+
+  /**
+   * Downloads the page at the given {@link URI}, and streams its body into the given reader.
+   *
+   * @param timing times the page. The time spent waiting for the page counts as fetch time, but
+   *               nothing is recorded until the caller finishes the page.
+   * @param digest if not {@code null}, is updated with the body as it was received, the same bytes
+   *               {@link PageParser.Content#digest()} is worked out from.
+   * @see #fetch(URI, Duration)
+   */
+  <T> T fetch(
+      URI uri, Duration timeout, PageStats.Page timing, MessageDigest digest, BodyReader<T> reader)
+      throws IOException {
+    if (timeout.isNegative() || timeout.isZero()) {
+      throw timedOut(uri);
+    }
+    if (cache.isEnabled()) {
+      // The body has to be held in memory anyway to be stored, so there is nothing to stream.
+      try {
+        PageParser.Content content = fetchAsync(uri, timeout).get();
+        timing.downloaded();
+        if (digest != null) {
+          digest.update(content.getBody());
+        }
+        return read(content, reader);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while fetching " + uri);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException("Could not fetch " + uri, e.getCause());
+      }
+    }
+
+    long deadline = System.nanoTime() + timeout.toNanos();
+    FetchBudget.Page page = budget.startPage();
+    HttpResponse<InputStream> response;
+    try {
+      response = client.send(
+          newRequest(uri, timeout).build(), HttpResponse.BodyHandlers.ofInputStream());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while fetching " + uri);
+    }
+
+    // The request timeout only covers the wait for the response. Closing the body once the time is
+    // up also ends a read that is blocked waiting for more of it.
+    InputStream body = response.body();
+    AtomicBoolean expired = new AtomicBoolean();
+    ScheduledFuture<?> timer = timeouts.schedule(() -> {
+      expired.set(true);
+      try {
+        body.close();
+      } catch (IOException e) {
+        // The reading thread gets an exception either way.
+      }
+    }, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    try (body) {
+      checkResponse(uri, response);
+      InputStream in = page.limitDownload(timing.timeDownload(body));
+      if (digest != null) {
+        in = new DigestInputStream(in, digest);
+      }
+      if (isGzipped(response)) {
+        in = page.limitDecompressed(new GZIPInputStream(in));
+      }
+      return reader.read(in, charsetOf(response), response.uri().toString());
+    } catch (IOException e) {
+      if (expired.get()) {
+        throw (IOException) timedOut(uri).initCause(e);
+      }
+      throw e;
+    } finally {
+      timer.cancel(false);
+    }
+  }
+
+  /**
+   * Downloads the page at the given {@link URI} without blocking the calling thread.
+   *
+   * <p>The returned future fails with an {@link IOException} in the same cases where
+   * {@link #fetch(URI, Duration)} would throw one.
+   */
+  CompletableFuture<PageParser.Content> fetchAsync(URI uri, Duration timeout) {
+    if (timeout.isNegative() || timeout.isZero()) {
+      return CompletableFuture.failedFuture(timedOut(uri));
+    }
+    long deadline = System.nanoTime() + timeout.toNanos();
+    FetchBudget.Page page;
+    try {
+      page = budget.startPage();
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return fetchAsync(uri, deadline, cache.get(uri.toString()), page);
+  }
+
+  /**
+   * @param deadline the {@link System#nanoTime()} by which the download must be done.
+   */
+  private CompletableFuture<PageParser.Content> fetchAsync(
+      URI uri, long deadline, PageCache.Entry cached, FetchBudget.Page page) {
+    long remaining = deadline - System.nanoTime();
+    if (remaining <= 0) {
+      return CompletableFuture.failedFuture(timedOut(uri));
+    }
+    HttpRequest.Builder request = newRequest(uri, Duration.ofNanos(remaining));
+    if (cached != null) {
+      if (!cached.getEtag().isEmpty()) {
+        request.header("If-None-Match", cached.getEtag());
+      }
+      if (!cached.getLastModified().isEmpty()) {
+        request.header("If-Modified-Since", cached.getLastModified());
+      }
+    }
+    CompletableFuture<HttpResponse<byte[]>> exchange =
+        client.sendAsync(request.build(), info -> isDownloadable(info)
+            ? new LimitedBodySubscriber(page)
+            : HttpResponse.BodySubscribers.replacing(new byte[0]));
+    // The request timeout only covers the wait for the response. Cancelling the exchange once the
+    // time is up also aborts a body that is still being downloaded.
+    ScheduledFuture<?> timer =
+        timeouts.schedule(() -> exchange.cancel(true), remaining, TimeUnit.NANOSECONDS);
+    return exchange
+        .whenComplete((response, e) -> timer.cancel(false))
+        .exceptionally(e -> {
+          // The cancellation may reach this stage wrapped, depending on which thread noticed it.
+          Throwable cause = e instanceof CompletionException && e.getCause() != null
+              ? e.getCause()
+              : e;
+          if (cause instanceof CancellationException) {
+            throw new CompletionException(timedOut(uri));
+          }
+          throw e instanceof CompletionException
+              ? (CompletionException) e
+              : new CompletionException(e);
+        })
+        .thenCompose(response -> {
+          try {
+            if (cached != null && response.statusCode() == 304) {
+              byte[] body = cache.readBody(cached);
+              if (body != null) {
+                return CompletableFuture.completedFuture(cached.toContent(body));
+              }
+              // The stored body is gone, so download the page in full.
+              return fetchAsync(uri, deadline, null, page);
+            }
+            checkResponse(uri, response);
+            PageParser.Content content = new PageParser.Content(
+                response.body(),
+                isGzipped(response),
+                charsetOf(response),
+                response.uri().toString(),
+                page.isTruncated());
+            store(uri, response, content);
+            return CompletableFuture.completedFuture(content);
+          } catch (IOException e) {
+            throw new CompletionException(e);
+          }
+        });
+  }
+
+  /**
+   * Stores the given downloaded page in the cache, if the server allows it and sent a validator
+   * that it can later be revalidated with.
+   */
+  private void store(URI uri, HttpResponse<?> response, PageParser.Content content)
+      throws IOException {
+    if (!cache.isEnabled() || content.isTruncated()) {
+      return;
+    }
+    String etag = response.headers().firstValue("ETag").orElse("");
+    String lastModified = response.headers().firstValue("Last-Modified").orElse("");
+    boolean noStore = response.headers()
+        .allValues("Cache-Control")
+        .stream()
+        .anyMatch(value -> value.toLowerCase(Locale.ROOT).contains("no-store"));
+    if (noStore || (etag.isEmpty() && lastModified.isEmpty())) {
+      return;
+    }
+    cache.put(uri.toString(), etag, lastModified, content);
+  }
+
+  /**
+   * Parses a page downloaded by {@link #fetchAsync(URI, Duration)}.
+   */
+  Document parse(PageParser.Content content) throws IOException {
+    return read(content, Jsoup::parse);
+  }
+
+  /**
+   * Passes a page downloaded by {@link #fetchAsync(URI, Duration)} to the given reader.
+   */
+  <T> T read(PageParser.Content content, BodyReader<T> reader) throws IOException {
+    InputStream in = new ByteArrayInputStream(content.getBody());
+    if (content.isGzipped()) {
+      in = budget.limitDecompressed(new GZIPInputStream(in), content.isTruncated());
+    }
+    return reader.read(in, content.getCharset(), content.getBaseUri());
+  }
+
+  private static HttpRequest.Builder newRequest(URI uri, Duration timeout) {
+    return HttpRequest.newBuilder(uri)
+        .timeout(timeout)
+        .header("User-Agent", HttpConnection.DEFAULT_UA)
+        .header("Accept-Encoding", "gzip")
+        .GET();
+  }
+
+  private static HttpTimeoutException timedOut(URI uri) {
+    return new HttpTimeoutException("Timed out fetching " + uri);
+  }
+
+  private static void checkResponse(URI uri, HttpResponse<?> response) throws IOException {
+    if (response.statusCode() < 200 || response.statusCode() >= 300) {
+      throw new IOException("HTTP status " + response.statusCode() + " fetching " + uri);
+    }
+    String contentType = contentTypeOf(response);
+    if (!isParseable(contentType)) {
+      throw new UnsupportedMimeTypeException(
+          "Unhandled content type", contentType, uri.toString());
+    }
+  }
+
+  private static String contentTypeOf(HttpResponse<?> response) {
+    return response.headers().firstValue("Content-Type").orElse("");
+  }
+
+  /**
+   * Returns whether the body of a response with the given status and headers will be read. The
+   * bodies of error responses and of content types that cannot be parsed are never downloaded.
+   */
+  private static boolean isDownloadable(HttpResponse.ResponseInfo info) {
+    return info.statusCode() >= 200
+        && info.statusCode() < 300
+        && isParseable(info.headers().firstValue("Content-Type").orElse(""));
+  }
+
+  private static boolean isGzipped(HttpResponse<?> response) {
+    return response.headers()
+        .firstValue("Content-Encoding")
+        .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+        .orElse(false);
+  }
+
+  /**
+   * Returns whether Jsoup can parse a response with the given content type. A missing content type
+   * is assumed to be HTML.
+   */
+  private static boolean isParseable(String contentType) {
+    if (contentType.isEmpty()) {
+      return true;
+    }
+    String type = contentType.toLowerCase(Locale.ROOT);
+    return type.startsWith("text/") || type.startsWith("application/xml") || type.contains("+xml");
+  }
+
+  /**
+   * Returns the charset named in the content type of the given response, or {@code null} to let
+   * Jsoup detect it from the page itself.
+   */
+  private static String charsetOf(HttpResponse<?> response) {
+    Matcher matcher = CHARSET.matcher(contentTypeOf(response));
+    if (!matcher.find()) {
+      return null;
+    }
+    String charset = matcher.group(1);
+    try {
+      return Charset.isSupported(charset) ? charset : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Collects a response body into a byte array, up to the limits of a {@link FetchBudget}. Once a
+   * limit is hit, the rest of the body is not downloaded at all.
+   */
+  private static final class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+    private final FetchBudget.Page page;
+    private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private Flow.Subscription subscription;
+
+    private LimitedBodySubscriber(FetchBudget.Page page) {
+      this.page = page;
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+      return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+      for (ByteBuffer buffer : buffers) {
+        int wanted = buffer.remaining();
+        int granted = (int) page.allow(wanted);
+        byte[] chunk = new byte[granted];
+        buffer.get(chunk);
+        bytes.writeBytes(chunk);
+        if (granted < wanted) {
+          subscription.cancel();
+          body.complete(bytes.toByteArray());
+          return;
+        }
+      }
+      subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      body.complete(bytes.toByteArray());
+    }
+  }
+}
@@ -2,6 +2,8 @@ package com.udacity.webcrawler.parser;
 
 import com.udacity.webcrawler.profiler.Profiled;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -9,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 /**
@@ -22,16 +25,148 @@ public interface PageParser {
   @Profiled
   Result parse();
 
+  /**
+   * Downloads the HTML page without parsing it, so that the download and the CPU-bound parsing can
+   * run on different threads.
+   *
+   * <p>Remote pages are downloaded without blocking the calling thread. The returned stage never
+   * completes exceptionally; a page that could not be downloaded yields {@link Content} that parses
+   * to an empty {@link Result}, the same as {@link #parse()} would return.
+   */
+  @Profiled
+  CompletionStage<Content> fetch();
+
+  /**
+   * Processes HTML that was downloaded by {@link #fetch()} and returns a {@link Result} for the
+   * page.
+   */
+  @Profiled
+  Result parse(Content content);
+
+  /**
+   * The raw bytes of a downloaded HTML page, along with what is needed to decode them.
+   */
+  final class Content {
+    private static final Content NONE = new Content(null, false, null, "");
+
+    private final byte[] body;
+    private final boolean gzipped;
+    private final String charset;
+    private final String baseUri;
+    private final boolean truncated;
+    private String digest;
+
+    /**
+     * @param body    the bytes of the page, as they were received.
+     * @param gzipped whether the body is gzip compressed.
+     * @param charset the charset of the page, or {@code null} to detect it from the page.
+     * @param baseUri the URI that relative links on the page are resolved against.
+     */
+    Content(byte[] body, boolean gzipped, String charset, String baseUri) {
+      this(body, gzipped, charset, baseUri, false);
+    }
+
+    /**
+     * @param truncated whether the body was cut off by a {@link FetchBudget} limit.
+     */
+    Content(byte[] body, boolean gzipped, String charset, String baseUri, boolean truncated) {
+      this.body = body;
+      this.gzipped = gzipped;
+      this.charset = charset;
+      this.baseUri = Objects.requireNonNull(baseUri);
+      this.truncated = truncated;
+    }
+
+    /**
+     * Returns the content of a page that could not be downloaded.
+     */
+    static Content none() {
+      return NONE;
+    }
+
+    /**
+     * Returns whether the page could not be downloaded.
+     */
+    public boolean isNone() {
+      return body == null;
+    }
+
+    byte[] getBody() {
+      return body;
+    }
+
+    boolean isGzipped() {
+      return gzipped;
+    }
+
+    String getCharset() {
+      return charset;
+    }
+
+    String getBaseUri() {
+      return baseUri;
+    }
+
+    boolean isTruncated() {
+      return truncated;
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 digest of the body, which identifies the content of the page.
+     */
+    public String digest() {
+      if (digest == null) {
+        MessageDigest sha = newDigest();
+        sha.update(body == null ? new byte[0] : body);
+        digest = toHex(sha);
+      }
+      return digest;
+    }
+
+    /**
+     * Returns a new SHA-256 {@link MessageDigest}, for digesting a body the same way as
+     * {@link #digest()} while it is being read.
+     */
+    static MessageDigest newDigest() {
+      try {
+        return MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("SHA-256 is always available", e);
+      }
+    }
+
+    /**
+     * Completes the given digest, and returns it hex encoded like {@link #digest()}.
+     */
+    static String toHex(MessageDigest sha) {
+      StringBuilder hex = new StringBuilder(64);
+      for (byte b : sha.digest()) {
+        hex.append(Character.forDigit((b >> 4) & 0xf, 16))
+            .append(Character.forDigit(b & 0xf, 16));
+      }
+      return hex.toString();
+    }
+
+    /**
+     * Returns the number of bytes that were downloaded.
+     */
+    public int size() {
+      return body == null ? 0 : body.length;
+    }
+  }
+
   /**
    * A data class that represents the outcome of processing an HTML page.
    */
   final class Result {
     private final Map<String, Integer> wordCounts;
     private final List<String> links;
+    private final String contentDigest;
 
-    private Result(Map<String, Integer> wordCounts, List<String> links) {
+    private Result(Map<String, Integer> wordCounts, List<String> links, String contentDigest) {
       this.wordCounts = Objects.requireNonNull(wordCounts);
       this.links = Objects.requireNonNull(links);
+      this.contentDigest = contentDigest;
     }
 
     /**
@@ -49,6 +184,22 @@ public interface PageParser {
       return links;
     }
 
+    /**
+     * Returns the {@link Content#digest()} of the page this result was parsed from, or
+     * {@code null} if it was not worked out. Only parsers that feed a parse result cache work it
+     * out, while the page is read.
+     */
+    String getContentDigest() {
+      return contentDigest;
+    }
+
+    /**
+     * Returns this result, along with the digest of the page it was parsed from.
+     */
+    Result withContentDigest(String contentDigest) {
+      return new Result(wordCounts, links, Objects.requireNonNull(contentDigest));
+    }
+
     /**
      * A builder class for the parse {@link Result}. This builder keeps track of word counts and
      * hyperlinks encountered while parsing a web page.
@@ -65,6 +216,14 @@ public interface PageParser {
         wordCounts.compute(word, (k, v) -> (v == null) ? 1 : v + 1);
       }
 
+      /**
+       * Adds the given number of occurrences of the given word.
+       */
+      void addWord(String word, int count) {
+        Objects.requireNonNull(word);
+        wordCounts.merge(word, count, Integer::sum);
+      }
+
       /**
        * Adds the given link, if it has not already been added.
        */
@@ -78,7 +237,8 @@ public interface PageParser {
       Result build() {
         return new Result(
             Collections.unmodifiableMap(wordCounts),
-            links.stream().collect(Collectors.toUnmodifiableList()));
+            links.stream().collect(Collectors.toUnmodifiableList()),
+            null);
       }
     }
   }
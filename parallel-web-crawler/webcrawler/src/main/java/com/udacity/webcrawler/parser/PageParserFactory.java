@@ -1,5 +1,7 @@
 package com.udacity.webcrawler.parser;
 
+import java.time.Instant;
+
 /**
  * A factory interface that supplies instances of {@link PageParser} that have common parameters
  * (such as the timeout and ignored words) preset from injected values.
@@ -10,4 +12,25 @@ public interface PageParserFactory {
    * Returns a {@link PageParser} that parses the given {@link url}.
    */
   PageParser get(String url);
+
+  /**
+   * Returns a {@link PageParser} that parses the given {@link url}, and gives up downloading it
+   * once the given deadline has passed.
+   *
+   * <p>The default implementation ignores the deadline, and is only meant for factories that do
+   * not download anything themselves.
+   */
+  default PageParser get(String url, Instant deadline) {
+    return get(url);
+  }
+
+  /**
+   * Returns a {@link PageParser} like {@link #get(String, Instant)}, whose downloads count against
+   * the given byte budget of a crawl, from {@link FetchBudget#startCrawl()}.
+   *
+   * <p>The default implementation ignores the budget, for the same reason as above.
+   */
+  default PageParser get(String url, Instant deadline, FetchBudget.Totals budget) {
+    return get(url, deadline);
+  }
 }
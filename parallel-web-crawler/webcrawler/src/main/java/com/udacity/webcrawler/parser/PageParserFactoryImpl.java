@@ -4,7 +4,9 @@ import com.udacity.webcrawler.Timeout;
 import com.udacity.webcrawler.profiler.Profiler;
 
 import javax.inject.Inject;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -12,23 +14,78 @@ import java.util.regex.Pattern;
  * A {@link PageParserFactory} that wraps its returned instances using a {@link Profiler}.
  */
 final class PageParserFactoryImpl implements PageParserFactory {
+  private final Clock clock;
   private final Profiler profiler;
-  private final List<Pattern> ignoredWords;
+  private final IgnoredWordFilter ignoredWords;
   private final Duration timeout;
+  private final PageFetcher fetcher;
+  private final boolean streaming;
+  private final boolean digestContent;
 
   @Inject
   PageParserFactoryImpl(
-      Profiler profiler, @IgnoredWords List<Pattern> ignoredWords, @Timeout Duration timeout) {
+      Clock clock,
+      Profiler profiler,
+      @IgnoredWords List<Pattern> ignoredWords,
+      @Timeout Duration timeout,
+      PageFetcher fetcher,
+      @ParserMode String parserMode) {
+    this.clock = clock;
     this.profiler = profiler;
-    this.ignoredWords = ignoredWords;
+    // Compile the patterns once here, so every parser shares the same filter.
+    this.ignoredWords = IgnoredWordFilter.compile(ignoredWords);
     this.timeout = timeout;
+    this.fetcher = fetcher;
+    this.streaming = parserMode.equals("streaming");
+    this.digestContent = false;
+  }
+
+  private PageParserFactoryImpl(PageParserFactoryImpl factory, boolean digestContent) {
+    this.clock = factory.clock;
+    this.profiler = factory.profiler;
+    this.ignoredWords = factory.ignoredWords;
+    this.timeout = factory.timeout;
+    this.fetcher = factory.fetcher;
+    this.streaming = factory.streaming;
+    this.digestContent = digestContent;
+  }
+
+  /**
+   * Returns a factory like this one, whose parsers also work out the digest of every page they
+   * parse, so that a {@link CachingPageParserFactory} can cache the result.
+   */
+  PageParserFactoryImpl digestingContent() {
+    return new PageParserFactoryImpl(this, true);
   }
 
   @Override
   public PageParser get(String url) {
-    // Here, parse the page with the initial timeout (instead of just the time remaining), to make
-    // the download less likely to fail. Deadline enforcement should happen at a higher level.
-    PageParser delegate = new PageParserImpl(url, timeout, ignoredWords);
+    return newParser(url, timeout, fetcher);
+  }
+
+  @Override
+  public PageParser get(String url, Instant deadline) {
+    return newParser(url, timeLeft(deadline), fetcher);
+  }
+
+  @Override
+  public PageParser get(String url, Instant deadline, FetchBudget.Totals budget) {
+    return newParser(url, timeLeft(deadline), fetcher.forCrawl(budget));
+  }
+
+  /**
+   * Returns how long a download may take that has to be done by the given deadline.
+   */
+  private Duration timeLeft(Instant deadline) {
+    // Only give the download the time that is left, so that pages started just before the deadline
+    // do not keep the crawl going for up to another full timeout.
+    Duration remaining = Duration.between(clock.instant(), deadline);
+    return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+  }
+
+  private PageParser newParser(String url, Duration timeout, PageFetcher fetcher) {
+    PageParser delegate =
+        new PageParserImpl(url, timeout, ignoredWords, fetcher, streaming, digestContent);
     return profiler.wrap(PageParser.class, delegate);
   }
 }
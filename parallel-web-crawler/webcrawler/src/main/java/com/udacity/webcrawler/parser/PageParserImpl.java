@@ -1,6 +1,7 @@
 package com.udacity.webcrawler.parser;
 
 import org.jsoup.Jsoup;
+import org.jsoup.internal.StringUtil;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
@@ -15,80 +16,201 @@ import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.Duration;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 /**
  * An implementation of {@link PageParser} that works for both local and remote files.
  *
  * <p>HTML parsing is done using the JSoup library. This class is a thin adapter around JSoup's API,
  * since JSoup does not know how to correctly resolve relative hyperlinks when parsing HTML from
- * local files.
+ * local files. Remote pages are downloaded by a shared {@link PageFetcher}.
+ *
+ * <p>In streaming mode, pages are not parsed into a Jsoup {@link Document} at all. Their text and
+ * links are read straight from the downloaded bytes by an {@link HtmlStreamLexer} instead, so the
+ * memory used per page does not grow with the size of the page.
  */
 final class PageParserImpl implements PageParser {
 
-  /**
-   * Matches whitespace characters.
-   */
-  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
-
-  /**
-   * Matches non-word characters.
-   */
-  private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
-
   private final String uri;
   private final Duration timeout;
-  private final List<Pattern> ignoredWords;
+  private final IgnoredWordFilter ignoredWords;
+  private final PageFetcher fetcher;
+  private final boolean streaming;
+  private final boolean digestContent;
 
   /**
    * Constructs a page parser with the given parameters.
    *
    * @param uri          the URI of the file to parse.
-   * @param timeout      the timeout to use when downloading the file, if it is remote.
-   * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
+   * @param timeout      how long downloading the file may take, if it is remote.
+   * @param ignoredWords filter of which words should be ignored by the {@link #parse()} method.
+   * @param fetcher      the fetcher used to download the file, if it is remote.
+   * @param streaming    whether to read the page with an {@link HtmlStreamLexer} instead of
+   *                     parsing it into a {@link Document}.
    */
-  PageParserImpl(String uri, Duration timeout, List<Pattern> ignoredWords) {
+  PageParserImpl(
+      String uri,
+      Duration timeout,
+      IgnoredWordFilter ignoredWords,
+      PageFetcher fetcher,
+      boolean streaming) {
+    this(uri, timeout, ignoredWords, fetcher, streaming, false);
+  }
+
+  /**
+   * Constructs a page parser with the given parameters.
+   *
+   * @param digestContent whether {@link #parse()} should also work out the
+   *                      {@link Content#digest()} of the page while reading it, for a
+   *                      {@link ParseResultCache} to store the result under.
+   * @see #PageParserImpl(String, Duration, IgnoredWordFilter, PageFetcher, boolean)
+   */
+  PageParserImpl(
+      String uri,
+      Duration timeout,
+      IgnoredWordFilter ignoredWords,
+      PageFetcher fetcher,
+      boolean streaming,
+      boolean digestContent) {
     this.uri = Objects.requireNonNull(uri);
     this.timeout = Objects.requireNonNull(timeout);
     this.ignoredWords = Objects.requireNonNull(ignoredWords);
+    this.fetcher = Objects.requireNonNull(fetcher);
+    this.streaming = streaming;
+    this.digestContent = digestContent;
   }
 
   @Override
   public Result parse() {
+    PageStats stats = fetcher.getStats();
     URI parsedUri;
     try {
       parsedUri = new URI(uri);
     } catch (URISyntaxException e) {
       // Invalid link; ignore
+      stats.recordError(e);
       return new Result.Builder().build();
     }
 
+    PageStats.Page timing = stats.startPage();
+    MessageDigest digest = digestContent ? Content.newDigest() : null;
+    if (streaming) {
+      try {
+        Result result = stream(parsedUri, timing, digest);
+        timing.finished();
+        return withDigest(result, digest);
+      } catch (Exception e) {
+        // Invalid URIs and content types Jsoup does not handle are skipped, as below.
+        timing.failed(e);
+        return new Result.Builder().build();
+      }
+    }
+
     Document document;
     try {
-      document = parseDocument(parsedUri);
+      document = parseDocument(parsedUri, timing, digest);
     } catch (Exception e) {
       // There are multiple exceptions that can be encountered due to invalid URIs or Mimetypes that
       // Jsoup does not handle. There is not much we can do here.
+      timing.failed(e);
       return new Result.Builder().build();
     }
+    Result result = process(parsedUri, document);
+    timing.finished();
+    return withDigest(result, digest);
+  }
+
+  /**
+   * Adds the digest of the page that was read to the given result, if it was worked out.
+   */
+  private static Result withDigest(Result result, MessageDigest digest) {
+    return digest == null ? result : result.withContentDigest(Content.toHex(digest));
+  }
 
+  @Override
+  public CompletionStage<Content> fetch() {
+    PageStats stats = fetcher.getStats();
+    URI parsedUri;
+    try {
+      parsedUri = new URI(uri);
+    } catch (URISyntaxException e) {
+      stats.recordError(e);
+      return CompletableFuture.completedFuture(Content.none());
+    }
+
+    long start = System.nanoTime();
+    if (isLocalFile(parsedUri)) {
+      // Local files are only used for testing, and are quick enough to read right away. They get an
+      // empty base URI for the same reason as in parseDocument().
+      try {
+        Content content = readLocalFile(parsedUri);
+        stats.recordFetch(System.nanoTime() - start);
+        return CompletableFuture.completedFuture(content);
+      } catch (Exception e) {
+        stats.recordFetch(System.nanoTime() - start);
+        stats.recordError(e);
+        return CompletableFuture.completedFuture(Content.none());
+      }
+    }
+    try {
+      return fetcher.fetchAsync(parsedUri, timeout).handle((content, e) -> {
+        stats.recordFetch(System.nanoTime() - start);
+        if (e != null) {
+          stats.recordError(e);
+          return Content.none();
+        }
+        return content;
+      });
+    } catch (Exception e) {
+      // Thrown right away for URIs the HTTP client cannot send a request to at all.
+      stats.recordError(e);
+      return CompletableFuture.completedFuture(Content.none());
+    }
+  }
+
+  @Override
+  public Result parse(Content content) {
+    if (content.isNone()) {
+      // Why the page could not be downloaded was already recorded by fetch().
+      return new Result.Builder().build();
+    }
+    long start = System.nanoTime();
+    Result result;
+    try {
+      URI parsedUri = new URI(uri);
+      if (streaming) {
+        result = fetcher.read(
+            content, (in, charset, baseUri) -> lex(parsedUri, in, charset, baseUri));
+      } else {
+        result = process(parsedUri, fetcher.parse(content));
+      }
+    } catch (Exception e) {
+      fetcher.getStats().recordError(e);
+      return new Result.Builder().build();
+    }
+    fetcher.getStats().recordParse(System.nanoTime() - start);
+    return result;
+  }
+
+  /**
+   * Gathers the words and hyperlinks of the given parsed page.
+   */
+  private Result process(URI parsedUri, Document document) {
     Result.Builder builder = new Result.Builder();
+    WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+    Consumer<String> addWord = builder::addWord;
     // Do a single pass over the document to gather all hyperlinks and text.
     document.traverse(new NodeVisitor() {
       @Override
       public void head(Node node, int depth) {
         if (node instanceof TextNode) {
-          String text = ((TextNode) node).text().strip();
-          Arrays.stream(WHITESPACE.split(text))
-              .filter(s -> !s.isBlank())
-              .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
-              .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
-              .map(String::toLowerCase)
-              .forEach(builder::addWord);
+          tokenizer.tokenize(((TextNode) node).text(), addWord);
           return;
         }
         if (!(node instanceof Element)) {
@@ -99,10 +221,7 @@ final class PageParserImpl implements PageParser {
           return;
         }
         if (isLocalFile(parsedUri)) {
-          // If this is a local file, add the base path back in manually, since Jsoup only knows how
-          // to resolve relative hrefs if the base URI is a "real" remote URI.
-          String basePath = Path.of(parsedUri).getParent().toString();
-          builder.addLink(Path.of(basePath, element.attr("href")).toUri().toString());
+          builder.addLink(resolveLocalLink(parsedUri, element.attr("href")));
         } else {
           // Otherwise, let Jsoup resolve the absolute URL for us.
           builder.addLink(element.attr("abs:href"));
@@ -116,24 +235,117 @@ final class PageParserImpl implements PageParser {
     return builder.build();
   }
 
+  /**
+   * Gathers the words and hyperlinks of the page at the given {@link URI} with an
+   * {@link HtmlStreamLexer}, which may refer to a local document or a remote web page.
+   */
+  private Result stream(URI parsedUri, PageStats.Page timing, MessageDigest digest)
+      throws IOException {
+    if (!isLocalFile(parsedUri)) {
+      return fetcher.fetch(
+          parsedUri,
+          timeout,
+          timing,
+          digest,
+          (in, charset, baseUri) -> lex(parsedUri, in, charset, baseUri));
+    }
+    // Local files get an empty base URI, for the same reason as in parseDocument().
+    try (InputStream in = openLocalFile(parsedUri, timing, digest)) {
+      return lex(parsedUri, in, StandardCharsets.UTF_8.name(), "");
+    }
+  }
+
+  /**
+   * Gathers the words and hyperlinks of the given page, without building a {@link Document}.
+   *
+   * <p>Links are resolved the same way Jsoup resolves them, including against the first
+   * {@code <base href>} of the page, except that links before that tag are resolved against the
+   * URI of the page.
+   */
+  private Result lex(URI parsedUri, InputStream in, String charset, String pageBaseUri)
+      throws IOException {
+    Result.Builder builder = new Result.Builder();
+    WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+    Consumer<String> addWord = builder::addWord;
+    new HtmlStreamLexer(new HtmlStreamLexer.Handler() {
+      private String baseUri = pageBaseUri;
+      private boolean sawBase;
+
+      @Override
+      public void text(String text) {
+        tokenizer.tokenize(text, addWord);
+      }
+
+      @Override
+      public void href(String name, String href) {
+        if (name.equals("a")) {
+          builder.addLink(isLocalFile(parsedUri)
+              ? resolveLocalLink(parsedUri, href)
+              : StringUtil.resolve(baseUri, href));
+        } else if (name.equals("base") && !sawBase) {
+          sawBase = true;
+          String resolved = StringUtil.resolve(baseUri, href);
+          if (!resolved.isEmpty()) {
+            baseUri = resolved;
+          }
+        }
+      }
+    }).lex(in, charset);
+    return builder.build();
+  }
+
+  /**
+   * Resolves a link on a local file. The base path is added back in manually, since Jsoup only
+   * knows how to resolve relative hrefs if the base URI is a "real" remote URI.
+   */
+  private static String resolveLocalLink(URI parsedUri, String href) {
+    String basePath = Path.of(parsedUri).getParent().toString();
+    return Path.of(basePath, href).toUri().toString();
+  }
+
   /**
    * Returns a Jsoup {@link Document} representation of the file at the given {@link URI}, which may
    * refer to a local document or a remote web page.
    */
-  private Document parseDocument(URI uri) throws IOException {
+  private Document parseDocument(URI uri, PageStats.Page timing, MessageDigest digest)
+      throws IOException {
     if (!isLocalFile(uri)) {
-      return Jsoup.parse(uri.toURL(), (int) timeout.toMillis());
+      return fetcher.fetch(uri, timeout, timing, digest, Jsoup::parse);
     }
 
     // Unfortunately, Jsoup.parse() has a baseUri parameter that does not work with local
     // "file://" URIs. If we want the parser to support those URIs, which are very useful for
     // testing, the work-around is to pass in an empty baseUri and manually add the base back to
     // href attributes.
-    try (InputStream in = Files.newInputStream(Path.of(uri))) {
+    try (InputStream in = openLocalFile(uri, timing, digest)) {
       return Jsoup.parse(in, StandardCharsets.UTF_8.name(), "");
     }
   }
 
+  /**
+   * Opens the local file at the given {@link URI}, limited by the same {@link FetchBudget} as
+   * remote pages, and timed like them. If {@code digest} is not {@code null}, it is updated with
+   * what is read.
+   */
+  private InputStream openLocalFile(URI uri, PageStats.Page timing, MessageDigest digest)
+      throws IOException {
+    InputStream in = fetcher.getBudget()
+        .startPage()
+        .limitDownload(timing.timeDownload(Files.newInputStream(Path.of(uri))));
+    return digest == null ? in : new DigestInputStream(in, digest);
+  }
+
+  /**
+   * Reads the local file at the given {@link URI} in full, up to the limits of the
+   * {@link FetchBudget}.
+   */
+  private Content readLocalFile(URI uri) throws IOException {
+    FetchBudget.Page page = fetcher.getBudget().startPage();
+    try (InputStream in = page.limitDownload(Files.newInputStream(Path.of(uri)))) {
+      return new Content(in.readAllBytes(), false, "UTF-8", "", page.isTruncated());
+    }
+  }
+
   /**
    * Returns true if and only if the given {@link URI} represents a local file.
    */
@@ -0,0 +1,199 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.json.LatencyHistogram;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long pages take to download and to parse, and why pages could not be read.
+ *
+ * <p>Fetch time covers connecting, waiting for the response and waiting for the body. Parse time
+ * is everything else it takes to get the words and links out of the page. When a page is streamed
+ * into the parser while it downloads, only the time spent waiting on the network counts as fetch
+ * time. Recording does not take any locks. Instances are thread-safe and shared by all the parsers
+ * of a crawler.
+ *
+ * <p>The times and errors are per crawl: {@link #startCrawl()} starts over for the next crawl.
+ * Pages that were started before that are still recorded for their own crawl.
+ */
+public final class PageStats {
+
+  private volatile Crawl crawl = new Crawl();
+
+  PageStats() {
+  }
+
+  /**
+   * Starts a new crawl, without any times or errors recorded.
+   */
+  public void startCrawl() {
+    crawl = new Crawl();
+  }
+
+  /**
+   * Returns how long pages of the current crawl took to download, including downloads that
+   * failed.
+   */
+  public LatencyHistogram getFetchLatency() {
+    return crawl.fetchLatency.snapshot();
+  }
+
+  /**
+   * Returns how long pages of the current crawl took to parse, once they were downloaded.
+   */
+  public LatencyHistogram getParseLatency() {
+    return crawl.parseLatency.snapshot();
+  }
+
+  /**
+   * Returns how many pages of the current crawl could not be read, by the simple name of the exception that stopped
+   * them, such as {@code "HttpTimeoutException"}. The map is sorted by name.
+   */
+  public Map<String, Long> getErrorCounts() {
+    Map<String, Long> counts = new TreeMap<>();
+    crawl.errors.forEach((type, count) -> counts.put(type, count.sum()));
+    return counts;
+  }
+
+  void recordFetch(long nanos) {
+    crawl.fetchLatency.record(nanos);
+  }
+
+  void recordParse(long nanos) {
+    crawl.parseLatency.record(nanos);
+  }
+
+  /**
+   * Counts a page that could not be read because of the given exception. Exceptions that only
+   * wrap the actual cause, like those of a failed future, are counted by their cause.
+   */
+  void recordError(Throwable error) {
+    crawl.recordError(error);
+  }
+
+  /**
+   * Starts timing a page that is downloaded and parsed on the calling thread.
+   */
+  Page startPage() {
+    return new Page(crawl);
+  }
+
+  /**
+   * The times and errors recorded in one crawl.
+   */
+  private static final class Crawl {
+    private final LatencyRecorder fetchLatency = new LatencyRecorder();
+    private final LatencyRecorder parseLatency = new LatencyRecorder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private void recordError(Throwable error) {
+      while ((error instanceof CompletionException || error instanceof ExecutionException)
+          && error.getCause() != null) {
+        error = error.getCause();
+      }
+      errors.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder())
+          .increment();
+    }
+  }
+
+  /**
+   * Times a single page. Not thread-safe.
+   */
+  static final class Page {
+    private final Crawl crawl;
+    private final long start = System.nanoTime();
+    private long firstRead = -1;
+    private long readNanos;
+    private long downloaded = -1;
+    private boolean done;
+
+    private Page(Crawl crawl) {
+      this.crawl = crawl;
+    }
+
+    /**
+     * Wraps the downloaded body of the page, so that the time spent waiting for it counts as fetch
+     * time. So does the time until the first read, which is spent connecting and waiting for the
+     * response.
+     */
+    InputStream timeDownload(InputStream in) {
+      return new FilterInputStream(in) {
+        @Override
+        public int read() throws IOException {
+          long readStart = startRead();
+          try {
+            return super.read();
+          } finally {
+            readNanos += System.nanoTime() - readStart;
+          }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          long readStart = startRead();
+          try {
+            return super.read(b, off, len);
+          } finally {
+            readNanos += System.nanoTime() - readStart;
+          }
+        }
+      };
+    }
+
+    private long startRead() {
+      long now = System.nanoTime();
+      if (firstRead < 0) {
+        firstRead = now;
+      }
+      return now;
+    }
+
+    /**
+     * Marks the page as downloaded in full, so that the time up to now counts as fetch time.
+     */
+    void downloaded() {
+      downloaded = System.nanoTime();
+    }
+
+    /**
+     * Records the times of a page that was parsed.
+     */
+    void finished() {
+      if (done) {
+        return;
+      }
+      done = true;
+      long end = System.nanoTime();
+      long fetch;
+      if (downloaded >= 0) {
+        fetch = downloaded - start;
+      } else if (firstRead >= 0) {
+        fetch = firstRead - start + readNanos;
+      } else {
+        fetch = end - start;
+      }
+      crawl.fetchLatency.record(fetch);
+      crawl.parseLatency.record(end - start - fetch);
+    }
+
+    /**
+     * Records the time of a page that could not be read, all of which counts as fetch time.
+     */
+    void failed(Throwable error) {
+      if (done) {
+        return;
+      }
+      done = true;
+      crawl.fetchLatency.record(System.nanoTime() - start);
+      crawl.recordError(error);
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package com.udacity.webcrawler.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A size-bounded, least recently used cache of parse {@link PageParser.Result}s, keyed by URL and
+ * checked against the digest of the page content they were parsed from.
+ *
+ * <p>Results are stored serialized, as UTF-8 strings with variable-length integer counts and
+ * lengths, which takes far less memory than the {@link Map} and {@link List} of the result itself.
+ * Only the latest content of each URL is kept, so a page that changed simply replaces its old
+ * entry.
+ *
+ * <p>Instances are thread-safe.
+ */
+final class ParseResultCache {
+
+  /**
+   * A rough estimate of the memory taken by an entry besides its serialized result, used to bound
+   * the size of the cache.
+   */
+  private static final int ENTRY_OVERHEAD = 160;
+
+  private final long maxBytes;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  /**
+   * Creates an empty cache that holds at most about the given number of bytes.
+   */
+  ParseResultCache(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be positive");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the cached result for the given URL, or {@code null} if there is none, or if it was
+   * parsed from content with a different digest.
+   */
+  PageParser.Result get(String url, String digest) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(url);
+    }
+    if (entry == null || !entry.digest.equals(digest)) {
+      return null;
+    }
+    return decode(entry.result);
+  }
+
+  /**
+   * Returns whether a result is cached for the given URL, whatever content it was parsed from.
+   */
+  synchronized boolean contains(String url) {
+    return entries.containsKey(url);
+  }
+
+  /**
+   * Caches the given result of parsing the content with the given digest from the given URL.
+   */
+  void put(String url, String digest, PageParser.Result result) {
+    Entry entry = new Entry(digest, encode(result));
+    long size = sizeOf(url, entry);
+    if (size > maxBytes) {
+      return;
+    }
+    synchronized (this) {
+      Entry old = entries.put(url, entry);
+      if (old != null) {
+        bytes -= sizeOf(url, old);
+      }
+      bytes += size;
+      var eldest = entries.entrySet().iterator();
+      while (bytes > maxBytes) {
+        Map.Entry<String, Entry> e = eldest.next();
+        bytes -= sizeOf(e.getKey(), e.getValue());
+        eldest.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns the approximate number of bytes held by the cache.
+   */
+  synchronized long size() {
+    return bytes;
+  }
+
+  private static long sizeOf(String url, Entry entry) {
+    return ENTRY_OVERHEAD + url.length() + entry.digest.length() + entry.result.length;
+  }
+
+  static byte[] encode(PageParser.Result result) {
+    Output out = new Output();
+    out.writeVarint(result.getWordCounts().size());
+    for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
+      out.writeString(e.getKey());
+      out.writeVarint(e.getValue());
+    }
+    out.writeVarint(result.getLinks().size());
+    for (String link : result.getLinks()) {
+      out.writeString(link);
+    }
+    return out.toByteArray();
+  }
+
+  static PageParser.Result decode(byte[] bytes) {
+    Input in = new Input(bytes);
+    PageParser.Result.Builder builder = new PageParser.Result.Builder();
+    for (int i = in.readVarint(); i > 0; i--) {
+      builder.addWord(in.readString(), in.readVarint());
+    }
+    for (int i = in.readVarint(); i > 0; i--) {
+      builder.addLink(in.readString());
+    }
+    return builder.build();
+  }
+
+  private static final class Entry {
+    private final String digest;
+    private final byte[] result;
+
+    private Entry(String digest, byte[] result) {
+      this.digest = Objects.requireNonNull(digest);
+      this.result = Objects.requireNonNull(result);
+    }
+  }
+
+  private static final class Output {
+    private byte[] buffer = new byte[256];
+    private int length;
+
+    private void writeVarint(int value) {
+      ensureCapacity(5);
+      while ((value & ~0x7f) != 0) {
+        buffer[length++] = (byte) ((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      buffer[length++] = (byte) value;
+    }
+
+    private void writeString(String s) {
+      byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+      writeVarint(utf8.length);
+      ensureCapacity(utf8.length);
+      System.arraycopy(utf8, 0, buffer, length, utf8.length);
+      length += utf8.length;
+    }
+
+    private void ensureCapacity(int extra) {
+      if (length + extra > buffer.length) {
+        byte[] grown = new byte[Math.max(buffer.length * 2, length + extra)];
+        System.arraycopy(buffer, 0, grown, 0, length);
+        buffer = grown;
+      }
+    }
+
+    private byte[] toByteArray() {
+      byte[] bytes = new byte[length];
+      System.arraycopy(buffer, 0, bytes, 0, length);
+      return bytes;
+    }
+  }
+
+  private static final class Input {
+    private final byte[] bytes;
+    private int position;
+
+    private Input(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    private int readVarint() {
+      int value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = bytes[position++];
+        value |= (b & 0x7f) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+
+    private String readString() {
+      int length = readVarint();
+      String s = new String(bytes, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return s;
+    }
+  }
+}
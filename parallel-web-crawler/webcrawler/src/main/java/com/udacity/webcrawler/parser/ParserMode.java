@@ -5,7 +5,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
 /**
- * A binding annotation for the parsing deadline.
+ * A binding annotation for how pages are parsed: {@code "dom"} or {@code "streaming"}.
  *
  * <p>This annotation has package-private visibility, which means it is not usable outside the
  * {@code com.udacity.webcrawler.parser} package, and it's only used so that the Guice module in
@@ -13,5 +13,5 @@ import java.lang.annotation.RetentionPolicy;
  */
 @Qualifier
 @Retention(RetentionPolicy.RUNTIME)
-@interface ParseDeadline {
+@interface ParserMode {
 }
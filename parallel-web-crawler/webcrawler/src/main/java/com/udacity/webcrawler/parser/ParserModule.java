@@ -2,7 +2,13 @@ package com.udacity.webcrawler.parser;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
@@ -10,25 +16,109 @@ import java.util.regex.Pattern;
 
 /**
  * Guice dependency injection module that installs a {@link PageParserFactory} that can be used to
- * create page parsers.
+ * create page parsers, along with the {@link HttpClient} they share to download remote pages.
  */
 public final class ParserModule extends AbstractModule {
   private final Duration timeout;
   private final List<Pattern> ignoredWords;
+  private final String pageCachePath;
+  private final long parseCacheMaxBytes;
+  private final String parserMode;
+  private final long maxPageBytes;
+  private final long maxCrawlBytes;
 
   /**
-   * Creates a {@link ParserModule} from the given timeout and ignored word patterns.
+   * Creates a {@link ParserModule} from the given timeout, ignored word patterns, cache settings,
+   * parser mode and byte limits.
    */
-  private ParserModule(Duration timeout, List<Pattern> ignoredWords) {
+  private ParserModule(
+      Duration timeout,
+      List<Pattern> ignoredWords,
+      String pageCachePath,
+      long parseCacheMaxBytes,
+      String parserMode,
+      long maxPageBytes,
+      long maxCrawlBytes) {
     this.timeout = timeout;
     this.ignoredWords = ignoredWords;
+    this.pageCachePath = pageCachePath;
+    this.parseCacheMaxBytes = parseCacheMaxBytes;
+    this.parserMode = parserMode;
+    this.maxPageBytes = maxPageBytes;
+    this.maxCrawlBytes = maxCrawlBytes;
   }
 
   @Override
   protected void configure() {
-    bind(Key.get(Duration.class, ParseDeadline.class)).toInstance(timeout);
     bind(new Key<List<Pattern>>(IgnoredWords.class) {}).toInstance(ignoredWords);
-    bind(PageParserFactory.class).to(PageParserFactoryImpl.class);
+    bind(Key.get(String.class, ParserMode.class)).toInstance(parserMode);
+    bind(PageParserFactoryImpl.class).in(Singleton.class);
+    bind(PageFetcher.class).in(Singleton.class);
+  }
+
+  /**
+   * Provides the one {@link HttpClient} used for every page download, so that connections are
+   * pooled and reused across pages and parser instances. HTTP/2 is preferred, and the client falls
+   * back to HTTP/1.1 for servers that do not support it.
+   */
+  @Provides
+  @Singleton
+  HttpClient provideHttpClient() {
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(timeout)
+        .build();
+  }
+
+  /**
+   * Provides the {@link PageParserFactory}, which skips parsing unchanged pages if a parse result
+   * cache size is set.
+   */
+  @Provides
+  @Singleton
+  PageParserFactory providePageParserFactory(PageParserFactoryImpl factory) {
+    if (parseCacheMaxBytes == 0) {
+      return factory;
+    }
+    return new CachingPageParserFactory(
+        factory.digestingContent(), new ParseResultCache(parseCacheMaxBytes));
+  }
+
+  /**
+   * Provides the {@link FetchBudget} shared by every page download, so that the crawl byte budget
+   * covers all of them. Crawlers start a fresh budget for each crawl.
+   */
+  @Provides
+  @Singleton
+  FetchBudget provideFetchBudget() {
+    return new FetchBudget(maxPageBytes, maxCrawlBytes);
+  }
+
+  /**
+   * Provides the {@link PageStats} shared by every page parser, so that it covers the whole crawl.
+   * Crawlers start over for each crawl.
+   */
+  @Provides
+  @Singleton
+  PageStats providePageStats() {
+    return new PageStats();
+  }
+
+  /**
+   * Provides the cache of downloaded pages, which is disabled if no cache directory is set.
+   */
+  @Provides
+  @Singleton
+  PageCache providePageCache() {
+    if (pageCachePath.isEmpty()) {
+      return PageCache.disabled();
+    }
+    try {
+      return PageCache.open(Path.of(pageCachePath));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not open the page cache at " + pageCachePath, e);
+    }
   }
 
   /**
@@ -37,6 +127,11 @@ public final class ParserModule extends AbstractModule {
   public static final class Builder {
     private Duration timeout;
     private List<Pattern> ignoredWords;
+    private String pageCachePath = "";
+    private long parseCacheMaxBytes = 0;
+    private String parserMode = "dom";
+    private long maxPageBytes = 0;
+    private long maxCrawlBytes = 0;
 
     /**
      * Sets the timeout that will be used by the page parser.
@@ -54,11 +149,73 @@ public final class ParserModule extends AbstractModule {
       return this;
     }
 
+    /**
+     * Sets the directory where downloaded pages are cached between crawls. An empty path disables
+     * the cache.
+     */
+    public Builder setPageCachePath(String pageCachePath) {
+      this.pageCachePath = Objects.requireNonNull(pageCachePath);
+      return this;
+    }
+
+    /**
+     * Sets the maximum size in bytes of the cache of parse results. Zero disables the cache.
+     */
+    public Builder setParseCacheMaxBytes(long parseCacheMaxBytes) {
+      if (parseCacheMaxBytes < 0) {
+        throw new IllegalArgumentException("parseCacheMaxBytes cannot be negative");
+      }
+      this.parseCacheMaxBytes = parseCacheMaxBytes;
+      return this;
+    }
+
+    /**
+     * Sets how pages are parsed: {@code "dom"} to parse them into a Jsoup document, or
+     * {@code "streaming"} to read their text and links straight from the downloaded bytes.
+     */
+    public Builder setParserMode(String parserMode) {
+      if (!parserMode.equals("dom") && !parserMode.equals("streaming")) {
+        throw new IllegalArgumentException(
+            "parserMode must be \"dom\" or \"streaming\", but was \"" + parserMode + "\"");
+      }
+      this.parserMode = parserMode;
+      return this;
+    }
+
+    /**
+     * Sets the most bytes read from a single page. Zero means no limit.
+     */
+    public Builder setMaxPageBytes(long maxPageBytes) {
+      if (maxPageBytes < 0) {
+        throw new IllegalArgumentException("maxPageBytes cannot be negative");
+      }
+      this.maxPageBytes = maxPageBytes;
+      return this;
+    }
+
+    /**
+     * Sets the most bytes downloaded from all pages together. Zero means no limit.
+     */
+    public Builder setMaxCrawlBytes(long maxCrawlBytes) {
+      if (maxCrawlBytes < 0) {
+        throw new IllegalArgumentException("maxCrawlBytes cannot be negative");
+      }
+      this.maxCrawlBytes = maxCrawlBytes;
+      return this;
+    }
+
     /**
      * Builds a {@link ParserModule} from this {@link Builder}.
      */
     public ParserModule build() {
-      return new ParserModule(timeout, ignoredWords);
+      return new ParserModule(
+          timeout,
+          ignoredWords,
+          pageCachePath,
+          parseCacheMaxBytes,
+          parserMode,
+          maxPageBytes,
+          maxCrawlBytes);
     }
   }
 }
@@ -0,0 +1,75 @@
+package com.udacity.webcrawler.parser;
+
+/**
+ * Checks on the source of a regular expression, shared by the ignored word and ignored URL filters
+ * to tell which of their patterns can be looked up as plain text or combined into one alternation.
+ *
+ * <p>This class is public only because {@code IgnoredUrlFilter} lives in the parent package.
+ */
+public final class PatternSyntax {
+
+  /**
+   * Characters that have a special meaning in a regular expression, outside of a character class.
+   */
+  private static final String METACHARACTERS = "\\[](){}.*+?^$|";
+
+  private PatternSyntax() {
+  }
+
+  /**
+   * Returns whether the given character has a special meaning in a regular expression, outside of a
+   * character class.
+   */
+  public static boolean isMetacharacter(char c) {
+    return METACHARACTERS.indexOf(c) >= 0;
+  }
+
+  /**
+   * Returns whether the character at the given index of the regular expression is escaped by an
+   * odd number of backslashes.
+   */
+  public static boolean isEscaped(String regex, int index) {
+    int backslashes = 0;
+    for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+      backslashes++;
+    }
+    return backslashes % 2 == 1;
+  }
+
+  /**
+   * Returns whether the regular expression refers back to one of its groups, by number or by name.
+   */
+  public static boolean hasBackReference(String regex) {
+    for (int i = 0; i + 1 < regex.length(); i++) {
+      if (regex.charAt(i) == '\\') {
+        char next = regex.charAt(i + 1);
+        if (Character.isDigit(next) || next == 'k') {
+          return true;
+        }
+        i++;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the regular expression has a named group, like {@code (?<name>...)}. Group
+   * names must be unique within a pattern, so two such expressions may not compile once combined.
+   * A {@code "(?<"} inside a character class or a quote is counted too, which is harmless for
+   * callers that only use this to keep patterns apart.
+   */
+  public static boolean hasNamedGroup(String regex) {
+    for (int i = 0; i + 3 < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '('
+          && regex.charAt(i + 1) == '?'
+          && regex.charAt(i + 2) == '<'
+          && Character.isLetter(regex.charAt(i + 3))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,141 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Splits the text of an HTML text node into normalized words in a single pass over its characters.
+ *
+ * <p>The output is the same as stripping the text, splitting it on {@code \s+}, dropping blank
+ * tokens and tokens that match one of the ignored word patterns, removing {@code \W} characters and
+ * lower-casing the result, but without a regex split, a stream or intermediate strings per token.
+ * The only allocation per word is the final {@link String} handed to the consumer.
+ *
+ * <p>Instances keep reusable buffers and are not thread-safe; use one tokenizer per parse.
+ */
+final class WordTokenizer {
+
+  private final IgnoredWordFilter.WordMatcher ignoredWords;
+  private final boolean hasIgnoredWords;
+  private final Token token = new Token();
+  private char[] buffer = new char[64];
+
+  /**
+   * Creates a tokenizer that drops every token ignored by the given filter.
+   */
+  WordTokenizer(IgnoredWordFilter ignoredWords) {
+    this.ignoredWords = ignoredWords.newMatcher();
+    this.hasIgnoredWords = !ignoredWords.isEmpty();
+  }
+
+  /**
+   * Passes every word in the given text to the given consumer, in order.
+   */
+  void tokenize(String text, Consumer<String> words) {
+    Objects.requireNonNull(words);
+    int start = 0;
+    int end = text.length();
+    // Same as String#strip().
+    while (start < end && Character.isWhitespace(text.charAt(start))) {
+      start++;
+    }
+    while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+      end--;
+    }
+
+    int i = start;
+    while (i < end) {
+      while (i < end && isRegexWhitespace(text.charAt(i))) {
+        i++;
+      }
+      int tokenStart = i;
+      while (i < end && !isRegexWhitespace(text.charAt(i))) {
+        i++;
+      }
+      if (tokenStart < i) {
+        emit(text, tokenStart, i, words);
+      }
+    }
+  }
+
+  private void emit(String text, int start, int end, Consumer<String> words) {
+    if (isBlank(text, start, end)) {
+      return;
+    }
+    if (hasIgnoredWords) {
+      token.reset(text, start, end);
+      if (ignoredWords.isIgnored(token)) {
+        return;
+      }
+    }
+
+    if (buffer.length < end - start) {
+      buffer = new char[Math.max(end - start, buffer.length * 2)];
+    }
+    int length = 0;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        buffer[length++] = (char) (c + ('a' - 'A'));
+      } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_') {
+        buffer[length++] = c;
+      }
+    }
+    // A token made only of non-word characters still counts, as the empty word.
+    words.accept(new String(buffer, 0, length));
+  }
+
+  /**
+   * Returns whether the character is matched by {@code \s}, which only covers ASCII whitespace.
+   */
+  private static boolean isRegexWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * Same as {@link String#isBlank()} on the given range.
+   */
+  private static boolean isBlank(String text, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (!Character.isWhitespace(text.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A reusable view of one token, so that ignored word patterns can be matched without copying it.
+   */
+  private static final class Token implements CharSequence {
+    private String text;
+    private int start;
+    private int end;
+
+    void reset(String text, int start, int end) {
+      this.text = text;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int length() {
+      return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return text.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+      return text.subSequence(start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+      return text.substring(start, end);
+    }
+  }
+}
@@ -3,52 +3,74 @@ package com.udacity.webcrawler.profiler;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.time.Clock;
-import java.time.Duration;
-import java.time.Instant;
-import java.time.ZonedDateTime;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.function.LongSupplier;
 
 /**
- * A method interceptor that checks whether {@link Method}s are annotated with the {@link Profiled}
- * annotation. If they are, the method interceptor records how long the method invocation took.
+ * A method interceptor that records how long invocations of {@link Profiled} methods took.
+ *
+ * <p>The profiled methods are found once, when the proxy is created, together with the
+ * {@link ProfilingState.MethodStats} their calls are recorded into. A call then costs a map lookup
+ * and two reads of the nanosecond clock on top of the reflective call itself.
+ *
+ * <p>A profiled method that returns a {@link CompletionStage} usually returns long before its work
+ * is done, so for those the time is recorded when the returned stage completes instead.
  */
 final class ProfilingMethodInterceptor implements InvocationHandler {
 
-  private Clock clock;
-  private ProfilingState state;
-  private Object targetObject;
+  private final LongSupplier nanoTime;
+  private final Map<Method, ProfilingState.MethodStats> profiledMethods;
+  private final Object targetObject;
 
-  ProfilingMethodInterceptor(Clock clock, ProfilingState state, Object targetObject) {
-    this.clock = Objects.requireNonNull(clock);
-    this.state = state;
+  ProfilingMethodInterceptor(
+      LongSupplier nanoTime,
+      Map<Method, ProfilingState.MethodStats> profiledMethods,
+      Object targetObject) {
+    this.nanoTime = Objects.requireNonNull(nanoTime);
+    this.profiledMethods = Map.copyOf(profiledMethods);
     this.targetObject = targetObject;
   }
 
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 
-      Object result;
-      Instant startTime = null;
-      Long threadId = null;
-      if(method.isAnnotationPresent(Profiled.class)) {
-          startTime = clock.instant();
-          threadId = Thread.currentThread().getId();
+      ProfilingState.MethodStats stats = profiledMethods.get(method);
+      if (stats == null) {
+          return invokeTarget(method, args);
       }
 
+      Object result = null;
+      long threadId = Thread.currentThread().getId();
+      long startTime = nanoTime.getAsLong();
+      try {
+          result = invokeTarget(method, args);
+      }
+      finally {
+          if (result instanceof CompletionStage) {
+              ((CompletionStage<?>) result).whenComplete(
+                      (value, error) -> stats.record(nanoTime.getAsLong() - startTime, threadId));
+          } else {
+              stats.record(nanoTime.getAsLong() - startTime, threadId);
+          }
+      }
+    return result;
+  }
+
+  private Object invokeTarget(Method method, Object[] args) throws Throwable {
       try {
         if (method.getName().equals("equals") && method.getParameterCount() == 1 && method.getParameterTypes()[0].equals(Object.class)) {
-            result = targetObject.equals(args[0]);
+            return targetObject.equals(args[0]);
         }
         else if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
-            result = targetObject.hashCode();
-            
+            return targetObject.hashCode();
         }
         else if (method.getName().equals("toString") && method.getParameterCount() == 0) {
-            result = targetObject.toString();
+            return targetObject.toString();
         }
         else {
-            result = method.invoke(targetObject, args);
+            return method.invoke(targetObject, args);
         }
         }
       catch(InvocationTargetException e){
@@ -57,12 +79,5 @@ final class ProfilingMethodInterceptor implements InvocationHandler {
       catch(IllegalAccessException e){
          throw new RuntimeException(e);
        }
-      finally {
-          if (startTime != null && threadId != null) {
-              Duration elapsed = Duration.between(startTime, clock.instant());
-              state.record(targetObject.getClass(), method, elapsed, threadId);
-          }
-        }
-    return result;
   }
 }
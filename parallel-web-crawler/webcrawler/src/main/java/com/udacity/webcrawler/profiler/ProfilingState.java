@@ -6,57 +6,46 @@ import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
  * Helper class that records method performance data from the method interceptor.
+ *
+ * <p>Each profiled method gets its own {@link MethodStats}, which the interceptor looks up once
+ * when the proxy is created. Recording a call then only adds to a few striped counters, so threads
+ * calling the same method at the same time rarely contend.
  */
 final class ProfilingState {
-  //private final Map<String, Duration> data = new ConcurrentHashMap<>();
-  private final ConcurrentHashMap<String, ProfileData> data = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, MethodStats> data = new ConcurrentHashMap<>();
 
   /**
-   * Records the given method invocation data.
+   * Returns the stats that calls of the given method are recorded into. Proxies that wrap objects
+   * of the same class share the stats of each method.
    *
-   * @param callingClass the Java class of the object that called the method.
-   * @param method       the method that was called.
-   * @param elapsed      the amount of time that passed while the method was called.
+   * @param callingClass the Java class of the object whose method is called.
+   * @param method       the method that is called.
    */
-  void record(Class<?> callingClass, Method method, Duration elapsed, Long threadId) {
+  MethodStats statsFor(Class<?> callingClass, Method method) {
     Objects.requireNonNull(callingClass);
     Objects.requireNonNull(method);
-    Objects.requireNonNull(elapsed);
-    if (elapsed.isNegative()) {
-      throw new IllegalArgumentException("negative elapsed time");
-    }
-    String key = formatMethodCall(callingClass, method);
-
-    data.compute(key, (k,v) ->
-            {
-              if (v == null)
-              {
-               v = new ProfileData();
-              }
-              v.addDuration(elapsed);
-              v.addThreadId(threadId);
-              return v;
-            });
-
+    return data.computeIfAbsent(formatMethodCall(callingClass, method), k -> new MethodStats());
   }
 
   /**
    * Writes the method invocation data to the given {@link Writer}.
    *
    * <p>Recorded data is aggregated across calls to the same method. For example, suppose
-   * {@link #record(Class, Method, Duration, Long) record} is called three times for the same method
+   * {@link MethodStats#record(long, long) record} is called three times for the same method
    * {@code M()}, with each invocation taking 1 second. The total {@link Duration} reported by
-   * this {@code write()} method for {@code M()} should be 3 seconds.
+   * this {@code write()} method for {@code M()} should be 3 seconds. Methods that have not been
+   * called yet are left out.
    */
   void write(Writer writer) throws IOException {
     List<String> entries =
         data.entrySet()
             .stream()
+            .filter(e -> e.getValue().getMethodCallCount() > 0)
             .sorted(Map.Entry.comparingByKey())
             .map(e -> e.getKey() + " took " + formatProfileData(e.getValue(), e.getKey()) + System.lineSeparator())
             .collect(Collectors.toList());
@@ -85,16 +74,17 @@ final class ProfilingState {
   private static String formatDuration(Duration duration) {
     return String.format("%sm %ss %sms", duration.toMinutes(), duration.toSecondsPart(), duration.toMillisPart());
   }
-  private static  String formatMethodCallCount(String methodName, int methodCount){
+  private static  String formatMethodCallCount(String methodName, long methodCount){
     return String.format("The method %s is called %s time(s).", methodName, methodCount);
   }
 
-  private static String formatThreadIdCountMap(Map<Long, Integer> threadIdCountMap){
+  private static String formatThreadIdCountMap(Map<Long, LongAdder> threadIdCountMap){
     StringBuilder stringBuilder = new StringBuilder();
     stringBuilder.append("Thread Ids and count of threads that invoke the method: ");
     stringBuilder.append(" { ");
-    for(Map.Entry<Long, Integer> entry: threadIdCountMap.entrySet()){
-      stringBuilder.append(entry.getKey()).append(" : ").append(entry.getValue()).append(" ,");
+    for(Map.Entry<Long, LongAdder> entry: threadIdCountMap.entrySet()){
+      stringBuilder.append(entry.getKey()).append(" : ").append(entry.getValue().sum())
+          .append(" ,");
     }
     if (stringBuilder.length()>1){
       stringBuilder.setLength(stringBuilder.length()-2);
@@ -104,41 +94,56 @@ final class ProfilingState {
     return stringBuilder.toString();
   }
 
-  private static String formatProfileData(ProfileData profileDate, String methodName){
-    Duration duration = profileDate.getDuration();
-    int methodCallCount = profileDate.getMethodCallCount();
-    Map<Long, Integer> threadIdCountMap = profileDate.getThreadIdCountMap();
+  private static String formatProfileData(MethodStats stats, String methodName){
+    Duration duration = stats.getDuration();
+    long methodCallCount = stats.getMethodCallCount();
+    Map<Long, LongAdder> threadIdCountMap = stats.getThreadIdCountMap();
 
     return formatDuration(duration) + System.lineSeparator() + formatMethodCallCount(methodName, methodCallCount)
             + System.lineSeparator() + formatThreadIdCountMap(threadIdCountMap) + System.lineSeparator();
   }
 
-  private static class ProfileData{
-    private Duration duration;
-    private AtomicInteger methodCallCount;
-    private ConcurrentHashMap<Long, Integer> threadIdCountMap;
+  /**
+   * The calls recorded for one profiled method. Thread-safe.
+   */
+  static final class MethodStats {
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder methodCallCount = new LongAdder();
+    private final ConcurrentHashMap<Long, LongAdder> threadIdCountMap = new ConcurrentHashMap<>();
 
-    private ProfileData(){
-      this.duration = Duration.ZERO;
-      this.methodCallCount = new AtomicInteger(0);
-      this.threadIdCountMap = new ConcurrentHashMap<>();
+    private MethodStats() {
     }
 
-    private void addDuration(Duration currentDuration){
-        duration = duration.plus(currentDuration);
-        methodCallCount.incrementAndGet();
+    /**
+     * Records a call of the method.
+     *
+     * @param elapsedNanos how long the call took, in nanoseconds.
+     * @param threadId     the id of the thread that called the method.
+     */
+    void record(long elapsedNanos, long threadId) {
+      if (elapsedNanos < 0) {
+        throw new IllegalArgumentException("negative elapsed time");
+      }
+      totalNanos.add(elapsedNanos);
+      methodCallCount.increment();
+      // Threads usually call the same method many times, so look the counter up before taking the
+      // lock that computeIfAbsent() needs to add one.
+      LongAdder threadCount = threadIdCountMap.get(threadId);
+      if (threadCount == null) {
+        threadCount = threadIdCountMap.computeIfAbsent(threadId, id -> new LongAdder());
+      }
+      threadCount.increment();
     }
-    private Duration getDuration(){
-      return duration;
-    }
-    private void addThreadId(Long threadId){
-      threadIdCountMap.merge(threadId, 1, Integer::sum);
+
+    private Duration getDuration() {
+      return Duration.ofNanos(totalNanos.sum());
     }
-    private int getMethodCallCount(){
-      return methodCallCount.get();
+
+    private long getMethodCallCount() {
+      return methodCallCount.sum();
     }
 
-    private ConcurrentHashMap<Long, Integer> getThreadIdCountMap(){
+    private Map<Long, LongAdder> getThreadIdCountMap() {
       return threadIdCountMap;
     }
   }
@@ -0,0 +1,90 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BloomFilterVisitedUrlSetTest {
+
+  @Test
+  public void neverForgetsAVisitedUrl() {
+    BloomFilterVisitedUrlSet visited = new BloomFilterVisitedUrlSet(10_000, 0.01);
+    int added = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (visited.add("https://example.com/page-" + i)) {
+        added++;
+      }
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(visited.contains("https://example.com/page-" + i)).isTrue();
+      assertThat(visited.add("https://example.com/page-" + i)).isFalse();
+    }
+    assertThat(visited.size()).isEqualTo(added);
+  }
+
+  @Test
+  public void treatsEquivalentUrlsAsVisited() {
+    BloomFilterVisitedUrlSet visited = new BloomFilterVisitedUrlSet(1_000, 0.001);
+
+    assertThat(visited.add("https://example.com/Page")).isTrue();
+    assertThat(visited.add("HTTPS://EXAMPLE.COM:443/Page#top")).isFalse();
+    assertThat(visited.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void falsePositivesMatchConfiguredRateAndEstimate() {
+    BloomFilterVisitedUrlSet visited = new BloomFilterVisitedUrlSet(100_000, 0.01);
+    int skipped = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (!visited.add("https://example.com/page-" + i)) {
+        skipped++;
+      }
+    }
+
+    // Every URL is distinct, so every skip is a false positive. The rate rises from 0 to 1% as the
+    // filter fills up, so roughly 0.2% of all URLs end up skipped.
+    assertThat(skipped).isAtLeast(50);
+    assertThat(skipped).isAtMost(500);
+    assertThat(visited.size()).isEqualTo(100_000 - skipped);
+    assertThat((double) visited.estimateFalsePositiveSkips()).isWithin(skipped * 0.5).of(skipped);
+  }
+
+  @Test
+  public void survivesWriteAndRead() throws Exception {
+    BloomFilterVisitedUrlSet visited = new BloomFilterVisitedUrlSet(1_000, 0.001);
+    for (int i = 0; i < 100; i++) {
+      visited.add("https://example.com/page-" + i);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    visited.writeTo(new DataOutputStream(bytes));
+
+    BloomFilterVisitedUrlSet restored = new BloomFilterVisitedUrlSet(1_000, 0.001);
+    restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertThat(restored.size()).isEqualTo(visited.size());
+    for (int i = 0; i < 100; i++) {
+      assertThat(restored.contains("https://example.com/page-" + i)).isTrue();
+    }
+
+    BloomFilterVisitedUrlSet resized = new BloomFilterVisitedUrlSet(2_000, 0.001);
+    assertThrows(
+        IOException.class,
+        () -> resized.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+  }
+
+  @Test
+  public void rejectsInvalidSizes() {
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilterVisitedUrlSet(0, 0.01));
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilterVisitedUrlSet(100, 0));
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilterVisitedUrlSet(100, 1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new BloomFilterVisitedUrlSet(100_000_000_000L, 0.001));
+  }
+}
@@ -0,0 +1,62 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of queueing a link in the {@link CrawlFrontier} and taking it out again, the
+ * way every crawl worker does for every link it follows, with several workers at once.
+ *
+ * <p>Without host limits the frontier is a lock-free queue. With a per-host limit, every call
+ * takes the frontier's one lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+public class CrawlFrontierBenchmark {
+
+  private static final int HOSTS = 50;
+
+  @Param({"0", "8"})
+  public int maxConcurrentPerHost;
+
+  private CrawlFrontier frontier;
+  private CrawlFrontier.Entry[] entries;
+
+  @Setup
+  public void createFrontier() {
+    frontier = new CrawlFrontier(maxConcurrentPerHost, Duration.ZERO);
+    entries = new CrawlFrontier.Entry[HOSTS * 20];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = new CrawlFrontier.Entry("https://host" + (i % HOSTS) + ".com/page-" + i, 1);
+    }
+  }
+
+  @Benchmark
+  public CrawlFrontier.Entry addPollRelease() {
+    frontier.add(entries[ThreadLocalRandom.current().nextInt(entries.length)]);
+    CrawlFrontier.Entry next = frontier.poll();
+    if (next != null) {
+      frontier.release(next);
+    }
+    return next;
+  }
+}
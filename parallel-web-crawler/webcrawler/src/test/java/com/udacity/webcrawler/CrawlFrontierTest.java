@@ -0,0 +1,205 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class CrawlFrontierTest {
+
+  @Test
+  public void capsRequestsInFlightPerHost() {
+    CrawlFrontier frontier = new CrawlFrontier(2, Duration.ZERO);
+    for (int i = 0; i < 3; i++) {
+      frontier.add(new CrawlFrontier.Entry("http://a.com/" + i, 1));
+    }
+
+    CrawlFrontier.Entry first = frontier.poll();
+    assertThat(frontier.poll()).isNotNull();
+    assertThat(frontier.poll()).isNull();
+
+    frontier.release(first);
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/2");
+    assertThat(frontier.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void handsOutEverythingInOrderWithoutHostLimits() {
+    CrawlFrontier frontier = new CrawlFrontier(0, Duration.ZERO);
+    for (int i = 0; i < 3; i++) {
+      frontier.add(new CrawlFrontier.Entry("http://a.com/" + i, 1));
+    }
+    frontier.add(new CrawlFrontier.Entry("http://b.com/0", 1));
+
+    assertThat(frontier.size()).isEqualTo(4);
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/0");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/1");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/2");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://b.com/0");
+    assertThat(frontier.poll()).isNull();
+    assertThat(frontier.claimWakeup()).isEqualTo(-1);
+  }
+
+  @Test
+  public void lowerCasesHostsRegardlessOfLocale() {
+    Locale defaultLocale = Locale.getDefault();
+    try {
+      Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+      assertThat(CrawlFrontier.hostOf("http://WIKI.example.com/Index"))
+          .isEqualTo("wiki.example.com");
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  @Test
+  public void takesTurnsBetweenHosts() {
+    CrawlFrontier frontier = new CrawlFrontier(10, Duration.ZERO);
+    frontier.add(new CrawlFrontier.Entry("http://a.com/1", 1));
+    frontier.add(new CrawlFrontier.Entry("http://a.com/2", 1));
+    frontier.add(new CrawlFrontier.Entry("http://a.com/3", 1));
+    frontier.add(new CrawlFrontier.Entry("https://B.com:8080/1", 1));
+    frontier.add(new CrawlFrontier.Entry("http://user@b.com:8080/2", 1));
+
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/1");
+    assertThat(frontier.poll().getUrl()).isEqualTo("https://B.com:8080/1");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/2");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://user@b.com:8080/2");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/3");
+    assertThat(frontier.poll()).isNull();
+  }
+
+  @Test
+  public void waitsForMinimumDelayPerHost() throws Exception {
+    CrawlFrontier frontier = new CrawlFrontier(10, Duration.ofMillis(200));
+    frontier.add(new CrawlFrontier.Entry("http://a.com/1", 1));
+    frontier.add(new CrawlFrontier.Entry("http://a.com/2", 1));
+    frontier.add(new CrawlFrontier.Entry("http://b.com/1", 1));
+
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/1");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://b.com/1");
+    assertThat(frontier.poll()).isNull();
+
+    long delay = frontier.claimWakeup();
+    assertThat(delay).isGreaterThan(0L);
+    assertThat(delay).isAtMost(Duration.ofMillis(200).toNanos());
+    // The wake-up was already claimed, so nobody else needs to schedule one.
+    assertThat(frontier.claimWakeup()).isEqualTo(-1L);
+
+    Thread.sleep(Duration.ofNanos(delay).toMillis() + 1);
+    frontier.wakeupFired();
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/2");
+    assertThat(frontier.claimWakeup()).isEqualTo(-1L);
+  }
+
+  @Test
+  public void neverHoldsBackUrlsWithoutHost() {
+    CrawlFrontier frontier = new CrawlFrontier(1, Duration.ofHours(1));
+    frontier.add(new CrawlFrontier.Entry("file:/tmp/a.html", 1));
+    frontier.add(new CrawlFrontier.Entry("file:/tmp/b.html", 1));
+
+    assertThat(frontier.poll()).isNotNull();
+    assertThat(frontier.poll()).isNotNull();
+    assertThat(frontier.claimWakeup()).isEqualTo(-1L);
+  }
+
+  @Test
+  public void releasesEverythingOnceExpired() {
+    CrawlFrontier frontier = new CrawlFrontier(1, Duration.ofHours(1));
+    frontier.add(new CrawlFrontier.Entry("http://a.com/1", 1));
+    frontier.add(new CrawlFrontier.Entry("http://a.com/2", 1));
+
+    assertThat(frontier.poll()).isNotNull();
+    assertThat(frontier.poll()).isNull();
+
+    frontier.expire();
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/2");
+  }
+
+  @Test
+  public void prioritizedFrontierHandsOutHighestPriorityFirst() {
+    CrawlFrontier frontier = new CrawlFrontier(10, Duration.ZERO, true);
+    frontier.add(new CrawlFrontier.Entry("http://a.com/low", 1), 1);
+    frontier.add(new CrawlFrontier.Entry("http://a.com/high", 1), 5);
+    frontier.add(new CrawlFrontier.Entry("http://b.com/first", 1), 3);
+    frontier.add(new CrawlFrontier.Entry("http://b.com/second", 1), 3);
+
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/high");
+    // Ties are handed out in the order they were added.
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://b.com/first");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://b.com/second");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/low");
+    assertThat(frontier.poll()).isNull();
+  }
+
+  @Test
+  public void prioritizedFrontierStillCapsRequestsPerHost() {
+    CrawlFrontier frontier = new CrawlFrontier(1, Duration.ZERO, true);
+    frontier.add(new CrawlFrontier.Entry("http://a.com/1", 1), 10);
+    frontier.add(new CrawlFrontier.Entry("http://a.com/2", 1), 9);
+    frontier.add(new CrawlFrontier.Entry("http://b.com/1", 1), 1);
+
+    CrawlFrontier.Entry first = frontier.poll();
+    assertThat(first.getUrl()).isEqualTo("http://a.com/1");
+    // a.com is at its limit, so b.com goes next despite its lower priority.
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://b.com/1");
+    assertThat(frontier.poll()).isNull();
+
+    frontier.release(first);
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/2");
+  }
+
+  @Test
+  public void boundedFrontierHasRoomAgainOnceEntriesAreReleased() {
+    CrawlFrontier frontier = new CrawlFrontier(2, 0, Duration.ZERO, false);
+    assertThat(frontier.tryReserve(2)).isTrue();
+    frontier.add(new CrawlFrontier.Entry("http://a.com/0", 1));
+    frontier.add(new CrawlFrontier.Entry("http://b.com/0", 1));
+    assertThat(frontier.tryReserve(1)).isFalse();
+
+    // Entries that were handed out keep their room until they are released.
+    CrawlFrontier.Entry first = frontier.poll();
+    assertThat(frontier.tryReserve(1)).isFalse();
+    frontier.release(first);
+    assertThat(frontier.tryReserve(1)).isTrue();
+    assertThat(frontier.taken()).isEqualTo(2);
+  }
+
+  @Test
+  public void boundedFrontierLetsInMoreThanItsCapacityOnlyWhenEmpty() {
+    CrawlFrontier frontier = new CrawlFrontier(2, 0, Duration.ZERO, false);
+    assertThat(frontier.tryReserve(1)).isTrue();
+    frontier.add(new CrawlFrontier.Entry("http://a.com/0", 1));
+    assertThat(frontier.tryReserve(3)).isFalse();
+
+    frontier.release(frontier.poll());
+    assertThat(frontier.tryReserve(3)).isTrue();
+    assertThat(frontier.taken()).isEqualTo(3);
+  }
+
+  @Test
+  public void boundedFrontierMakesReserveWaitForRoom() throws Exception {
+    CrawlFrontier frontier = new CrawlFrontier(1, 0, Duration.ZERO, false);
+    frontier.reserve(1);
+    frontier.add(new CrawlFrontier.Entry("http://a.com/0", 1));
+    Thread waiting = new Thread(() -> frontier.reserve(1));
+    waiting.start();
+    waiting.join(200);
+    assertThat(waiting.isAlive()).isTrue();
+    // A waiting caller goes first, so others cannot take the room it waits for.
+    assertThat(frontier.tryReserve(1)).isFalse();
+
+    frontier.release(frontier.poll());
+    waiting.join(10_000);
+    assertThat(waiting.isAlive()).isFalse();
+    assertThat(frontier.taken()).isEqualTo(1);
+  }
+
+  @Test
+  public void unboundedFrontierAlwaysHasRoom() {
+    CrawlFrontier frontier = new CrawlFrontier(0, Duration.ZERO);
+    assertThat(frontier.tryReserve(Integer.MAX_VALUE)).isTrue();
+  }
+}
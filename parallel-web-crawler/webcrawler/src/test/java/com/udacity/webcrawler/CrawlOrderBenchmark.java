@@ -0,0 +1,122 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares the pages per second and the coverage of the parallel crawler's two crawl orders, on a
+ * local site that is too large to crawl within the one second timeout.
+ *
+ * <p>The site is a tree where every page links to {@link #BRANCHING} pages one level further
+ * down. Each page holds one word naming its level, so the word counts of a crawl tell how many
+ * pages of each level it reached. Besides {@code pages}, the crawl rate, the benchmark reports
+ * {@code shallowPages}, the rate of pages crawled from the top {@link #SHALLOW_LEVELS} levels. The
+ * closer the two are, the more of the crawl went to the pages closest to the start page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CrawlOrderBenchmark {
+
+  private static final int BRANCHING = 6;
+  private static final int SHALLOW_LEVELS = 4;
+  private static final List<String> LEVEL_WORDS =
+      List.of("zero", "one", "two", "three", "four", "five");
+
+  @Param({"unordered", "breadth-first"})
+  public String crawlOrder;
+
+  @Inject
+  private ParallelWebCrawler crawler;
+
+  private Path site;
+  private List<String> startPages;
+
+  @Setup(Level.Trial)
+  public void generateSite() throws IOException {
+    site = Files.createTempDirectory("crawl-order");
+    writePage("", 0);
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .addStartPages(site.resolve("page.html").toUri().toString())
+            .setMaxDepth(LEVEL_WORDS.size())
+            .setTimeoutSeconds(1)
+            .setPopularWordCount(LEVEL_WORDS.size() + 1)
+            .setCrawlOrder(crawlOrder)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    startPages = config.getStartPages();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteSite() throws IOException {
+    try (Stream<Path> files = Files.walk(site)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  /**
+   * Pages crawled, summed over all crawls and reported per second.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Coverage {
+    public long pages;
+    public long shallowPages;
+  }
+
+  @Benchmark
+  public CrawlResult crawl(Coverage coverage) {
+    CrawlResult result = crawler.crawl(startPages);
+    for (int level = 0; level < LEVEL_WORDS.size(); level++) {
+      int pages = result.getWordCounts().getOrDefault(LEVEL_WORDS.get(level), 0);
+      coverage.pages += pages;
+      if (level < SHALLOW_LEVELS) {
+        coverage.shallowPages += pages;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes the page with the given name prefix at the given level, and everything below it.
+   */
+  private void writePage(String prefix, int level) throws IOException {
+    StringBuilder html = new StringBuilder("<p>").append(LEVEL_WORDS.get(level)).append("</p>");
+    if (level + 1 < LEVEL_WORDS.size()) {
+      for (int i = 0; i < BRANCHING; i++) {
+        String child = prefix + i + "-";
+        html.append("<a href=\"").append(child).append("page.html\">link</a>");
+        writePage(child, level + 1);
+      }
+    }
+    Files.writeString(site.resolve(prefix + "page.html"), html);
+  }
+}
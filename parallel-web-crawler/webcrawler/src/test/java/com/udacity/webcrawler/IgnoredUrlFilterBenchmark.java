@@ -0,0 +1,98 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Compares checking links against every {@link IgnoredUrls} pattern in turn, the way the crawlers
+ * used to, against a compiled {@link IgnoredUrlFilter}.
+ *
+ * <p>The rules look like a real crawl configuration: mostly blocked hosts and path prefixes, a few
+ * exact pages, and a handful of free-form patterns for file types and tracking links. Most links
+ * are not ignored, which is the expensive case for the pattern loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OperationsPerInvocation(IgnoredUrlFilterBenchmark.LINKS)
+public class IgnoredUrlFilterBenchmark {
+
+  static final int LINKS = 1_000;
+
+  @Param({"10", "100", "500"})
+  public int rules;
+
+  private List<Pattern> patterns;
+  private IgnoredUrlFilter filter;
+  private String[] links;
+
+  @Setup
+  public void generate() {
+    Random random = new Random(42);
+    patterns = new ArrayList<>(rules);
+    patterns.add(Pattern.compile(".*\\.(pdf|zip|jpg|png)$"));
+    patterns.add(Pattern.compile(".*[?&]utm_[a-z]+=.*"));
+    for (int i = patterns.size(); i < rules; i++) {
+      switch (i % 4) {
+        case 0 -> patterns.add(Pattern.compile("https://host" + i + "\\.example\\.com/.*"));
+        case 1 -> patterns.add(Pattern.compile("https://blog" + i + ".example.org/.*"));
+        case 2 -> patterns.add(Pattern.compile("^https://www\\.example\\.com/private/" + i + "/.*$"));
+        default -> patterns.add(Pattern.compile("https://www\\.example\\.com/page-" + i + "\\.html"));
+      }
+    }
+    filter = IgnoredUrlFilter.compile(patterns);
+
+    links = new String[LINKS];
+    for (int i = 0; i < LINKS; i++) {
+      int n = random.nextInt(2 * rules);
+      switch (random.nextInt(5)) {
+        case 0 -> links[i] = "https://host" + n + ".example.com/articles/" + i;
+        case 1 -> links[i] = "https://www.example.com/private/" + n + "/settings";
+        case 2 -> links[i] = "https://www.example.com/page-" + n + ".html";
+        case 3 -> links[i] = "https://cdn.example.net/assets/" + i + (n % 7 == 0 ? ".pdf" : ".css");
+        default -> links[i] = "https://www.example.com/search?q=" + i + (n % 5 == 0 ? "&utm_source=x" : "");
+      }
+    }
+  }
+
+  @Benchmark
+  public int patternLoop() {
+    int ignored = 0;
+    for (String link : links) {
+      for (Pattern pattern : patterns) {
+        if (pattern.matcher(link).matches()) {
+          ignored++;
+          break;
+        }
+      }
+    }
+    return ignored;
+  }
+
+  @Benchmark
+  public int compiledFilter() {
+    int ignored = 0;
+    for (String link : links) {
+      if (filter.isIgnored(link)) {
+        ignored++;
+      }
+    }
+    return ignored;
+  }
+}
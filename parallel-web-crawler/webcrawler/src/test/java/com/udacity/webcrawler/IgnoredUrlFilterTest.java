@@ -0,0 +1,103 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class IgnoredUrlFilterTest {
+
+  private static final List<String> URLS = List.of(
+      "",
+      "https://blog.udacity.com/",
+      "https://blog.udacity.com/2020/01/post.html",
+      "https://blogXudacity.com/",
+      "https://blog.udacity.com",
+      "https://www.udacity.com/",
+      "https://www.udacity.com/course/java",
+      "https://www.udacity.com/course/java?ref=nav#top",
+      "http://example.com/",
+      "http://example.com/a\nb",
+      "http://exampleXcom/",
+      "https://example.com/",
+      "https://example.com/files/report.pdf",
+      "https://example.com/index.html",
+      "https://example.com/dead-link.html",
+      "file:///tmp/infinite-loop.html",
+      "https://EXAMPLE.com/");
+
+  @Test
+  public void emptyFilterIgnoresNothing() {
+    IgnoredUrlFilter filter = IgnoredUrlFilter.compile(List.of());
+    for (String url : URLS) {
+      assertThat(filter.isIgnored(url)).isFalse();
+    }
+  }
+
+  @Test
+  public void prefixAndExactRules() {
+    assertSameAsPatterns(
+        "https://blog.udacity.com/.*",
+        "^http://example\\.com/.*$",
+        "https://www\\.udacity\\.com/",
+        "https://www\\.udacity\\.com/course/java\\?ref=nav#top",
+        "https://blog.udacity.com");
+  }
+
+  @Test
+  public void emptyPrefixMatchesEverythingWithoutLineBreaks() {
+    assertSameAsPatterns(".*");
+    assertSameAsPatterns("^$");
+  }
+
+  @Test
+  public void otherRules() {
+    assertSameAsPatterns(
+        ".*-loop\\.html$",
+        ".*dead-.*",
+        "https?://example\\.com/.*\\.pdf",
+        "http://example\\.com/.+",
+        "https://[a-z]+\\.udacity\\.com/.*");
+  }
+
+  @Test
+  public void rulesWithFlagsOrBackReferences() {
+    assertSameAsPatterns(
+        Pattern.compile("https://example\\.com/.*", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("http://example\\.com/.*", Pattern.DOTALL),
+        Pattern.compile("https://(w)\\1\\1\\..*"),
+        Pattern.compile("file:.*"));
+  }
+
+  @Test
+  public void rulesWithNamedGroups() {
+    assertSameAsPatterns(
+        "https://(?<host>[a-z]+)\\.udacity\\.com/.*",
+        "https?://(?<host>example)\\.com/.*\\.pdf",
+        "(?<=x)y|.*\\.html");
+  }
+
+  private static void assertSameAsPatterns(String... regexes) {
+    Pattern[] patterns = new Pattern[regexes.length];
+    for (int i = 0; i < regexes.length; i++) {
+      patterns[i] = Pattern.compile(regexes[i]);
+    }
+    assertSameAsPatterns(patterns);
+  }
+
+  private static void assertSameAsPatterns(Pattern... patterns) {
+    IgnoredUrlFilter filter = IgnoredUrlFilter.compile(List.of(patterns));
+    for (String url : URLS) {
+      boolean expected = false;
+      for (Pattern pattern : patterns) {
+        expected |= pattern.matcher(url).matches();
+      }
+      assertWithMessage("url \"%s\" ignored by %s", url, List.of(patterns))
+          .that(filter.isIgnored(url))
+          .isEqualTo(expected);
+    }
+  }
+}
@@ -1,10 +1,33 @@
 package com.udacity.webcrawler;
 
 import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchBudget;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageStats;
+import com.udacity.webcrawler.profiler.FakeClock;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import javax.inject.Inject;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -12,6 +35,8 @@ public final class ParallelWebCrawlerTest {
   @Inject
   private ParallelWebCrawler parallelWebCrawler;
 
+  private static final String DATA_DIR = System.getProperty("testDataDir");
+
   @Test
   public void testMaxParallelism() {
     CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
@@ -19,4 +44,465 @@ public final class ParallelWebCrawlerTest {
         .injectMembers(this);
     assertThat(parallelWebCrawler.getMaxParallelism()).isGreaterThan(1);
   }
+
+  @Test
+  public void resumesFromCheckpoint(@TempDir Path tempDir) {
+    Path checkpoint = tempDir.resolve("crawl.checkpoint");
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setCheckpointPath(checkpoint.toString())
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .build();
+
+    // The clock is read once to compute the deadline and once before each page, so the first run
+    // runs out of time right after crawling the start page.
+    FakeClock clock = new FakeClock();
+    clock.tickAfterReads(2, Duration.ofHours(1));
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config))
+                .with(binder -> binder.bind(Clock.class).toInstance(clock)),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult partial = parallelWebCrawler.crawl(config.getStartPages());
+
+    assertThat(partial.getUrlsVisited()).isEqualTo(1);
+    assertThat(Files.exists(checkpoint)).isTrue();
+
+    CrawlerConfiguration resumed = config.toBuilder().setResumeFromCheckpoint(true).build();
+    Guice.createInjector(new WebCrawlerModule(resumed), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult result = parallelWebCrawler.crawl(resumed.getStartPages());
+
+    assertThat(result.getUrlsVisited()).isEqualTo(3);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 4),
+            Map.entry("jumped", 2),
+            Map.entry("brown", 2))
+        .inOrder();
+    assertThat(Files.exists(checkpoint)).isFalse();
+  }
+
+  @Test
+  public void checkpointsWhilePagesAreDownloading(@TempDir Path tempDir) throws Exception {
+    Path checkpoint = tempDir.resolve("crawl.checkpoint");
+    Path saved = tempDir.resolve("saved.checkpoint");
+    String startPage = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setTimeoutSeconds(60)
+            .setCheckpointPath(checkpoint.toString())
+            .setCheckpointIntervalSeconds(1)
+            .addStartPages(startPage)
+            .build();
+
+    // The start page is held up until a checkpoint has been saved, which only happens if saving
+    // it does not wait for the page. That checkpoint is kept to resume from.
+    PageParserFactory parserFactory =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    PageParserFactory waiting = url -> {
+      PageParser parser = parserFactory.get(url);
+      return new PageParser() {
+        @Override
+        public Result parse() {
+          if (url.equals(startPage)) {
+            try {
+              for (int i = 0; i < 100 && !Files.exists(checkpoint); i++) {
+                Thread.sleep(100);
+              }
+              Files.copy(checkpoint, saved);
+            } catch (Exception e) {
+              throw new AssertionError("No checkpoint while the start page was parsed", e);
+            }
+          }
+          return parser.parse();
+        }
+
+        @Override
+        public CompletionStage<Content> fetch() {
+          return parser.fetch();
+        }
+
+        @Override
+        public Result parse(Content content) {
+          return parser.parse(content);
+        }
+      };
+    };
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config))
+                .with(binder -> binder.bind(PageParserFactory.class).toInstance(waiting)),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+    parallelWebCrawler.crawl(config.getStartPages());
+    assertThat(Files.exists(saved)).isTrue();
+
+    // The saved checkpoint has the start page as visited, but its words were not counted yet, so
+    // resuming from it has to crawl the start page again.
+    Files.move(saved, checkpoint);
+    CrawlerConfiguration resumed = config.toBuilder().setResumeFromCheckpoint(true).build();
+    Guice.createInjector(new WebCrawlerModule(resumed), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult result = parallelWebCrawler.crawl(resumed.getStartPages());
+
+    assertThat(result.getUrlsVisited()).isEqualTo(3);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 4),
+            Map.entry("jumped", 2),
+            Map.entry("brown", 2))
+        .inOrder();
+  }
+
+  @Test
+  public void incrementalCrawlOnlyParsesChangedPages(@TempDir Path tempDir) throws Exception {
+    Path state = tempDir.resolve("crawl.state");
+    Path first = tempDir.resolve("first.html");
+    Path second = tempDir.resolve("second.html");
+    Files.writeString(first, "<p>one <a href=\"second.html\">two</a></p>");
+    Files.writeString(second, "<p>two three</p>");
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(10)
+            .setIncrementalStatePath(state.toString())
+            .addStartPages(first.toUri().toString())
+            .build();
+
+    CrawlResult initial = incrementalCrawl(config);
+    assertThat(parses.get()).isEqualTo(2);
+    assertThat(initial.getWordCounts())
+        .containsExactly("two", 2, "one", 1, "three", 1);
+
+    CrawlResult unchanged = incrementalCrawl(config);
+    assertThat(parses.get()).isEqualTo(0);
+    assertThat(unchanged.getUrlsVisited()).isEqualTo(2);
+    assertThat(unchanged.getWordCounts()).isEqualTo(initial.getWordCounts());
+
+    Files.writeString(second, "<p>four four</p>");
+    CrawlResult changed = incrementalCrawl(config);
+    assertThat(parses.get()).isEqualTo(1);
+    assertThat(changed.getWordCounts())
+        .containsExactly("four", 2, "one", 1, "two", 1);
+
+    // The second page is no longer linked, so its words are subtracted.
+    Files.writeString(first, "<p>one two</p>");
+    CrawlResult unlinked = incrementalCrawl(config);
+    assertThat(parses.get()).isEqualTo(1);
+    assertThat(unlinked.getUrlsVisited()).isEqualTo(1);
+    assertThat(unlinked.getWordCounts()).containsExactly("one", 1, "two", 1);
+  }
+
+  @Test
+  public void crawlsLinkHeavyPagesOnce(@TempDir Path tempDir) throws Exception {
+    // Every page links to every other page twice, to itself, and to an ignored page.
+    int pageCount = 100;
+    StringBuilder links = new StringBuilder();
+    for (int i = 0; i < pageCount; i++) {
+      links.append("<a href=\"page-").append(i).append(".html\">link</a>")
+          .append("<a href=\"page-").append(i).append(".html\">link</a>");
+    }
+    links.append("<a href=\"ignored.html\">link</a>");
+    for (int i = 0; i < pageCount; i++) {
+      Files.writeString(tempDir.resolve("page-" + i + ".html"), "<p>page</p>" + links);
+    }
+    Files.writeString(tempDir.resolve("ignored.html"), "<p>ignored</p>");
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(3)
+            .setPopularWordCount(3)
+            .setParallelism(4)
+            // Leave enough time to parse every page on a cold JVM, so only a bug shows up as a
+            // short count.
+            .setTimeoutSeconds(60)
+            .addIgnoredUrls(".*ignored\\.html")
+            .addStartPages(tempDir.resolve("page-0.html").toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult result = parallelWebCrawler.crawl(config.getStartPages());
+
+    assertThat(result.getUrlsVisited()).isEqualTo(pageCount);
+    assertThat(result.getWordCounts())
+        .containsExactly("link", pageCount * (2 * pageCount + 1), "page", pageCount);
+  }
+
+  @Test
+  public void breadthFirstOrderCrawlsOneLevelAtATime(@TempDir Path tempDir) throws Exception {
+    // Page "a-b-c" is three links away from the start page, and links to every page below it.
+    // Each page also links back up, so that pages are found again from deeper levels.
+    writeTreePage(tempDir, "", 4);
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setParallelism(4)
+            .setCrawlOrder("breadth-first")
+            .addStartPages(tempDir.resolve("page.html").toUri().toString())
+            .build();
+    PageParserFactory parserFactory =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    List<Integer> levels = Collections.synchronizedList(new ArrayList<>());
+    PageParserFactory recording = url -> {
+      PageParser parser = parserFactory.get(url);
+      // The page names have one dash per level.
+      String name = Path.of(URI.create(url)).getFileName().toString();
+      levels.add((int) name.chars().filter(c -> c == '-').count());
+      return parser;
+    };
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config))
+                .with(binder -> binder.bind(PageParserFactory.class).toInstance(recording)),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult result = parallelWebCrawler.crawl(config.getStartPages());
+
+    assertThat(result.getUrlsVisited()).isEqualTo(1 + 3 + 9 + 27);
+    assertThat(levels).isInOrder();
+    CrawlResult unordered = crawl(config.toBuilder().setCrawlOrder("unordered").build());
+    assertThat(result.getUrlsVisited()).isEqualTo(unordered.getUrlsVisited());
+    assertThat(result.getWordCounts()).isEqualTo(unordered.getWordCounts());
+  }
+
+  @Test
+  public void priorityOrderCrawlsBestPagesFirst(@TempDir Path tempDir) throws Exception {
+    writeTreePage(tempDir, "", 3);
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            // With a single worker, pages are crawled strictly in priority order.
+            .setParallelism(1)
+            .setCrawlOrder("priority")
+            .putPriorityUrlWeights(Map.of(".*/c-[^/]*", 5.0))
+            .addStartPages(tempDir.resolve("page.html").toUri().toString())
+            .build();
+    PageParserFactory parserFactory =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    List<String> pages = Collections.synchronizedList(new ArrayList<>());
+    PageParserFactory recording = url -> {
+      pages.add(Path.of(URI.create(url)).getFileName().toString());
+      return parserFactory.get(url);
+    };
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config))
+                .with(binder -> binder.bind(PageParserFactory.class).toInstance(recording)),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult result = parallelWebCrawler.crawl(config.getStartPages());
+
+    // Pages under "c-" match the pattern, so they beat the shallower pages under "a-" and "b-".
+    // Links on the same page are not found in any particular order.
+    assertThat(pages.subList(0, 2)).containsExactly("page.html", "c-page.html").inOrder();
+    assertThat(pages.subList(2, 5))
+        .containsExactly("c-a-page.html", "c-b-page.html", "c-c-page.html");
+    assertThat(pages.get(5)).isAnyOf("a-page.html", "b-page.html");
+    assertThat(result.getUrlsVisited()).isEqualTo(1 + 3 + 9);
+    CrawlResult unordered = crawl(config.toBuilder().setCrawlOrder("unordered").build());
+    assertThat(result.getWordCounts()).isEqualTo(unordered.getWordCounts());
+  }
+
+  /**
+   * Writes the page with the given name prefix and the pages below it, down to the given number
+   * of levels.
+   */
+  private static void writeTreePage(Path dir, String prefix, int levels) throws Exception {
+    StringBuilder html = new StringBuilder("<p>page</p><a href=\"page.html\">top</a>");
+    if (levels > 1) {
+      for (char child = 'a'; child < 'd'; child++) {
+        String childPrefix = prefix + child + "-";
+        html.append("<a href=\"").append(childPrefix).append("page.html\">down</a>");
+        writeTreePage(dir, childPrefix, levels - 1);
+      }
+    }
+    Files.writeString(dir.resolve(prefix + "page.html"), html);
+  }
+
+  @Test
+  public void keepsTheFrontierWithinItsCapacity(@TempDir Path tempDir) throws Exception {
+    // Every page links to 8 pages below it, so a crawl from the top finds 8 + 64 + 512 pages.
+    int capacity = 16;
+    writeWidePage(tempDir, "", 4);
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(4)
+            .setTimeoutSeconds(60)
+            .addStartPages(tempDir.resolve("page.html").toUri().toString())
+            .build();
+    Injector injector =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule());
+    PageParserFactory parserFactory = injector.getInstance(PageParserFactory.class);
+    CrawlFrontier frontier = new CrawlFrontier(capacity, 0, Duration.ZERO, false);
+    AtomicInteger mostTaken = new AtomicInteger();
+    PageParserFactory sampling = url -> {
+      mostTaken.accumulateAndGet(frontier.taken(), Math::max);
+      return parserFactory.get(url);
+    };
+    VisitedUrlSet visitedUrls = new ExactVisitedUrlSet();
+    CrawlTask crawlTask =
+        new CrawlTask.Builder()
+            .setCounts(new WordCountAccumulator(4))
+            .setClock(Clock.systemUTC())
+            .setDeadline(Instant.now().plus(Duration.ofSeconds(60)))
+            .setIgnoredUrls(IgnoredUrlFilter.compile(List.of()))
+            .setMaxDepth(config.getMaxDepth())
+            .setFrontier(frontier)
+            .setParserFactory(sampling)
+            .setVisitedUrls(visitedUrls)
+            .setStatistics(CrawlStatistics.start(
+                    injector.getInstance(FetchBudget.class),
+                    injector.getInstance(PageStats.class)))
+            .setStartingUrls(config.getStartPages())
+            .build();
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      pool.invoke(crawlTask);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertThat(visitedUrls.size()).isEqualTo(1 + 8 + 64 + 512);
+    assertThat(mostTaken.get()).isAtMost(capacity);
+    assertThat(frontier.taken()).isEqualTo(0);
+  }
+
+  /**
+   * Writes the page with the given name prefix and the pages below it, down to the given number
+   * of levels, with 8 links on every page that has pages below it.
+   */
+  private static void writeWidePage(Path dir, String prefix, int levels) throws Exception {
+    StringBuilder html = new StringBuilder("<p>page</p>");
+    if (levels > 1) {
+      for (int child = 0; child < 8; child++) {
+        String childPrefix = prefix + child + "-";
+        html.append("<a href=\"").append(childPrefix).append("page.html\">down</a>");
+        writeWidePage(dir, childPrefix, levels - 1);
+      }
+    }
+    Files.writeString(dir.resolve(prefix + "page.html"), html);
+  }
+
+  private CrawlResult crawl(CrawlerConfiguration config) {
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    return parallelWebCrawler.crawl(config.getStartPages());
+  }
+
+  @Test
+  public void stopsForkingTasksOnceTheDeadlinePasses(@TempDir Path tempDir) throws Exception {
+    StringBuilder links = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      Path page = tempDir.resolve("page-" + i + ".html");
+      Files.writeString(page, "<p>linked</p>");
+      links.append("<a href=\"").append(page.getFileName()).append("\">link</a>");
+    }
+    Path start = tempDir.resolve("start.html");
+    Files.writeString(start, "<p>start</p>" + links);
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(2)
+            .setPopularWordCount(3)
+            .addStartPages(start.toUri().toString())
+            .build();
+
+    // The deadline passes while the start page is being parsed.
+    FakeClock clock = new FakeClock();
+    AtomicInteger readsAtExpiry = new AtomicInteger();
+    PageParserFactory parserFactory =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    PageParserFactory expiring = url -> {
+      PageParser parser = parserFactory.get(url);
+      return new PageParser() {
+        @Override
+        public Result parse() {
+          parses.incrementAndGet();
+          Result result = parser.parse();
+          // Only this task is running, so no other thread reads the clock in between.
+          clock.tick(Duration.ofHours(1));
+          readsAtExpiry.set(clock.getReads());
+          return result;
+        }
+
+        @Override
+        public CompletionStage<Content> fetch() {
+          return parser.fetch();
+        }
+
+        @Override
+        public Result parse(Content content) {
+          parses.incrementAndGet();
+          return parser.parse(content);
+        }
+      };
+    };
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config))
+                .with(binder -> {
+                  binder.bind(Clock.class).toInstance(clock);
+                  binder.bind(PageParserFactory.class).toInstance(expiring);
+                }),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+    parses.set(0);
+    CrawlResult result = parallelWebCrawler.crawl(config.getStartPages());
+
+    assertThat(result.getUrlsVisited()).isEqualTo(1);
+    assertThat(result.getWordCounts()).containsExactly("start", 1, "link", 200);
+    assertThat(parses.get()).isEqualTo(1);
+    // Only the task that crawled the start page reads the clock again, and then drops the 200
+    // queued links without forking a task for any of them.
+    assertThat(clock.getReads() - readsAtExpiry.get()).isEqualTo(1);
+  }
+
+  private final AtomicInteger parses = new AtomicInteger();
+
+  /**
+   * Runs a crawl with the given configuration, counting the pages that are parsed in {@link
+   * #parses}.
+   */
+  private CrawlResult incrementalCrawl(CrawlerConfiguration config) {
+    PageParserFactory parserFactory =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    PageParserFactory counting = url -> {
+      PageParser parser = parserFactory.get(url);
+      return new PageParser() {
+        @Override
+        public Result parse() {
+          parses.incrementAndGet();
+          return parser.parse();
+        }
+
+        @Override
+        public CompletionStage<Content> fetch() {
+          return parser.fetch();
+        }
+
+        @Override
+        public Result parse(Content content) {
+          parses.incrementAndGet();
+          return parser.parse(content);
+        }
+      };
+    };
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config))
+                .with(binder -> binder.bind(PageParserFactory.class).toInstance(counting)),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+    parses.set(0);
+    return parallelWebCrawler.crawl(config.getStartPages());
+  }
 }
@@ -0,0 +1,115 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class VisitedUrlSetTest {
+
+  @ParameterizedTest
+  @MethodSource("provideImplementations")
+  public void survivesWriteAndRead(Supplier<VisitedUrlSet> implementation) throws Exception {
+    VisitedUrlSet visited = implementation.get();
+    for (int i = 0; i < 1_000; i++) {
+      visited.add("https://example.com/page-" + i);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    visited.writeTo(new DataOutputStream(bytes));
+
+    VisitedUrlSet restored = implementation.get();
+    restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertThat(restored.size()).isEqualTo(1_000);
+    assertThat(restored.contains("https://EXAMPLE.com/page-999#top")).isTrue();
+    assertThat(restored.add("https://example.com/page-0")).isFalse();
+    assertThat(restored.add("https://example.com/page-1000")).isTrue();
+  }
+
+  static Stream<Supplier<VisitedUrlSet>> provideImplementations() {
+    return Stream.of(ExactVisitedUrlSet::new, FingerprintVisitedUrlSet::new);
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideImplementations")
+  public void addsEachUrlOnce(Supplier<VisitedUrlSet> implementation) {
+    VisitedUrlSet visited = implementation.get();
+
+    assertThat(visited.contains("https://example.com/a")).isFalse();
+    assertThat(visited.add("https://example.com/a")).isTrue();
+    assertThat(visited.add("https://example.com/a")).isFalse();
+    assertThat(visited.contains("https://example.com/a")).isTrue();
+    assertThat(visited.add("https://example.com/b")).isTrue();
+    assertThat(visited.size()).isEqualTo(2);
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideImplementations")
+  public void treatsEquivalentUrlsAsVisited(Supplier<VisitedUrlSet> implementation) {
+    VisitedUrlSet visited = implementation.get();
+
+    assertThat(visited.add("https://example.com/Page")).isTrue();
+    assertThat(visited.add("HTTPS://EXAMPLE.COM:443/Page#top")).isFalse();
+    assertThat(visited.contains("https://Example.com/Page#bottom")).isTrue();
+    assertThat(visited.contains("https://example.com/page")).isFalse();
+    assertThat(visited.size()).isEqualTo(1);
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideImplementations")
+  public void growsPastInitialCapacity(Supplier<VisitedUrlSet> implementation) {
+    VisitedUrlSet visited = implementation.get();
+    for (int i = 0; i < 100_000; i++) {
+      assertThat(visited.add("https://example.com/page-" + i)).isTrue();
+    }
+    for (int i = 0; i < 100_000; i++) {
+      assertThat(visited.contains("https://example.com/page-" + i)).isTrue();
+    }
+    assertThat(visited.contains("https://example.com/page-100000")).isFalse();
+    assertThat(visited.size()).isEqualTo(100_000);
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideImplementations")
+  public void concurrentAddsClaimEachUrlOnce(Supplier<VisitedUrlSet> implementation)
+      throws Exception {
+    VisitedUrlSet visited = implementation.get();
+    AtomicInteger claimed = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        for (int i = 0; i < 10_000; i++) {
+          if (visited.add("https://example.com/page-" + i)) {
+            claimed.incrementAndGet();
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(claimed.get()).isEqualTo(10_000);
+    assertThat(visited.size()).isEqualTo(10_000);
+  }
+}
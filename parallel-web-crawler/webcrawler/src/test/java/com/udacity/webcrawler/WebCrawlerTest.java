@@ -1,17 +1,30 @@
 package com.udacity.webcrawler;
 
 import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchBudget;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageStats;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import javax.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static com.google.common.truth.Truth.assertThat;
@@ -56,6 +69,86 @@ public final class WebCrawlerTest {
     assertThat(crawler.getClass()).isAssignableTo(ParallelWebCrawler.class);
   }
 
+  @Test
+  public void testOverrideToVirtualThread() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(VirtualThreadWebCrawler.class.getName())
+            .setParallelism(12)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(VirtualThreadWebCrawler.class);
+  }
+
+  @Test
+  public void virtualThreadCrawlerParsesWithoutHoldingAFetchPermit() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(VirtualThreadWebCrawler.class.getName())
+            .setMaxConcurrentFetches(1)
+            .setMaxDepth(1)
+            .setPopularWordCount(3)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .addStartPages(Paths.get(DATA_DIR, "link-1.html").toUri().toString())
+            .build();
+    PageParserFactory parserFactory =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    // Each page is only parsed once both have been downloaded, which cannot happen if the first
+    // page holds on to the only fetch permit while it is parsed.
+    CountDownLatch fetched = new CountDownLatch(2);
+    AtomicInteger parsedAfterBothFetches = new AtomicInteger();
+    PageParserFactory waiting = url -> {
+      PageParser parser = parserFactory.get(url);
+      return new PageParser() {
+        @Override
+        public Result parse() {
+          return parse(fetch().toCompletableFuture().join());
+        }
+
+        @Override
+        public CompletionStage<Content> fetch() {
+          return parser.fetch().whenComplete((content, e) -> fetched.countDown());
+        }
+
+        @Override
+        public Result parse(Content content) {
+          try {
+            if (fetched.await(10, TimeUnit.SECONDS)) {
+              parsedAfterBothFetches.incrementAndGet();
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return parser.parse(content);
+        }
+      };
+    };
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config))
+                .with(binder -> binder.bind(PageParserFactory.class).toInstance(waiting)),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult result = crawler.crawl(config.getStartPages());
+
+    assertThat(result.getUrlsVisited()).isEqualTo(2);
+    assertThat(parsedAfterBothFetches.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testOverrideToPipelined() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(PipelinedWebCrawler.class.getName())
+            .setParallelism(12)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(PipelinedWebCrawler.class);
+  }
+
   @Test
   public void testSequentialParallelism() {
     CrawlerConfiguration config =
@@ -154,6 +247,110 @@ public final class WebCrawlerTest {
         .inOrder();
   }
 
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void recordsPageStatistics(Class<?> crawlerClass) {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult result = crawler.crawl(config.getStartPages());
+
+    assertThat(result.getPagesPerHost()).containsExactly("", 3);
+    assertThat(result.getPagesPerSecond()).isGreaterThan(0.0);
+    assertThat(result.getBytesDownloaded()).isGreaterThan(0L);
+    // One of the links points to a page that does not exist.
+    assertThat(result.getErrorCounts()).containsExactly("NoSuchFileException", 1L);
+    assertThat(result.getFetchLatency().getCount()).isEqualTo(3);
+    assertThat(result.getParseLatency().getCount()).isEqualTo(2);
+    assertThat(result.getParseLatency().getMaxMillis())
+        .isAtLeast(result.getParseLatency().getP50Millis());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void pageStatisticsArePerCrawl(Class<?> crawlerClass) {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult first = crawler.crawl(config.getStartPages());
+    CrawlResult second = crawler.crawl(config.getStartPages());
+
+    assertThat(second.getUrlsVisited()).isEqualTo(first.getUrlsVisited());
+    assertThat(second.getPagesPerHost()).isEqualTo(first.getPagesPerHost());
+    assertThat(second.getBytesDownloaded()).isEqualTo(first.getBytesDownloaded());
+    assertThat(second.getErrorCounts()).containsExactly("NoSuchFileException", 1L);
+    assertThat(second.getFetchLatency().getCount()).isEqualTo(3);
+    assertThat(second.getParseLatency().getCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void overlappingCrawlsEachGetTheWholeByteBudget() throws Exception {
+    Path page = Paths.get(DATA_DIR, "test-page.html");
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder().setMaxCrawlBytes(Files.size(page)).build();
+    Injector injector =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule());
+    FetchBudget fetchBudget = injector.getInstance(FetchBudget.class);
+    PageStats pageStats = injector.getInstance(PageStats.class);
+    PageParserFactory parserFactory = injector.getInstance(PageParserFactory.class);
+    Instant deadline = Instant.now().plusSeconds(60);
+
+    // The second crawl starts before the first one has read its page.
+    CrawlStatistics first = CrawlStatistics.start(fetchBudget, pageStats);
+    CrawlStatistics second = CrawlStatistics.start(fetchBudget, pageStats);
+    String url = page.toUri().toString();
+    parserFactory.get(url, deadline, second.getFetchBudget()).parse();
+    PageParser.Result result = parserFactory.get(url, deadline, first.getFetchBudget()).parse();
+
+    assertThat(result.getWordCounts()).isNotEmpty();
+    for (CrawlStatistics statistics : List.of(first, second)) {
+      CrawlResult crawlResult = statistics.newResult(new ExactVisitedUrlSet()).build();
+      assertThat(crawlResult.getBytesDownloaded()).isEqualTo(Files.size(page));
+      assertThat(crawlResult.getPagesAborted()).isEqualTo(0);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void crawlByteBudgetIsPerCrawl(Class<?> crawlerClass) throws Exception {
+    Path page = Paths.get(DATA_DIR, "test-page.html");
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(1)
+            .setPopularWordCount(3)
+            .setMaxCrawlBytes(Files.size(page))
+            .addStartPages(page.toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult first = crawler.crawl(config.getStartPages());
+    CrawlResult second = crawler.crawl(config.getStartPages());
+
+    assertThat(first.getUrlsVisited()).isEqualTo(1);
+    assertThat(first.getBytesDownloaded()).isEqualTo(Files.size(page));
+    assertWithMessage("The first crawl spent the whole budget, but the second gets its own")
+        .that(second.getBytesDownloaded())
+        .isEqualTo(first.getBytesDownloaded());
+    assertThat(second.getPagesAborted()).isEqualTo(0);
+    assertThat(second.getWordCounts()).isEqualTo(first.getWordCounts());
+  }
+
   @ParameterizedTest
   @MethodSource("provideTestParameters")
   public void respectsIgnoredUrls(Class<?> crawlerClass) {
@@ -323,4 +520,63 @@ public final class WebCrawlerTest {
             Map.entry("brown", 4))
         .inOrder();
   }
-}
\ No newline at end of file
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void fingerprintVisitedUrlMode(Class<?> crawlerClass) {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setVisitedUrlMode("fingerprint")
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .addStartPages(Paths.get(DATA_DIR, "link-1.html").toUri().toString())
+            .addStartPages(Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(crawlerClass);
+
+    CrawlResult result = crawler.crawl(config.getStartPages());
+
+    assertThat(result.getUrlsVisited()).isEqualTo(5);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 8),
+            Map.entry("jumped", 4),
+            Map.entry("brown", 4))
+        .inOrder();
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void bloomFilterVisitedUrlMode(Class<?> crawlerClass) {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setVisitedUrlMode("bloom")
+            .setBloomFilterExpectedUrls(1_000)
+            .setBloomFilterFalsePositiveRate(0.0001)
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .addStartPages(Paths.get(DATA_DIR, "link-1.html").toUri().toString())
+            .addStartPages(Paths.get(DATA_DIR, "infinite-loop.html").toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(crawlerClass);
+
+    CrawlResult result = crawler.crawl(config.getStartPages());
+
+    assertThat(result.getUrlsVisited()).isEqualTo(5);
+    assertThat(result.getEstimatedFalsePositiveSkips()).isEqualTo(0);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 8),
+            Map.entry("jumped", 4),
+            Map.entry("brown", 4))
+        .inOrder();
+  }
+}
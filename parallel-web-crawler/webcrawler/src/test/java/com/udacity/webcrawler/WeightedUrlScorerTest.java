@@ -0,0 +1,54 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class WeightedUrlScorerTest {
+
+  @Test
+  public void favorsShallowPages() {
+    UrlScorer scorer = new WeightedUrlScorer(1, 0, 0, Map.of());
+
+    assertThat(scorer.score("http://a.com/1", 3)).isGreaterThan(scorer.score("http://a.com/2", 2));
+  }
+
+  @Test
+  public void countsLinksToTheSamePage() {
+    UrlScorer scorer = new WeightedUrlScorer(0, 2, 0, Map.of());
+
+    assertThat(scorer.score("http://a.com/page", 1)).isEqualTo(2.0);
+    // The same page, written differently.
+    assertThat(scorer.score("HTTP://A.com/page#top", 1)).isEqualTo(4.0);
+    assertThat(scorer.score("http://a.com/other", 1)).isEqualTo(2.0);
+  }
+
+  @Test
+  public void lowersPriorityOfHostsPastTheirQuota() {
+    UrlScorer scorer = new WeightedUrlScorer(0, 0, 2, Map.of());
+
+    scorer.crawled("http://a.com/1");
+    assertThat(scorer.score("http://a.com/3", 1)).isEqualTo(0.0);
+    scorer.crawled("http://a.com/2");
+    assertThat(scorer.score("http://a.com/3", 1)).isEqualTo(-1.0);
+    assertThat(scorer.score("http://b.com/1", 1)).isEqualTo(0.0);
+  }
+
+  @Test
+  public void addsWeightsOfMatchingPatterns() {
+    UrlScorer scorer = new WeightedUrlScorer(
+        0, 0, 0, Map.of("https?://a\\.com/docs/.*", 5.0, ".*\\.pdf", -3.0));
+
+    assertThat(scorer.score("http://a.com/docs/intro.html", 1)).isEqualTo(5.0);
+    assertThat(scorer.score("http://a.com/docs/manual.pdf", 1)).isEqualTo(2.0);
+    assertThat(scorer.score("http://a.com/index.html", 1)).isEqualTo(0.0);
+  }
+
+  @Test
+  public void rejectsNegativeHostQuota() {
+    assertThrows(IllegalArgumentException.class, () -> new WeightedUrlScorer(0, 0, -1, Map.of()));
+  }
+}
@@ -0,0 +1,125 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares merging per-page word counts into one shared {@link ConcurrentHashMap}, the way
+ * {@link CrawlTask} used to, against adding them to a {@link WordCountAccumulator}. Two other
+ * designs are measured as well: a shared map of {@link LongAdder}s, and one plain map per thread.
+ *
+ * <p>The thread count is set on the command line, for example {@code -t 32}.
+ *
+ * <p>Pages draw their words from a Zipf-like vocabulary, so a handful of words appear on every
+ * page and every thread keeps updating the same map bins for them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+public class WordCountAccumulatorBenchmark {
+
+  private static final int PAGES = 1_024;
+  private static final int WORDS_PER_PAGE = 300;
+  private static final int VOCABULARY = 50_000;
+
+  private List<Map<String, Integer>> pages;
+  private ConcurrentHashMap<String, Integer> sharedCounts;
+  private WordCountAccumulator accumulator;
+  private ConcurrentHashMap<String, LongAdder> adderCounts;
+  private Queue<Map<String, int[]>> threadCounts;
+  private ThreadLocal<Map<String, int[]>> localCounts;
+
+  @Setup(Level.Trial)
+  public void generatePages() {
+    Random random = new Random(42);
+    pages = new ArrayList<>(PAGES);
+    for (int i = 0; i < PAGES; i++) {
+      Map<String, Integer> page = new HashMap<>();
+      for (int j = 0; j < WORDS_PER_PAGE; j++) {
+        // Cubing a uniform sample skews the picks heavily toward the first few words.
+        double u = random.nextDouble();
+        String word = "word" + (int) (u * u * u * VOCABULARY);
+        page.merge(word, 1, Integer::sum);
+      }
+      pages.add(page);
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void resetCounts() {
+    sharedCounts = new ConcurrentHashMap<>();
+    accumulator = new WordCountAccumulator(16);
+    adderCounts = new ConcurrentHashMap<>();
+    // Every thread's map is kept, since merging them is up to whoever reads the counts.
+    Queue<Map<String, int[]>> counts = new ConcurrentLinkedQueue<>();
+    threadCounts = counts;
+    localCounts = ThreadLocal.withInitial(() -> {
+      Map<String, int[]> map = new HashMap<>();
+      counts.add(map);
+      return map;
+    });
+  }
+
+  @State(Scope.Thread)
+  public static class PageCursor {
+    private int next;
+
+    Map<String, Integer> nextPage(List<Map<String, Integer>> pages) {
+      next = (next + 1) % pages.size();
+      return pages.get(next);
+    }
+  }
+
+  @Benchmark
+  public Map<String, Integer> concurrentHashMapCompute(PageCursor cursor) {
+    for (Map.Entry<String, Integer> e : cursor.nextPage(pages).entrySet()) {
+      sharedCounts.compute(e.getKey(), (k, v) -> (v == null) ? e.getValue() : e.getValue() + v);
+    }
+    return sharedCounts;
+  }
+
+  @Benchmark
+  public WordCountAccumulator shardedAccumulator(PageCursor cursor) {
+    accumulator.add(cursor.nextPage(pages));
+    return accumulator;
+  }
+
+  @Benchmark
+  public Map<String, LongAdder> longAdderMap(PageCursor cursor) {
+    for (Map.Entry<String, Integer> e : cursor.nextPage(pages).entrySet()) {
+      adderCounts.computeIfAbsent(e.getKey(), k -> new LongAdder()).add(e.getValue());
+    }
+    return adderCounts;
+  }
+
+  @Benchmark
+  public Map<String, int[]> threadLocalMaps(PageCursor cursor) {
+    Map<String, int[]> counts = localCounts.get();
+    for (Map.Entry<String, Integer> e : cursor.nextPage(pages).entrySet()) {
+      counts.computeIfAbsent(e.getKey(), k -> new int[1])[0] += e.getValue();
+    }
+    return counts;
+  }
+}
@@ -0,0 +1,41 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class WordCountAccumulatorTest {
+  @Test
+  public void testSingleThread() {
+    WordCountAccumulator accumulator = new WordCountAccumulator(1);
+    accumulator.add(Map.of("the", 2, "quick", 1));
+    accumulator.add(Map.of("the", 1, "fox", 1));
+
+    assertThat(accumulator.merge())
+        .containsExactly("the", 3, "quick", 1, "fox", 1);
+  }
+
+  @Test
+  public void testManyThreads() throws Exception {
+    WordCountAccumulator accumulator = new WordCountAccumulator(4);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      pool.submit(() -> IntStream.range(0, 1000)
+              .parallel()
+              .forEach(i -> accumulator.add(Map.of("the", 1, "word" + (i % 10), 2))))
+          .get();
+    } finally {
+      pool.shutdown();
+    }
+
+    Map<String, Integer> merged = accumulator.merge();
+    assertThat(merged).hasSize(11);
+    assertThat(merged).containsEntry("the", 1000);
+    assertThat(merged).containsEntry("word0", 200);
+    assertThat(merged).containsEntry("word9", 200);
+  }
+}
@@ -3,7 +3,9 @@ package com.udacity.webcrawler;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Random;
 
 import static com.google.common.truth.Truth.assertWithMessage;
 
@@ -82,4 +84,29 @@ public final class WordCountsTest {
             Map.entry("quick", 1),
             Map.entry("fox", 1))
         .inOrder();  }
+
+  @Test
+  public void testMatchesFullSort() {
+    Random random = new Random(7);
+    Map<String, Integer> unsortedCounts = new HashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      // Lots of ties on count and length, so the alphabetical tie-break matters.
+      unsortedCounts.put("w" + random.nextInt(50_000), 1 + random.nextInt(20));
+    }
+
+    Map<String, Integer> expected = new LinkedHashMap<>();
+    unsortedCounts.entrySet().stream()
+        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+            .thenComparing(e -> e.getKey().length(), (a, b) -> b - a)
+            .thenComparing(Map.Entry::getKey))
+        .limit(100)
+        .forEach(e -> expected.put(e.getKey(), e.getValue()));
+
+    Map<String, Integer> result = WordCounts.sort(unsortedCounts, 100);
+
+    assertWithMessage("Returned the correct words, but they are in the wrong order")
+        .that(result.entrySet())
+        .containsExactlyElementsIn(expected.entrySet())
+        .inOrder();
+  }
 }
@@ -6,8 +6,10 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.time.Duration;
+import java.util.Map;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public final class ConfigurationLoaderTest {
@@ -20,11 +22,30 @@ public final class ConfigurationLoaderTest {
         "\"ignoredWords\": [\"^.{1,3}$\"], " +
         "\"parallelism\": 4, " +
         "\"implementationOverride\": \"fully.qualified.OverrideClass\", " +
+        "\"maxConcurrentFetches\": 1000, " +
+        "\"maxConcurrentRequestsPerHost\": 2, " +
+        "\"minDelayPerHostMillis\": 250, " +
+        "\"visitedUrlMode\": \"bloom\", " +
+        "\"bloomFilterExpectedUrls\": 50000000, " +
+        "\"bloomFilterFalsePositiveRate\": 0.01, " +
         "\"maxDepth\": 100, " +
         "\"timeoutSeconds\": 10, " +
         "\"popularWordCount\": 5, " +
         "\"profileOutputPath\": \"profileOutput.txt\", " +
-        "\"resultPath\": \"resultPath.json\" " +
+        "\"resultPath\": \"resultPath.json\", " +
+        "\"checkpointPath\": \"crawl.checkpoint\", " +
+        "\"checkpointIntervalSeconds\": 5, " +
+        "\"resumeFromCheckpoint\": true, " +
+        "\"pageCachePath\": \"page-cache\", " +
+        "\"parseCacheMaxBytes\": 1000000, " +
+        "\"parserMode\": \"streaming\", " +
+        "\"maxPageBytes\": 2000000, " +
+        "\"maxCrawlBytes\": 1000000000, " +
+        "\"crawlOrder\": \"breadth-first\", " +
+        "\"priorityDepthWeight\": 0.5, " +
+        "\"priorityInLinkWeight\": 2, " +
+        "\"priorityHostQuota\": 100, " +
+        "\"priorityUrlWeights\": {\".*/docs/.*\": 5, \".*\\\\.pdf\": -1.5} " +
         " }";
 
     Reader reader = new StringReader(json);
@@ -43,11 +64,32 @@ public final class ConfigurationLoaderTest {
     assertThat(config.getIgnoredWords().get(0).pattern()).isEqualTo("^.{1,3}$");
     assertThat(config.getParallelism()).isEqualTo(4);
     assertThat(config.getImplementationOverride()).isEqualTo("fully.qualified.OverrideClass");
+    assertThat(config.getMaxConcurrentFetches()).isEqualTo(1000);
+    assertThat(config.getMaxConcurrentRequestsPerHost()).isEqualTo(2);
+    assertThat(config.getMinDelayPerHost()).isEqualTo(Duration.ofMillis(250));
+    assertThat(config.getVisitedUrlMode()).isEqualTo("bloom");
+    assertThat(config.getBloomFilterExpectedUrls()).isEqualTo(50_000_000);
+    assertThat(config.getBloomFilterFalsePositiveRate()).isEqualTo(0.01);
     assertThat(config.getMaxDepth()).isEqualTo(100);
     assertThat(config.getTimeout()).isEqualTo(Duration.ofSeconds(10));
     assertThat(config.getPopularWordCount()).isEqualTo(5);
     assertThat(config.getProfileOutputPath()).isEqualTo("profileOutput.txt");
     assertThat(config.getResultPath()).isEqualTo("resultPath.json");
+    assertThat(config.getCheckpointPath()).isEqualTo("crawl.checkpoint");
+    assertThat(config.getCheckpointInterval()).isEqualTo(Duration.ofSeconds(5));
+    assertThat(config.isResumeFromCheckpoint()).isTrue();
+    assertThat(config.getPageCachePath()).isEqualTo("page-cache");
+    assertThat(config.getParseCacheMaxBytes()).isEqualTo(1_000_000);
+    assertThat(config.getParserMode()).isEqualTo("streaming");
+    assertThat(config.getMaxPageBytes()).isEqualTo(2_000_000);
+    assertThat(config.getMaxCrawlBytes()).isEqualTo(1_000_000_000);
+    assertThat(config.getCrawlOrder()).isEqualTo("breadth-first");
+    assertThat(config.getPriorityDepthWeight()).isEqualTo(0.5);
+    assertThat(config.getPriorityInLinkWeight()).isEqualTo(2);
+    assertThat(config.getPriorityHostQuota()).isEqualTo(100);
+    assertThat(config.getPriorityUrlWeights())
+        .containsExactly(".*/docs/.*", 5.0, ".*\\.pdf", -1.5)
+        .inOrder();
   }
 
   @Test
@@ -72,10 +114,117 @@ public final class ConfigurationLoaderTest {
     assertThat(config.getIgnoredWords()).isEmpty();
     assertThat(config.getParallelism()).isEqualTo(-1);
     assertThat(config.getImplementationOverride()).isEmpty();
+    assertThat(config.getMaxConcurrentFetches()).isEqualTo(256);
+    assertThat(config.getMaxConcurrentRequestsPerHost()).isEqualTo(0);
+    assertThat(config.getMinDelayPerHost()).isEqualTo(Duration.ZERO);
+    assertThat(config.getVisitedUrlMode()).isEqualTo("exact");
+    assertThat(config.getBloomFilterExpectedUrls()).isEqualTo(10_000_000);
+    assertThat(config.getBloomFilterFalsePositiveRate()).isEqualTo(0.001);
     assertThat(config.getMaxDepth()).isEqualTo(100);
     assertThat(config.getTimeout()).isEqualTo(Duration.ofSeconds(10));
     assertThat(config.getPopularWordCount()).isEqualTo(5);
     assertThat(config.getProfileOutputPath()).isEmpty();
     assertThat(config.getResultPath()).isEmpty();
+    assertThat(config.getCheckpointPath()).isEmpty();
+    assertThat(config.getCheckpointInterval()).isEqualTo(Duration.ofSeconds(60));
+    assertThat(config.isResumeFromCheckpoint()).isFalse();
+    assertThat(config.getPageCachePath()).isEmpty();
+    assertThat(config.getParseCacheMaxBytes()).isEqualTo(0);
+    assertThat(config.getIncrementalStatePath()).isEmpty();
+    assertThat(config.getParserMode()).isEqualTo("dom");
+    assertThat(config.getMaxPageBytes()).isEqualTo(0);
+    assertThat(config.getMaxCrawlBytes()).isEqualTo(0);
+    assertThat(config.getCrawlOrder()).isEqualTo("unordered");
+    assertThat(config.getPriorityDepthWeight()).isEqualTo(1);
+    assertThat(config.getPriorityInLinkWeight()).isEqualTo(0);
+    assertThat(config.getPriorityHostQuota()).isEqualTo(0);
+    assertThat(config.getPriorityUrlWeights()).isEmpty();
+  }
+
+  @Test
+  public void testIncrementalStatePath() {
+    String json = "{ " +
+        "\"maxDepth\": 100, " +
+        "\"incrementalStatePath\": \"crawl.state\" " +
+        " }";
+
+    CrawlerConfiguration config = ConfigurationLoader.read(new StringReader(json));
+
+    assertThat(config.getIncrementalStatePath()).isEqualTo("crawl.state");
+    assertThat(config.toBuilder().build().getIncrementalStatePath()).isEqualTo("crawl.state");
+    // A resumed crawl would not know which pages were already revisited before it was interrupted.
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> config.toBuilder().setResumeFromCheckpoint(true).build());
+  }
+
+  @Test
+  public void testToBuilderKeepsEveryOption() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .addStartPages("http://example.com", "http://example.com/foo")
+            .addIgnoredUrls("http://example\\.com/.*")
+            .addIgnoredWords("^.{1,3}$")
+            .setParallelism(4)
+            .setImplementationOverride("fully.qualified.OverrideClass")
+            .setMaxConcurrentFetches(1000)
+            .setMaxConcurrentRequestsPerHost(2)
+            .setMinDelayPerHostMillis(250)
+            .setVisitedUrlMode("bloom")
+            .setBloomFilterExpectedUrls(50_000_000)
+            .setBloomFilterFalsePositiveRate(0.01)
+            .setMaxDepth(100)
+            .setTimeoutSeconds(10)
+            .setPopularWordCount(5)
+            .setProfileOutputPath("profileOutput.txt")
+            .setResultPath("resultPath.json")
+            .setCheckpointPath("crawl.checkpoint")
+            .setCheckpointIntervalSeconds(5)
+            .setPageCachePath("page-cache")
+            .setParseCacheMaxBytes(1_000_000)
+            .setParserMode("streaming")
+            .setMaxPageBytes(2_000_000)
+            .setMaxCrawlBytes(1_000_000_000)
+            .setCrawlOrder("breadth-first")
+            .setPriorityDepthWeight(0.5)
+            .setPriorityInLinkWeight(2)
+            .setPriorityHostQuota(100)
+            .putPriorityUrlWeights(Map.of(".*/docs/.*", 5.0))
+            .build();
+
+    CrawlerConfiguration copy = config.toBuilder().setResumeFromCheckpoint(true).build();
+
+    assertThat(copy.getStartPages()).isEqualTo(config.getStartPages());
+    assertThat(copy.getIgnoredUrls().get(0).pattern())
+        .isEqualTo(config.getIgnoredUrls().get(0).pattern());
+    assertThat(copy.getIgnoredWords().get(0).pattern())
+        .isEqualTo(config.getIgnoredWords().get(0).pattern());
+    assertThat(copy.getParallelism()).isEqualTo(4);
+    assertThat(copy.getImplementationOverride()).isEqualTo("fully.qualified.OverrideClass");
+    assertThat(copy.getMaxConcurrentFetches()).isEqualTo(1000);
+    assertThat(copy.getMaxConcurrentRequestsPerHost()).isEqualTo(2);
+    assertThat(copy.getMinDelayPerHost()).isEqualTo(Duration.ofMillis(250));
+    assertThat(copy.getVisitedUrlMode()).isEqualTo("bloom");
+    assertThat(copy.getBloomFilterExpectedUrls()).isEqualTo(50_000_000);
+    assertThat(copy.getBloomFilterFalsePositiveRate()).isEqualTo(0.01);
+    assertThat(copy.getMaxDepth()).isEqualTo(100);
+    assertThat(copy.getTimeout()).isEqualTo(Duration.ofSeconds(10));
+    assertThat(copy.getPopularWordCount()).isEqualTo(5);
+    assertThat(copy.getProfileOutputPath()).isEqualTo("profileOutput.txt");
+    assertThat(copy.getResultPath()).isEqualTo("resultPath.json");
+    assertThat(copy.getCheckpointPath()).isEqualTo("crawl.checkpoint");
+    assertThat(copy.getCheckpointInterval()).isEqualTo(Duration.ofSeconds(5));
+    assertThat(copy.getPageCachePath()).isEqualTo("page-cache");
+    assertThat(copy.getParseCacheMaxBytes()).isEqualTo(1_000_000);
+    assertThat(copy.getParserMode()).isEqualTo("streaming");
+    assertThat(copy.getMaxPageBytes()).isEqualTo(2_000_000);
+    assertThat(copy.getMaxCrawlBytes()).isEqualTo(1_000_000_000);
+    assertThat(copy.getCrawlOrder()).isEqualTo("breadth-first");
+    assertThat(copy.getPriorityDepthWeight()).isEqualTo(0.5);
+    assertThat(copy.getPriorityInLinkWeight()).isEqualTo(2);
+    assertThat(copy.getPriorityHostQuota()).isEqualTo(100);
+    assertThat(copy.getPriorityUrlWeights()).containsExactly(".*/docs/.*", 5.0);
+    assertThat(copy.isResumeFromCheckpoint()).isTrue();
+    assertThat(config.isResumeFromCheckpoint()).isFalse();
   }
 }
\ No newline at end of file
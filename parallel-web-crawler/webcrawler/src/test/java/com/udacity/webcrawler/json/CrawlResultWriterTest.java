@@ -46,4 +46,45 @@ public final class CrawlResultWriterTest {
 
     assertThat(written).matches(expected);
   }
+
+  @Test
+  public void writesCrawlStatistics() {
+    CrawlResult result =
+        new CrawlResult.Builder()
+            .setUrlsVisited(2)
+            .setBytesDownloaded(2048)
+            .setPagesPerSecond(4)
+            .setFetchLatency(
+                new LatencyHistogram.Builder()
+                    .setCount(2)
+                    .setMinNanos(1_000_000)
+                    .setMeanNanos(1_500_000)
+                    .setMaxNanos(2_000_000)
+                    .setP50Nanos(1_000_000)
+                    .setP90Nanos(2_000_000)
+                    .setP99Nanos(2_000_000)
+                    .setP999Nanos(2_000_000)
+                    .build())
+            .setErrorCounts(Map.of("HttpTimeoutException", 1L))
+            .setPagesPerHost(Map.of("example.com", 2))
+            .build();
+
+    CloseableStringWriter stringWriter = new CloseableStringWriter();
+    new CrawlResultWriter(result).write(stringWriter);
+    String written = stringWriter.toString();
+
+    assertThat(written).matches(Pattern.compile(
+        ".*\"bytesDownloaded\".*:.*2048.*", Pattern.DOTALL));
+    assertThat(written).matches(Pattern.compile(
+        ".*\"pagesPerSecond\".*:.*4\\.0.*", Pattern.DOTALL));
+    assertThat(written).matches(Pattern.compile(
+        ".*\"fetchLatency\".*:.*\\{.*\"count\".*:.*2,.*\"meanMillis\".*:.*1\\.5.*",
+        Pattern.DOTALL));
+    assertThat(written).matches(Pattern.compile(
+        ".*\"parseLatency\".*:.*\\{.*\"count\".*:.*0.*", Pattern.DOTALL));
+    assertThat(written).matches(Pattern.compile(
+        ".*\"errorCounts\".*:.*\\{.*\"HttpTimeoutException\".*:.*1.*", Pattern.DOTALL));
+    assertThat(written).matches(Pattern.compile(
+        ".*\"pagesPerHost\".*:.*\\{.*\"example.com\".*:.*2.*", Pattern.DOTALL));
+  }
 }
@@ -0,0 +1,129 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class FetchBudgetTest {
+
+  @Test
+  public void cutsOffPagesAtThePageLimit() throws IOException {
+    FetchBudget budget = new FetchBudget(100, 0);
+
+    FetchBudget.Page page = budget.startPage();
+    byte[] body = page.limitDownload(new ByteArrayInputStream(new byte[1_000])).readAllBytes();
+
+    assertThat(body).hasLength(100);
+    assertThat(page.isTruncated()).isTrue();
+    assertThat(budget.getPagesTruncated()).isEqualTo(1);
+    assertThat(budget.getBytesRead()).isEqualTo(100);
+  }
+
+  @Test
+  public void pageExactlyAtTheLimitIsNotTruncated() throws IOException {
+    FetchBudget budget = new FetchBudget(100, 0);
+
+    FetchBudget.Page page = budget.startPage();
+    byte[] body = page.limitDownload(new ByteArrayInputStream(new byte[100])).readAllBytes();
+
+    assertThat(body).hasLength(100);
+    assertThat(page.isTruncated()).isFalse();
+    assertThat(budget.getPagesTruncated()).isEqualTo(0);
+  }
+
+  @Test
+  public void abortsPagesOnceTheTotalBudgetIsSpent() throws IOException {
+    FetchBudget budget = new FetchBudget(0, 150);
+
+    assertThat(read(budget.startPage(), 100)).hasLength(100);
+    assertThat(read(budget.startPage(), 100)).hasLength(50);
+    assertThrows(FetchBudget.BudgetExhaustedException.class, budget::startPage);
+
+    assertThat(budget.getPagesTruncated()).isEqualTo(1);
+    assertThat(budget.getPagesAborted()).isEqualTo(1);
+    assertThat(budget.getBytesRead()).isEqualTo(150);
+  }
+
+  @Test
+  public void eachCrawlSpendsItsOwnBudget() throws IOException {
+    FetchBudget budget = new FetchBudget(0, 100);
+    FetchBudget.Totals first = budget.startCrawl();
+    FetchBudget.Page earlier = first.startPage();
+    assertThat(read(first.startPage(), 100)).hasLength(100);
+    assertThrows(FetchBudget.BudgetExhaustedException.class, first::startPage);
+
+    // A crawl started while the first one is still going gets the whole budget to itself.
+    FetchBudget.Totals second = budget.startCrawl();
+
+    assertThat(read(second.startPage(), 100)).hasLength(100);
+    assertThat(read(earlier, 100)).isEmpty();
+    assertThat(first.getBytesRead()).isEqualTo(100);
+    assertThat(first.getPagesAborted()).isEqualTo(1);
+    assertThat(first.getPagesTruncated()).isEqualTo(1);
+    assertThat(second.getBytesRead()).isEqualTo(100);
+    assertThat(second.getPagesAborted()).isEqualTo(0);
+    assertThat(second.getPagesTruncated()).isEqualTo(0);
+    assertThat(budget.getBytesRead()).isEqualTo(0);
+  }
+
+  @Test
+  public void limitsDecompressedBytes() throws IOException {
+    FetchBudget budget = new FetchBudget(1_000, 0);
+    // Compresses to far less than the page limit.
+    byte[] compressed = gzip(new byte[100_000]);
+
+    FetchBudget.Page page = budget.startPage();
+    InputStream body = page.limitDecompressed(
+        new GZIPInputStream(page.limitDownload(new ByteArrayInputStream(compressed))));
+
+    assertThat(body.readAllBytes()).hasLength(1_000);
+    assertThat(page.isTruncated()).isTrue();
+    assertThat(budget.getPagesTruncated()).isEqualTo(1);
+  }
+
+  @Test
+  public void endsTruncatedCompressedPagesWithoutError() throws IOException {
+    FetchBudget budget = new FetchBudget(1_000, 0);
+    // Random bytes do not compress, so the download is cut off mid-stream.
+    byte[] page = new byte[10_000];
+    new Random(42).nextBytes(page);
+    byte[] compressed = gzip(page);
+
+    FetchBudget.Page limited = budget.startPage();
+    InputStream download = limited.limitDownload(new ByteArrayInputStream(compressed));
+    byte[] body = limited.limitDecompressed(new GZIPInputStream(download)).readAllBytes();
+
+    assertThat(body.length).isGreaterThan(0);
+    assertThat(body.length).isAtMost(1_000);
+    assertThat(limited.isTruncated()).isTrue();
+    assertThat(budget.getPagesTruncated()).isEqualTo(1);
+  }
+
+  @Test
+  public void rejectsNegativeLimits() {
+    assertThrows(IllegalArgumentException.class, () -> new FetchBudget(-1, 0));
+    assertThrows(IllegalArgumentException.class, () -> new FetchBudget(0, -1));
+  }
+
+  private static byte[] read(FetchBudget.Page page, int size) throws IOException {
+    return page.limitDownload(new ByteArrayInputStream(new byte[size])).readAllBytes();
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,85 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class HtmlStreamLexerTest {
+
+  private final List<String> events = new ArrayList<>();
+  private final HtmlStreamLexer lexer = new HtmlStreamLexer(new HtmlStreamLexer.Handler() {
+    @Override
+    public void text(String text) {
+      events.add("text:" + text);
+    }
+
+    @Override
+    public void href(String name, String href) {
+      events.add(name + ":" + href);
+    }
+  });
+
+  @Test
+  public void reportsTextBetweenTagsSeparately() throws IOException {
+    lexer.lex(new StringReader("one<b>two</b>three<!-- four -->five<?x six?>seven"));
+
+    assertThat(events)
+        .containsExactly(
+            "text:one", "text:two", "text:three", "text:five", "text:seven")
+        .inOrder();
+  }
+
+  @Test
+  public void skipsScriptsAndKeepsRawText() throws IOException {
+    lexer.lex(new StringReader(
+        "<script>if (a</b) { '</scriptx>' }</script ><xmp>&amp; <i></xmp><title>&amp;</title>"));
+
+    assertThat(events).containsExactly("text:&amp; <i>", "text:&").inOrder();
+  }
+
+  @Test
+  public void readsHrefAttributes() throws IOException {
+    lexer.lex(new StringReader(
+        "<a id=x href = 'one?a=1&amp;b=2' href=two>1</a><link rel=stylesheet href=s.css/>"
+            + "<a href>2</a><a href=\"unterminated"));
+
+    assertThat(events)
+        .containsExactly(
+            "a:one?a=1&b=2", "text:1", "link:s.css/", "a:", "text:2", "a:unterminated")
+        .inOrder();
+  }
+
+  @Test
+  public void splitsLongTextOnlyAtWhitespace() throws IOException {
+    StringBuilder html = new StringBuilder();
+    for (int i = 0; i < 10_000; i++) {
+      html.append("word&amp;word ");
+    }
+    lexer.lex(new StringReader(html.toString()));
+
+    assertThat(events.size()).isGreaterThan(1);
+    StringBuilder joined = new StringBuilder();
+    for (String event : events) {
+      assertThat(event).endsWith(" ");
+      joined.append(event.substring("text:".length()));
+    }
+    assertThat(joined.toString()).isEqualTo(html.toString().replace("&amp;", "&"));
+  }
+
+  @Test
+  public void detectsCharsetFromMetaTag() throws IOException {
+    byte[] page = "<meta charset=\"ISO-8859-1\"><p>café</p>"
+        .getBytes(StandardCharsets.ISO_8859_1);
+
+    lexer.lex(new ByteArrayInputStream(page), null);
+
+    assertThat(events).containsExactly("text:café");
+  }
+}
@@ -0,0 +1,71 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class IgnoredWordFilterTest {
+
+  private static final List<String> WORDS = List.of(
+      "", "a", "the", "The", "THE", "them", "don't", "a.b", "axb", "a$", "c++", "c", "aab", "abc",
+      "hello", "lazy_dog", "12345", "x|y");
+
+  @Test
+  public void emptyFilterIgnoresNothing() {
+    IgnoredWordFilter filter = IgnoredWordFilter.compile(List.of());
+    assertThat(filter.isEmpty()).isTrue();
+    assertThat(filter.newMatcher().isIgnored("the")).isFalse();
+    assertThat(filter.newMatcher().isIgnored("")).isFalse();
+  }
+
+  @Test
+  public void literalPatterns() {
+    assertSameAsPatterns(
+        "the", "^don't$", "^a\\.b$", "a\\$", "c\\+\\+", "^$", "x\\|y");
+  }
+
+  @Test
+  public void nonLiteralPatterns() {
+    assertSameAsPatterns("^.{1,3}$", "a.b", "c+", "\\d+", "[a-z]+_[a-z]+", "the|them", "x|y");
+  }
+
+  @Test
+  public void patternsWithFlagsOrBackReferences() {
+    assertSameAsPatterns(
+        Pattern.compile("the", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("(?i)hello"),
+        Pattern.compile("(.)\\1.*"),
+        Pattern.compile("(?<first>.)\\k<first>b"),
+        Pattern.compile("^a.c$"));
+  }
+
+  @Test
+  public void patternsWithNamedGroups() {
+    assertSameAsPatterns("(?<letter>[a-z])b.", "c(?<letter>\\+)+", "(?<=a)a.*|the");
+  }
+
+  private static void assertSameAsPatterns(String... regexes) {
+    Pattern[] patterns = new Pattern[regexes.length];
+    for (int i = 0; i < regexes.length; i++) {
+      patterns[i] = Pattern.compile(regexes[i]);
+    }
+    assertSameAsPatterns(patterns);
+  }
+
+  private static void assertSameAsPatterns(Pattern... patterns) {
+    IgnoredWordFilter.WordMatcher matcher = IgnoredWordFilter.compile(List.of(patterns)).newMatcher();
+    for (String word : WORDS) {
+      boolean expected = false;
+      for (Pattern pattern : patterns) {
+        expected |= pattern.matcher(word).matches();
+      }
+      assertWithMessage("word \"%s\" ignored by %s", word, List.of(patterns))
+          .that(matcher.isIgnored(word))
+          .isEqualTo(expected);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.json.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class LatencyRecorderTest {
+
+  @Test
+  public void emptyRecorderHasEmptySnapshot() {
+    LatencyHistogram histogram = new LatencyRecorder().snapshot();
+
+    assertThat(histogram.getCount()).isEqualTo(0);
+    assertThat(histogram.getMaxMillis()).isEqualTo(0.0);
+    assertThat(histogram.getP99Millis()).isEqualTo(0.0);
+  }
+
+  @Test
+  public void bucketsCoverEveryValueWithoutGaps() {
+    for (long value : new long[] {0, 1, 63, 64, 65, 127, 128, 1_000_000, Long.MAX_VALUE}) {
+      int index = LatencyRecorder.indexOf(value);
+      assertThat(LatencyRecorder.highestValueAt(index)).isAtLeast(value);
+      if (index > 0) {
+        assertThat(LatencyRecorder.highestValueAt(index - 1)).isLessThan(value);
+      }
+    }
+    for (int index = 1; index <= LatencyRecorder.indexOf(Long.MAX_VALUE); index++) {
+      long lowest = LatencyRecorder.highestValueAt(index - 1) + 1;
+      assertThat(LatencyRecorder.indexOf(lowest)).isEqualTo(index);
+    }
+  }
+
+  @Test
+  public void percentilesAreWithinBucketPrecision() {
+    LatencyRecorder recorder = new LatencyRecorder();
+    for (int millis = 1; millis <= 1_000; millis++) {
+      recorder.record(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    LatencyHistogram histogram = recorder.snapshot();
+
+    assertThat(histogram.getCount()).isEqualTo(1_000);
+    assertThat(histogram.getMinMillis()).isEqualTo(1.0);
+    assertThat(histogram.getMaxMillis()).isEqualTo(1_000.0);
+    assertThat(histogram.getMeanMillis()).isWithin(0.001).of(500.5);
+    assertThat(histogram.getP50Millis()).isWithin(500 * 0.04).of(500);
+    assertThat(histogram.getP90Millis()).isWithin(900 * 0.04).of(900);
+    assertThat(histogram.getP99Millis()).isWithin(990 * 0.04).of(990);
+    assertThat(histogram.getP999Millis()).isAtMost(1_000.0);
+  }
+
+  @Test
+  public void recordsFromManyThreads() throws Exception {
+    LatencyRecorder recorder = new LatencyRecorder();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread thread = new Thread(() -> {
+        for (int j = 0; j < 10_000; j++) {
+          recorder.record(j);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(recorder.snapshot().getCount()).isEqualTo(40_000);
+  }
+}
@@ -0,0 +1,99 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PageCacheTest {
+
+  @TempDir
+  public Path dir;
+
+  @Test
+  public void keepsLatestEntryAcrossReopens() throws IOException {
+    PageCache cache = PageCache.open(dir);
+    cache.put("http://a.com/", "\"1\"", "", content("old"));
+    cache.put("http://a.com/", "\"2\"", "Wed, 21 Oct 2015 07:28:00 GMT", content("new"));
+
+    PageCache reopened = PageCache.open(dir);
+    PageCache.Entry entry = reopened.get("http://a.com/");
+
+    assertThat(entry.getEtag()).isEqualTo("\"2\"");
+    assertThat(entry.getLastModified()).isEqualTo("Wed, 21 Oct 2015 07:28:00 GMT");
+    assertThat(new String(reopened.readBody(entry), StandardCharsets.UTF_8)).isEqualTo("new");
+    assertThat(reopened.get("http://b.com/")).isNull();
+  }
+
+  @Test
+  public void storesIdenticalBodiesOnce() throws IOException {
+    PageCache cache = PageCache.open(dir);
+    cache.put("http://a.com/", "\"1\"", "", content("same"));
+    cache.put("http://b.com/", "\"1\"", "", content("same"));
+
+    try (var bodies = Files.list(dir.resolve("bodies"))) {
+      assertThat(bodies.count()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void dropsRecordCutOffByCrash() throws IOException {
+    PageCache cache = PageCache.open(dir);
+    cache.put("http://a.com/", "\"1\"", "", content("page"));
+    try (OutputStream out = Files.newOutputStream(dir.resolve("index"), StandardOpenOption.APPEND)) {
+      out.write(new byte[] {0x7f, 0x00, 0x00});
+    }
+
+    PageCache reopened = PageCache.open(dir);
+
+    assertThat(reopened.get("http://a.com/").getEtag()).isEqualTo("\"1\"");
+  }
+
+  @Test
+  public void deletesBodiesNoEntryRefersToOnOpen() throws IOException {
+    try (PageCache cache = PageCache.open(dir)) {
+      cache.put("http://a.com/", "\"1\"", "", content("old"));
+      cache.put("http://a.com/", "\"2\"", "", content("new"));
+      cache.put("http://b.com/", "\"1\"", "", content("other"));
+    }
+    Files.writeString(dir.resolve("bodies").resolve("left-by-a-crash.tmp"), "partial");
+
+    try (PageCache reopened = PageCache.open(dir)) {
+      try (var bodies = Files.list(dir.resolve("bodies"))) {
+        assertThat(bodies.count()).isEqualTo(2);
+      }
+      PageCache.Entry entry = reopened.get("http://a.com/");
+      assertThat(new String(reopened.readBody(entry), StandardCharsets.UTF_8)).isEqualTo("new");
+      entry = reopened.get("http://b.com/");
+      assertThat(new String(reopened.readBody(entry), StandardCharsets.UTF_8)).isEqualTo("other");
+    }
+  }
+
+  @Test
+  public void stopsStoringOnceClosed() throws IOException {
+    PageCache cache = PageCache.open(dir);
+    cache.put("http://a.com/", "\"1\"", "", content("page"));
+    cache.close();
+    cache.close();
+
+    cache.put("http://b.com/", "\"1\"", "", content("late"));
+
+    assertThat(cache.get("http://b.com/")).isNull();
+    try (PageCache reopened = PageCache.open(dir)) {
+      assertThat(reopened.get("http://a.com/").getEtag()).isEqualTo("\"1\"");
+      assertThat(reopened.get("http://b.com/")).isNull();
+    }
+  }
+
+  private static PageParser.Content content(String body) {
+    return new PageParser.Content(
+        body.getBytes(StandardCharsets.UTF_8), false, "UTF-8", "http://a.com/");
+  }
+}
@@ -0,0 +1,261 @@
+package com.udacity.webcrawler.parser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PageFetcherTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+  private final AtomicInteger fullDownloads = new AtomicInteger();
+  private final CountDownLatch slowBodySent = new CountDownLatch(1);
+  private HttpServer server;
+  private PageFetcher fetcher;
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/page", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "text/html; charset=ISO-8859-1");
+      respond(exchange, 200, "<p>Café</p><a href=\"other\">link</a>"
+          .getBytes(StandardCharsets.ISO_8859_1));
+    });
+    server.createContext("/gzip", exchange -> {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (OutputStream out = new GZIPOutputStream(bytes)) {
+        out.write("<p>compressed</p>".getBytes(StandardCharsets.UTF_8));
+      }
+      exchange.getResponseHeaders().add("Content-Type", "text/html");
+      exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+      respond(exchange, 200, bytes.toByteArray());
+    });
+    server.createContext("/redirect", exchange -> {
+      exchange.getResponseHeaders().add("Location", "/dir/page");
+      respond(exchange, 302, new byte[0]);
+    });
+    server.createContext("/dir/page", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "text/html");
+      respond(exchange, 200, "<a href=\"sibling\">link</a>".getBytes(StandardCharsets.UTF_8));
+    });
+    server.createContext("/missing", exchange -> respond(exchange, 404, new byte[0]));
+    server.createContext("/image", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "image/png");
+      respond(exchange, 200, new byte[16]);
+    });
+    server.createContext("/cached", exchange -> {
+      exchange.getResponseHeaders().add("ETag", "\"v1\"");
+      if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        respond(exchange, 304, new byte[0]);
+        return;
+      }
+      fullDownloads.incrementAndGet();
+      exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+      respond(exchange, 200, "<p>unchanged</p>".getBytes(StandardCharsets.UTF_8));
+    });
+    server.createContext("/large", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+      respond(exchange, 200, ("<p>start " + "filler ".repeat(100_000) + "end</p>")
+          .getBytes(StandardCharsets.UTF_8));
+    });
+    server.createContext("/slow", exchange -> {
+      // Sends the start of the page right away, and the rest only once the test is over.
+      exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+      exchange.sendResponseHeaders(200, 0);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write("<p>start".getBytes(StandardCharsets.UTF_8));
+        body.flush();
+        slowBodySent.await(10, TimeUnit.SECONDS);
+        body.write(" end</p>".getBytes(StandardCharsets.UTF_8));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    server.start();
+    fetcher = newFetcher(PageCache.disabled());
+  }
+
+  @AfterEach
+  public void stopServer() {
+    slowBodySent.countDown();
+    server.stop(0);
+  }
+
+  @Test
+  public void decodesBodyWithCharsetFromContentType() throws IOException {
+    Document document = fetcher.fetch(uri("/page"), TIMEOUT);
+
+    assertThat(document.text()).contains("Café");
+    assertThat(document.select("a").attr("abs:href")).isEqualTo(uri("/other").toString());
+  }
+
+  @Test
+  public void decompressesGzipBody() throws IOException {
+    assertThat(fetcher.fetch(uri("/gzip"), TIMEOUT).text()).isEqualTo("compressed");
+  }
+
+  @Test
+  public void resolvesLinksAgainstRedirectTarget() throws IOException {
+    Document document = fetcher.fetch(uri("/redirect"), TIMEOUT);
+
+    assertThat(document.select("a").attr("abs:href")).isEqualTo(uri("/dir/sibling").toString());
+  }
+
+  @Test
+  public void fetchesAsynchronouslyAndParsesLater() throws Exception {
+    PageParser.Content content = fetcher.fetchAsync(uri("/gzip"), TIMEOUT).get();
+
+    assertThat(content.isGzipped()).isTrue();
+    assertThat(fetcher.parse(content).text()).isEqualTo("compressed");
+  }
+
+  @Test
+  public void revalidatesCachedPages(@TempDir Path cacheDir) throws Exception {
+    PageFetcher cachingFetcher = newFetcher(PageCache.open(cacheDir));
+    assertThat(cachingFetcher.fetch(uri("/cached"), TIMEOUT).text()).isEqualTo("unchanged");
+    assertThat(cachingFetcher.fetch(uri("/cached"), TIMEOUT).text()).isEqualTo("unchanged");
+
+    // A later crawl reads the validators back from disk.
+    PageFetcher nextCrawl = newFetcher(PageCache.open(cacheDir));
+    PageParser.Content content = nextCrawl.fetchAsync(uri("/cached"), TIMEOUT).get();
+    assertThat(fetcher.parse(content).text()).isEqualTo("unchanged");
+    assertThat(fullDownloads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void doesNotCachePagesWithoutValidators(@TempDir Path cacheDir) throws Exception {
+    PageCache cache = PageCache.open(cacheDir);
+    newFetcher(cache).fetch(uri("/page"), TIMEOUT);
+
+    assertThat(cache.get(uri("/page").toString())).isNull();
+  }
+
+  @Test
+  public void truncatesPagesAtTheByteLimit() throws Exception {
+    FetchBudget budget = new FetchBudget(1_000, 0);
+    PageFetcher limitedFetcher = newFetcher(PageCache.disabled(), budget);
+
+    String text = limitedFetcher.fetch(uri("/large"), TIMEOUT).text();
+    PageParser.Content content = limitedFetcher.fetchAsync(uri("/large"), TIMEOUT).get();
+
+    assertThat(text).startsWith("start filler");
+    assertThat(text).doesNotContain("end");
+    assertThat(limitedFetcher.parse(content).text()).isEqualTo(text);
+    assertThat(budget.getPagesTruncated()).isEqualTo(2);
+    assertThat(budget.getBytesRead()).isEqualTo(2_000);
+  }
+
+  @Test
+  public void stopsFetchingOnceTheCrawlBudgetIsSpent() throws Exception {
+    FetchBudget budget = new FetchBudget(0, 50);
+    PageFetcher limitedFetcher = newFetcher(PageCache.disabled(), budget);
+
+    assertThat(limitedFetcher.fetch(uri("/large"), TIMEOUT).text()).startsWith("start");
+    assertThrows(IOException.class, () -> limitedFetcher.fetch(uri("/page"), TIMEOUT));
+
+    assertThat(budget.getPagesTruncated()).isEqualTo(1);
+    assertThat(budget.getPagesAborted()).isEqualTo(1);
+    assertThat(budget.getBytesRead()).isEqualTo(50);
+  }
+
+  @Test
+  public void timeoutCoversTheWholeDownload() {
+    Duration timeout = Duration.ofMillis(200);
+    long start = System.nanoTime();
+
+    assertThrows(HttpTimeoutException.class, () -> fetcher.fetch(uri("/slow"), timeout));
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+  }
+
+  @Test
+  public void cancelsAsynchronousDownloadsOnTimeout() {
+    Duration timeout = Duration.ofMillis(200);
+    long start = System.nanoTime();
+
+    ExecutionException e = assertThrows(
+        ExecutionException.class, () -> fetcher.fetchAsync(uri("/slow"), timeout).get());
+
+    assertThat(e).hasCauseThat().isInstanceOf(HttpTimeoutException.class);
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+  }
+
+  @Test
+  public void cancelsTimersOfFinishedDownloads() throws Exception {
+    Duration timeout = Duration.ofHours(1);
+
+    fetcher.fetch(uri("/page"), timeout);
+    fetcher.fetchAsync(uri("/page"), timeout).get();
+    assertThrows(IOException.class, () -> fetcher.fetch(uri("/missing"), timeout));
+    assertThrows(
+        ExecutionException.class, () -> fetcher.fetchAsync(uri("/image"), timeout).get());
+
+    assertThat(fetcher.getPendingTimeouts()).isEqualTo(0);
+  }
+
+  @Test
+  public void failsRightAwayOnceTheTimeIsUp() {
+    assertThrows(HttpTimeoutException.class, () -> fetcher.fetch(uri("/page"), Duration.ZERO));
+    ExecutionException e = assertThrows(
+        ExecutionException.class, () -> fetcher.fetchAsync(uri("/page"), Duration.ZERO).get());
+    assertThat(e).hasCauseThat().isInstanceOf(HttpTimeoutException.class);
+  }
+
+  @Test
+  public void rejectsErrorStatusAndBinaryContent() {
+    assertThrows(IOException.class, () -> fetcher.fetch(uri("/missing"), TIMEOUT));
+    assertThrows(
+        UnsupportedMimeTypeException.class, () -> fetcher.fetch(uri("/image"), TIMEOUT));
+  }
+
+  private static PageFetcher newFetcher(PageCache cache) {
+    return newFetcher(cache, FetchBudget.unlimited());
+  }
+
+  private static PageFetcher newFetcher(PageCache cache, FetchBudget budget) {
+    return new PageFetcher(
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build(),
+        cache,
+        budget,
+        new PageStats());
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -1,7 +1,12 @@
 package com.udacity.webcrawler.parser;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.List;
@@ -13,10 +18,13 @@ public final class PageParserImplTest {
 
   private static final String DATA_DIR = System.getProperty("testDataDir");
   private final String testPage = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
+  private final PageFetcher fetcher = new PageFetcher(
+      HttpClient.newHttpClient(), PageCache.disabled(), FetchBudget.unlimited(), new PageStats());
 
   @Test
   public void basicParsing() {
-    PageParser.Result result = new PageParserImpl(testPage, Duration.ZERO, List.of()).parse();
+    PageParser.Result result = new PageParserImpl(
+        testPage, Duration.ZERO, IgnoredWordFilter.compile(List.of()), fetcher, false).parse();
 
     assertThat(result.getLinks())
         .containsExactly(Paths.get(DATA_DIR, "link-1.html").toUri().toString());
@@ -31,10 +39,124 @@ public final class PageParserImplTest {
     assertThat(result.getWordCounts()).containsEntry("dog", 1);
   }
 
+  @Test
+  public void fetchThenParseMatchesParse() {
+    PageParser parser =
+        new PageParserImpl(
+            testPage, Duration.ZERO, IgnoredWordFilter.compile(List.of()), fetcher, false);
+
+    PageParser.Result result = parser.parse(parser.fetch().toCompletableFuture().join());
+
+    PageParser.Result expected = parser.parse();
+    assertThat(result.getLinks()).containsExactlyElementsIn(expected.getLinks());
+    assertThat(result.getWordCounts()).isEqualTo(expected.getWordCounts());
+  }
+
+  @Test
+  public void digestsPagesWhileParsingThem() {
+    for (boolean streaming : List.of(false, true)) {
+      PageParser parser = new PageParserImpl(
+          testPage, Duration.ZERO, IgnoredWordFilter.compile(List.of()), fetcher, streaming, true);
+
+      PageParser.Result result = parser.parse();
+
+      assertThat(result.getContentDigest())
+          .isEqualTo(parser.fetch().toCompletableFuture().join().digest());
+    }
+  }
+
+  @Test
+  public void failedFetchParsesToEmptyResult() {
+    PageParser parser = new PageParserImpl(
+        Paths.get(DATA_DIR, "does-not-exist.html").toUri().toString(),
+        Duration.ZERO,
+        IgnoredWordFilter.compile(List.of()),
+        fetcher,
+        false);
+
+    PageParser.Result result = parser.parse(parser.fetch().toCompletableFuture().join());
+
+    assertThat(result.getLinks()).isEmpty();
+    assertThat(result.getWordCounts()).isEmpty();
+  }
+
+  @Test
+  public void recordsFetchAndParseTimes() {
+    PageStats stats = new PageStats();
+    PageFetcher timedFetcher = new PageFetcher(
+        HttpClient.newHttpClient(), PageCache.disabled(), FetchBudget.unlimited(), stats);
+
+    for (boolean streaming : new boolean[] {false, true}) {
+      new PageParserImpl(
+          testPage, Duration.ZERO, IgnoredWordFilter.compile(List.of()), timedFetcher, streaming)
+          .parse();
+    }
+    PageParser parser = new PageParserImpl(
+        testPage, Duration.ZERO, IgnoredWordFilter.compile(List.of()), timedFetcher, false);
+    parser.parse(parser.fetch().toCompletableFuture().join());
+
+    assertThat(stats.getFetchLatency().getCount()).isEqualTo(3);
+    assertThat(stats.getParseLatency().getCount()).isEqualTo(3);
+    assertThat(stats.getParseLatency().getMaxMillis()).isGreaterThan(0.0);
+    assertThat(stats.getErrorCounts()).isEmpty();
+  }
+
+  @Test
+  public void countsPagesThatCouldNotBeReadByError() {
+    PageStats stats = new PageStats();
+    PageFetcher timedFetcher = new PageFetcher(
+        HttpClient.newHttpClient(), PageCache.disabled(), FetchBudget.unlimited(), stats);
+    String missing = Paths.get(DATA_DIR, "does-not-exist.html").toUri().toString();
+
+    new PageParserImpl(
+        missing, Duration.ZERO, IgnoredWordFilter.compile(List.of()), timedFetcher, false)
+        .parse();
+    PageParser parser = new PageParserImpl(
+        missing, Duration.ZERO, IgnoredWordFilter.compile(List.of()), timedFetcher, true);
+    parser.parse(parser.fetch().toCompletableFuture().join());
+    new PageParserImpl(
+        "http://bad host/", Duration.ZERO, IgnoredWordFilter.compile(List.of()), timedFetcher,
+        false)
+        .parse();
+
+    assertThat(stats.getErrorCounts())
+        .containsExactly("NoSuchFileException", 2L, "URISyntaxException", 1L)
+        .inOrder();
+    // Failed downloads are still timed, but nothing was parsed.
+    assertThat(stats.getFetchLatency().getCount()).isEqualTo(2);
+    assertThat(stats.getParseLatency().getCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void startCrawlClearsTimesAndErrors() {
+    PageStats stats = new PageStats();
+    PageFetcher timedFetcher = new PageFetcher(
+        HttpClient.newHttpClient(), PageCache.disabled(), FetchBudget.unlimited(), stats);
+    String missing = Paths.get(DATA_DIR, "does-not-exist.html").toUri().toString();
+    new PageParserImpl(
+        missing, Duration.ZERO, IgnoredWordFilter.compile(List.of()), timedFetcher, false)
+        .parse();
+
+    stats.startCrawl();
+    new PageParserImpl(
+        testPage, Duration.ZERO, IgnoredWordFilter.compile(List.of()), timedFetcher, false)
+        .parse();
+
+    assertThat(stats.getErrorCounts()).isEmpty();
+    assertThat(stats.getFetchLatency().getCount()).isEqualTo(1);
+    assertThat(stats.getParseLatency().getCount()).isEqualTo(1);
+  }
+
   @Test
   public void parsingWithIgnoredWords() {
     PageParser.Result result =
-        new PageParserImpl(testPage, Duration.ZERO, List.of(Pattern.compile("^...$"))).parse();
+        new PageParserImpl(
+            testPage,
+            Duration.ZERO,
+            IgnoredWordFilter.compile(List.of(Pattern.compile("^...$"))),
+            fetcher,
+            false)
+            .parse();
 
     assertThat(result.getLinks())
         .containsExactly(Paths.get(DATA_DIR, "link-1.html").toUri().toString());
@@ -45,4 +167,42 @@ public final class PageParserImplTest {
     assertThat(result.getWordCounts()).containsEntry("over", 1);
     assertThat(result.getWordCounts()).containsEntry("lazy", 1);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void streamingMatchesDomParsing(@TempDir Path tempDir) throws Exception {
+    Path page = tempDir.resolve("page.html");
+    Files.writeString(page, "<!DOCTYPE html><html><head><title>The &amp; Title</title>"
+        + "<style>p { color: red; }</style><script>var notAWord = '<p>';</script></head>"
+        + "<body><!-- commented out --><p class=\"x > y\">Fish&nbsp;and chips<br/>"
+        + "<b>bold</b>face &lt;tag&gt; a < b</p>"
+        + "<a title='a link' href=\"sub/one.html\">One</a> <a href=two.html>Two</a>"
+        + "<a HREF=\"three.html?a=1&amp;b=2\">Three</a><a name=\"no-href\">none</a>"
+        + "<textarea>raw <b>text</b></textarea></body></html>");
+    String url = page.toUri().toString();
+
+    PageParser.Result dom = new PageParserImpl(
+        url, Duration.ZERO, IgnoredWordFilter.compile(List.of()), fetcher, false).parse();
+    PageParser.Result streaming = new PageParserImpl(
+        url, Duration.ZERO, IgnoredWordFilter.compile(List.of()), fetcher, true).parse();
+
+    assertThat(streaming.getWordCounts()).isEqualTo(dom.getWordCounts());
+    assertThat(streaming.getLinks()).containsExactlyElementsIn(dom.getLinks()).inOrder();
+    assertThat(streaming.getWordCounts()).doesNotContainKey("notaword");
+    assertThat(streaming.getWordCounts()).containsEntry("fish", 1);
+  }
+
+  @Test
+  public void streamingResolvesLinksAgainstBaseUri() {
+    String html = "<a href=\"/root.html\">a</a><base href=\"http://other.com/dir/\">"
+        + "<a href=\"page.html\">b</a>";
+    PageParser.Content content = new PageParser.Content(
+        html.getBytes(StandardCharsets.UTF_8), false, null, "http://example.com/start/");
+    PageParser parser = new PageParserImpl(
+        "http://example.com/start/", Duration.ZERO, IgnoredWordFilter.compile(List.of()), fetcher,
+        true);
+
+    assertThat(parser.parse(content).getLinks())
+        .containsExactly("http://example.com/root.html", "http://other.com/dir/page.html")
+        .inOrder();
+  }
+}
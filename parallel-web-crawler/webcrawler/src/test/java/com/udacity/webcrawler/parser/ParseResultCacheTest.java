@@ -0,0 +1,130 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ParseResultCacheTest {
+
+  @Test
+  public void roundTripsResults() {
+    PageParser.Result.Builder builder = new PageParser.Result.Builder();
+    builder.addWord("café", 300);
+    builder.addWord("dog");
+    builder.addLink("http://a.com/ünïcode");
+    builder.addLink("http://a.com/2");
+    PageParser.Result result = builder.build();
+
+    PageParser.Result decoded = ParseResultCache.decode(ParseResultCache.encode(result));
+
+    assertThat(decoded.getWordCounts()).isEqualTo(result.getWordCounts());
+    assertThat(decoded.getLinks()).containsExactlyElementsIn(result.getLinks());
+  }
+
+  @Test
+  public void missesWhenContentChanged() {
+    ParseResultCache cache = new ParseResultCache(1 << 20);
+    cache.put("http://a.com/", "digest-1", result("old"));
+
+    assertThat(cache.get("http://a.com/", "digest-1").getWordCounts()).containsKey("old");
+    assertThat(cache.get("http://a.com/", "digest-2")).isNull();
+    assertThat(cache.get("http://b.com/", "digest-1")).isNull();
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedOverMaxBytes() {
+    ParseResultCache cache = new ParseResultCache(600);
+    cache.put("http://a.com/", "d", result("a"));
+    cache.put("http://b.com/", "d", result("b"));
+    cache.put("http://c.com/", "d", result("c"));
+    // Touch a, so b is now the least recently used.
+    cache.get("http://a.com/", "d");
+    cache.put("http://d.com/", "d", result("d"));
+
+    assertThat(cache.size()).isAtMost(600L);
+    assertThat(cache.get("http://a.com/", "d")).isNotNull();
+    assertThat(cache.get("http://b.com/", "d")).isNull();
+    assertThat(cache.get("http://d.com/", "d")).isNotNull();
+  }
+
+  @Test
+  public void factorySkipsParsingUnchangedContent() {
+    AtomicInteger parses = new AtomicInteger();
+    AtomicInteger fetches = new AtomicInteger();
+    PageParserFactory counting = url -> new PageParser() {
+      @Override
+      public Result parse() {
+        parses.incrementAndGet();
+        return result("word").withContentDigest(content(url).digest());
+      }
+
+      @Override
+      public CompletionStage<Content> fetch() {
+        fetches.incrementAndGet();
+        return CompletableFuture.completedFuture(content(url));
+      }
+
+      @Override
+      public Result parse(Content content) {
+        parses.incrementAndGet();
+        return result("word");
+      }
+    };
+    PageParserFactory factory =
+        new CachingPageParserFactory(counting, new ParseResultCache(1 << 20));
+
+    factory.get("http://a.com/").parse();
+    PageParser.Result second = factory.get("http://a.com/").parse();
+    factory.get("http://b.com/").parse();
+
+    assertThat(second.getWordCounts()).containsExactly("word", 1);
+    assertThat(parses.get()).isEqualTo(2);
+    // Only the page with a cached result had to be downloaded before it was parsed.
+    assertThat(fetches.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void factoryDoesNotCacheResultsWithoutDigest() {
+    AtomicInteger parses = new AtomicInteger();
+    PageParserFactory counting = url -> new PageParser() {
+      @Override
+      public Result parse() {
+        parses.incrementAndGet();
+        return result("word");
+      }
+
+      @Override
+      public CompletionStage<Content> fetch() {
+        throw new AssertionError("nothing was cached to compare with");
+      }
+
+      @Override
+      public Result parse(Content content) {
+        throw new AssertionError("nothing was cached to compare with");
+      }
+    };
+    ParseResultCache cache = new ParseResultCache(1 << 20);
+    PageParserFactory factory = new CachingPageParserFactory(counting, cache);
+
+    factory.get("http://a.com/").parse();
+    factory.get("http://a.com/").parse();
+
+    assertThat(parses.get()).isEqualTo(2);
+    assertThat(cache.contains("http://a.com/")).isFalse();
+  }
+
+  private static PageParser.Content content(String url) {
+    return new PageParser.Content(url.getBytes(), false, "UTF-8", url);
+  }
+
+  private static PageParser.Result result(String word) {
+    PageParser.Result.Builder builder = new PageParser.Result.Builder();
+    builder.addWord(word);
+    builder.addLink("http://" + word + ".com/");
+    return builder.build();
+  }
+}
@@ -0,0 +1,41 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PatternSyntaxTest {
+
+  @Test
+  public void countsBackslashesToTellEscapedCharacters() {
+    assertThat(PatternSyntax.isEscaped("a$", 1)).isFalse();
+    assertThat(PatternSyntax.isEscaped("a\\$", 2)).isTrue();
+    assertThat(PatternSyntax.isEscaped("a\\\\$", 3)).isFalse();
+    assertThat(PatternSyntax.isEscaped("$", 0)).isFalse();
+  }
+
+  @Test
+  public void findsNumberedAndNamedBackReferences() {
+    assertThat(PatternSyntax.hasBackReference("(a)\\1")).isTrue();
+    assertThat(PatternSyntax.hasBackReference("(?<x>a)\\k<x>")).isTrue();
+    assertThat(PatternSyntax.hasBackReference("a\\\\1")).isFalse();
+    assertThat(PatternSyntax.hasBackReference("\\d+")).isFalse();
+  }
+
+  @Test
+  public void findsNamedGroupsButNotLookbehinds() {
+    assertThat(PatternSyntax.hasNamedGroup("(?<host>[a-z]+)\\.com")).isTrue();
+    assertThat(PatternSyntax.hasNamedGroup("(?<=a)b")).isFalse();
+    assertThat(PatternSyntax.hasNamedGroup("(?<!a)b")).isFalse();
+    assertThat(PatternSyntax.hasNamedGroup("\\(?<a>")).isFalse();
+  }
+
+  @Test
+  public void tellsMetacharactersFromLiterals() {
+    for (char c : "\\[](){}.*+?^$|".toCharArray()) {
+      assertThat(PatternSyntax.isMetacharacter(c)).isTrue();
+    }
+    assertThat(PatternSyntax.isMetacharacter('a')).isFalse();
+    assertThat(PatternSyntax.isMetacharacter('-')).isFalse();
+  }
+}
@@ -0,0 +1,105 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeVisitor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Measures how many words per second the old regex and stream based text node processing produces,
+ * compared to {@link WordTokenizer}, over the text nodes of the HTML pages in the test data
+ * directory.
+ *
+ * <p>The {@code tokens} secondary result is the number of words produced per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WordTokenizerBenchmark {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
+
+  // The ignored words from src/main/config/sample_config.json.
+  private final List<Pattern> ignoredWords = List.of(Pattern.compile("^.{1,3}$"));
+  private final List<String> texts = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void loadTextNodes() throws IOException {
+    Path dataDir = Path.of(System.getProperty("testDataDir", "src/test/data"));
+    try (DirectoryStream<Path> pages = Files.newDirectoryStream(dataDir, "*.html")) {
+      for (Path page : pages) {
+        Document document = Jsoup.parse(Files.readString(page, StandardCharsets.UTF_8));
+        document.traverse(new NodeVisitor() {
+          @Override
+          public void head(Node node, int depth) {
+            if (node instanceof TextNode) {
+              texts.add(((TextNode) node).text());
+            }
+          }
+
+          @Override
+          public void tail(Node node, int depth) {
+          }
+        });
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class TokenCount {
+    public long tokens;
+  }
+
+  @Benchmark
+  public void regexPipeline(TokenCount count, Blackhole blackhole) {
+    for (String text : texts) {
+      Arrays.stream(WHITESPACE.split(text.strip()))
+          .filter(s -> !s.isBlank())
+          .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
+          .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
+          .map(String::toLowerCase)
+          .forEach(word -> {
+            count.tokens++;
+            blackhole.consume(word);
+          });
+    }
+  }
+
+  @Benchmark
+  public void charScanningTokenizer(TokenCount count, Blackhole blackhole) {
+    WordTokenizer tokenizer = new WordTokenizer(IgnoredWordFilter.compile(ignoredWords));
+    for (String text : texts) {
+      tokenizer.tokenize(text, word -> {
+        count.tokens++;
+        blackhole.consume(word);
+      });
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class WordTokenizerTest {
+
+  private static final List<String> TEXTS = List.of(
+      "the quick brown fox jumped over the lazy dog",
+      "  The QUICK,  brown\tfox\n(jumped) over... the lazy_dog!  ",
+      "",
+      "   ",
+      "--- & ... !!!",
+      "café naïve ÉCOLE — résumé",
+      "em\u2003space \u2003 and no-break\u00A0space \u001F unit separator",
+      "\u2003\u2003leading and trailing unicode whitespace\u3000",
+      "surrogates 😀 emoji😀 123_abc ABC123",
+      "vertical\u000Btab form\ffeed carriage\rreturn");
+
+  @Test
+  public void matchesRegexPipeline() {
+    assertSameWords(List.of());
+  }
+
+  @Test
+  public void matchesRegexPipelineWithIgnoredWords() {
+    assertSameWords(List.of(
+        Pattern.compile("^.{1,3}$"),
+        Pattern.compile("(?i)the"),
+        Pattern.compile("brown"),
+        Pattern.compile("^fox,$"),
+        Pattern.compile("(.)\\1.*")));
+  }
+
+  @Test
+  public void ignoredWordsMatchTheRawToken() {
+    // "fox," is four characters long before punctuation is stripped, so it is not ignored.
+    List<String> words = new ArrayList<>();
+    new WordTokenizer(IgnoredWordFilter.compile(List.of(Pattern.compile("^...$"))))
+        .tokenize("the fox, jumped", words::add);
+
+    assertThat(words).containsExactly("fox", "jumped").inOrder();
+  }
+
+  private static void assertSameWords(List<Pattern> ignoredWords) {
+    WordTokenizer tokenizer = new WordTokenizer(IgnoredWordFilter.compile(ignoredWords));
+    for (String text : TEXTS) {
+      List<String> words = new ArrayList<>();
+      tokenizer.tokenize(text, words::add);
+      assertWithMessage("Words for \"%s\"", text)
+          .that(words)
+          .containsExactlyElementsIn(regexTokenize(text, ignoredWords))
+          .inOrder();
+    }
+  }
+
+  /**
+   * The regex and stream based tokenization {@link PageParserImpl} used before
+   * {@link WordTokenizer}.
+   */
+  private static List<String> regexTokenize(String text, List<Pattern> ignoredWords) {
+    return Arrays.stream(Pattern.compile("\\s+").split(text.strip()))
+        .filter(s -> !s.isBlank())
+        .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
+        .map(s -> Pattern.compile("\\W").matcher(s).replaceAll(""))
+        .map(String::toLowerCase)
+        .collect(Collectors.toList());
+  }
+}
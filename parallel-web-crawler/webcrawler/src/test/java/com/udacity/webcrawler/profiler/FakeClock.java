@@ -8,12 +8,16 @@ import java.time.ZoneId;
 import java.util.Objects;
 
 /**
- * A fake, mutable {@link Clock} implementation for tests.
+ * A fake, mutable {@link Clock} implementation for tests. Thread-safe, so it can also stand in for
+ * the clock of a crawl that reads it from many threads.
  */
 public final class FakeClock extends Clock {
 
   private Instant now;
   private ZoneId zoneId;
+  private int reads;
+  private int readsUntilTick = -1;
+  private Duration pendingTick;
 
   @Inject
   public FakeClock() {
@@ -26,38 +30,65 @@ public final class FakeClock extends Clock {
   }
 
   @Override
-  public ZoneId getZone() {
+  public synchronized ZoneId getZone() {
     return zoneId;
   }
 
   @Override
-  public Clock withZone(ZoneId zone) {
+  public synchronized Clock withZone(ZoneId zone) {
     return new FakeClock(now, zone);
   }
 
   @Override
-  public Instant instant() {
+  public synchronized Instant instant() {
+    reads++;
+    if (readsUntilTick == 0) {
+      now = now.plus(pendingTick);
+      readsUntilTick = -1;
+      pendingTick = null;
+    } else if (readsUntilTick > 0) {
+      readsUntilTick--;
+    }
     return now;
   }
 
   /**
    * Increments the time of the fake clock by the given amount.
    */
-  public void tick(Duration duration) {
+  public synchronized void tick(Duration duration) {
     now = now.plus(Objects.requireNonNull(duration));
   }
 
+  /**
+   * Increments the time of the fake clock by the given amount once it has been read the given
+   * number of times. Those reads still return the current time, and the next one the new time.
+   */
+  public synchronized void tickAfterReads(int reads, Duration duration) {
+    if (reads < 0) {
+      throw new IllegalArgumentException("reads cannot be negative");
+    }
+    this.readsUntilTick = reads;
+    this.pendingTick = Objects.requireNonNull(duration);
+  }
+
+  /**
+   * Returns how many times the time of the fake clock has been read.
+   */
+  public synchronized int getReads() {
+    return reads;
+  }
+
   /**
    * Sets the time of the fake clock.
    */
-  public void setTime(Instant instant) {
+  public synchronized void setTime(Instant instant) {
     this.now = Objects.requireNonNull(instant);
   }
 
   /**
    * Sets the zone of the fake clock.
    */
-  public void setZone(ZoneId zoneId) {
+  public synchronized void setZone(ZoneId zoneId) {
     this.zoneId = Objects.requireNonNull(zoneId);
   }
 }
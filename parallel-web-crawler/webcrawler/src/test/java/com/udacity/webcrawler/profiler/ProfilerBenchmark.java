@@ -0,0 +1,84 @@
+package com.udacity.webcrawler.profiler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the {@link Profiler} adds to each call of a wrapped object: calling the object
+ * directly, calling a method that is not {@link Profiled} through the proxy, and calling a
+ * {@link Profiled} one from a single thread and from several threads at once.
+ *
+ * <p>The wrapped method does almost nothing, so the difference between the direct call and the
+ * profiled call is the interception overhead per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProfilerBenchmark {
+
+  private Counter direct;
+  private Counter proxy;
+
+  @Setup
+  public void wrap() {
+    direct = new CounterImpl();
+    proxy = new ProfilerImpl(Clock.systemUTC()).wrap(Counter.class, new CounterImpl());
+  }
+
+  @Benchmark
+  public int directCall() {
+    return direct.next();
+  }
+
+  @Benchmark
+  public int unprofiledCall() {
+    return proxy.current();
+  }
+
+  @Benchmark
+  public int profiledCall() {
+    return proxy.next();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public int profiledCallContended() {
+    return proxy.next();
+  }
+
+  public interface Counter {
+    @Profiled
+    int next();
+
+    int current();
+  }
+
+  private static final class CounterImpl implements Counter {
+    private int count;
+
+    @Override
+    public int next() {
+      return ++count;
+    }
+
+    @Override
+    public int current() {
+      return count;
+    }
+  }
+}
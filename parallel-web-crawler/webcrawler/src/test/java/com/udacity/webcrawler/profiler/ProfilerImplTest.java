@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
@@ -136,6 +138,57 @@ public final class ProfilerImplTest {
     //assertThat(written).contains("0m 1s 0ms");
   }
 
+  @Test
+  public void profilesCompletionStageUntilItCompletes() throws Exception {
+    ProfiledInterface proxy = profiler.wrap(ProfiledInterface.class, delegate);
+    CompletableFuture<String> future = new CompletableFuture<>();
+
+    assertThat(proxy.profiledAsync(future)).isSameInstanceAs(future);
+    CloseableStringWriter before = new CloseableStringWriter();
+    profiler.writeData(before);
+    assertWithMessage("Nothing should be recorded before the returned stage completes")
+        .that(before.toString())
+        .doesNotContain("#profiledAsync");
+
+    clock.tick(Duration.ofSeconds(5));
+    future.complete("done");
+
+    CloseableStringWriter after = new CloseableStringWriter();
+    profiler.writeData(after);
+    assertWithMessage("The time until the returned stage completed should be recorded")
+        .that(after.toString())
+        .contains(
+            "com.udacity.webcrawler.profiler.ProfilerImplTest$ProfiledInterfaceImpl#profiledAsync"
+                + " took 0m 5s 0ms");
+  }
+
+  @Test
+  public void countsCallsFromEveryThread() throws Exception {
+    ProfiledInterface proxy = profiler.wrap(ProfiledInterface.class, delegate);
+
+    proxy.profiled();
+    Thread other = new Thread(() -> {
+      proxy.profiled();
+      proxy.profiled();
+    });
+    other.start();
+    other.join();
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    profiler.writeData(writer);
+    String written = writer.toString();
+    assertThat(written)
+        .contains(
+            "com.udacity.webcrawler.profiler.ProfilerImplTest$ProfiledInterfaceImpl#profiled"
+                + " took 0m 3s 0ms");
+    assertThat(written).contains("is called 3 time(s).");
+    assertThat(written).contains(Thread.currentThread().getId() + " : 1");
+    assertThat(written).contains(other.getId() + " : 2");
+    assertWithMessage("Methods that were never called should not be reported")
+        .that(written)
+        .doesNotContain("#throwSomething");
+  }
+
   /**
    * A test interface that does not have any {@link Profiled} methods.
    */
@@ -158,6 +211,9 @@ public final class ProfilerImplTest {
     @Profiled
     void throwSomething(Throwable throwable) throws Throwable;
 
+    @Profiled
+    CompletionStage<String> profiledAsync(CompletableFuture<String> result);
+
     boolean equals(String foo, String bar);
   }
 
@@ -184,6 +240,11 @@ public final class ProfilerImplTest {
       throw throwable;
     }
 
+    @Override
+    public CompletionStage<String> profiledAsync(CompletableFuture<String> result) {
+      return result;
+    }
+
     @Override
     public boolean equals(Object other) {
       // All instances of ProfiledInterface are equal to one another.